@@ -2,12 +2,14 @@ package com.marvel.hospitality.reservationservice.client;
 
 import com.marvel.hospitality.reservationservice.dto.PaymentStatusRequest;
 import com.marvel.hospitality.reservationservice.dto.PaymentStatusResponse;
+import com.marvel.hospitality.reservationservice.service.RequestDeadlines;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 
 @Component
@@ -15,7 +17,12 @@ import org.springframework.web.client.RestClient;
 public class CreditCardClient {
 
     public static final String PAYMENT_STATUS_PATH = "/payment-status";
+    private static final String CALL_STAGE = "credit card call";
     private final RestClient restClient;
+    private final CreditCardConcurrencyLimiter concurrencyLimiter;
+    private final RetryBudget retryBudget;
+    private final CreditCardHedging hedging;
+    private final RequestDeadlines deadlines;
 
     @Value("${credit-card-service.url}")
     @Getter
@@ -24,10 +31,18 @@ public class CreditCardClient {
     @Retry(name = "creditCard")
     @CircuitBreaker(name = "creditCard")
     public PaymentStatusResponse verifyPayment(String reference) {
-        return restClient.post()
-                .uri(creditCardUrl + PAYMENT_STATUS_PATH)
-                .body(new PaymentStatusRequest(reference))
-                .retrieve()
-                .body(PaymentStatusResponse.class);
+        deadlines.check(CALL_STAGE);
+        retryBudget.recordAttempt();
+        try {
+            return hedging.call(() -> concurrencyLimiter.call(() -> restClient.post()
+                    .uri(creditCardUrl + PAYMENT_STATUS_PATH)
+                    .body(new PaymentStatusRequest(reference))
+                    .retrieve()
+                    .body(PaymentStatusResponse.class)));
+        } catch (ResourceAccessException e) {
+            // timed out on our own deadline, which says nothing about the provider
+            deadlines.check(CALL_STAGE);
+            throw e;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.marvel.hospitality.reservationservice.exception.ConcurrencyLimitExceededException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Caps concurrent calls to the payment provider with an AIMD limit under the static {@code creditCard} bulkhead.
+ * A call answered within the latency threshold while the limit is in use raises it by one; a slow or failed call
+ * cuts it by the backoff ratio. Calls over the limit are rejected at once rather than queueing for a connection.
+ */
+@Component
+public class CreditCardConcurrencyLimiter {
+
+    static final String BULKHEAD = "creditCard";
+
+    private final boolean enabled;
+    private final Bulkhead bulkhead;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Counter limitRejections;
+    private final Counter bulkheadRejections;
+    private final Timer queueWait;
+
+    private double limit;
+    private int inFlight;
+
+    public CreditCardConcurrencyLimiter(BulkheadRegistry bulkheadRegistry,
+                                        @Value("${credit-card-service.concurrency.enabled:true}") boolean enabled,
+                                        @Value("${credit-card-service.concurrency.initial-limit:20}") int initialLimit,
+                                        @Value("${credit-card-service.concurrency.min-limit:2}") int minLimit,
+                                        @Value("${credit-card-service.concurrency.latency-threshold:1s}")
+                                        Duration latencyThreshold,
+                                        @Value("${credit-card-service.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.bulkhead = bulkheadRegistry.bulkhead(BULKHEAD);
+        this.maxLimit = bulkhead.getBulkheadConfig().getMaxConcurrentCalls();
+        this.minLimit = Math.min(minLimit, maxLimit);
+        this.limit = Math.clamp(initialLimit, this.minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limitRejections = Counter.builder("credit-card.concurrency.rejected")
+                .description("Provider calls rejected without being sent")
+                .tag("reason", "limit")
+                .register(meterRegistry);
+        this.bulkheadRejections = Counter.builder("credit-card.concurrency.rejected")
+                .description("Provider calls rejected without being sent")
+                .tag("reason", "bulkhead")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("credit-card.concurrency.queue-wait")
+                .description("Time spent waiting for a bulkhead permit")
+                .register(meterRegistry);
+        Gauge.builder("credit-card.concurrency.limit", this, CreditCardConcurrencyLimiter::limit)
+                .description("Current adaptive limit of concurrent provider calls")
+                .register(meterRegistry);
+        Gauge.builder("credit-card.concurrency.in-flight", this, CreditCardConcurrencyLimiter::inFlight)
+                .description("Provider calls in flight")
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        if (!tryAcquire()) {
+            limitRejections.increment();
+            throw new ConcurrencyLimitExceededException(
+                    "Too many concurrent credit card calls - limit " + (int) limit() + " reached");
+        }
+        try {
+            awaitBulkhead();
+        } catch (BulkheadFullException e) {
+            releaseUnsampled();
+            throw e;
+        }
+        long start = System.nanoTime();
+        boolean congested = true;
+        try {
+            T result = call.get();
+            congested = System.nanoTime() - start > latencyThresholdNanos;
+            return result;
+        } catch (HttpClientErrorException e) {
+            // the provider answered; a bad reference says nothing about its load
+            congested = System.nanoTime() - start > latencyThresholdNanos;
+            throw e;
+        } finally {
+            bulkhead.onComplete();
+            if (Thread.currentThread().isInterrupted()) {
+                // cancelled by the caller, e.g. the losing attempt of a hedged call
+                releaseUnsampled();
+            } else {
+                release(congested);
+            }
+        }
+    }
+
+    synchronized double limit() {
+        return limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    private synchronized void release(boolean congested) {
+        if (congested) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        inFlight--;
+    }
+
+    private synchronized void releaseUnsampled() {
+        inFlight--;
+    }
+
+    private void awaitBulkhead() {
+        long start = System.nanoTime();
+        try {
+            bulkhead.acquirePermission();
+        } catch (BulkheadFullException e) {
+            bulkheadRejections.increment();
+            throw e;
+        } finally {
+            queueWait.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+}
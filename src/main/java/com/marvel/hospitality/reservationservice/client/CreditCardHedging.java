@@ -0,0 +1,199 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.marvel.hospitality.reservationservice.exception.CreditCardServiceUnavailableException;
+import com.marvel.hospitality.reservationservice.service.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second attempt when the first has not answered within the configured percentile of recent attempt
+ * latencies, and returns whichever succeeds first. Payment-status lookups are read-only, so a duplicate is harmless.
+ * Hedges are paid from a token bucket in which every call earns {@code max-ratio} of a hedge.
+ */
+@Component
+public class CreditCardHedging {
+
+    private final boolean enabled;
+    private final Duration minDelay;
+    private final long minSamples;
+    private final double maxRatio;
+    private final double maxBalance;
+    private final Timer attempts;
+    private final Counter fired;
+    private final Counter won;
+    private final ExecutorService virtualThreads =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("card-hedge-", 0).factory());
+
+    private double balance;
+
+    public CreditCardHedging(@Value("${credit-card-service.hedging.enabled:false}") boolean enabled,
+                             @Value("${credit-card-service.hedging.percentile:0.95}") double percentile,
+                             @Value("${credit-card-service.hedging.min-delay:50ms}") Duration minDelay,
+                             @Value("${credit-card-service.hedging.min-samples:20}") long minSamples,
+                             @Value("${credit-card-service.hedging.max-ratio:0.05}") double maxRatio,
+                             @Value("${credit-card-service.hedging.max-balance:10}") double maxBalance,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minDelay = minDelay;
+        this.minSamples = minSamples;
+        this.maxRatio = maxRatio;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+        this.attempts = Timer.builder("credit-card.attempt")
+                .description("Duration of successful credit-card attempts, the hedge delay is read from it")
+                .publishPercentiles(percentile)
+                .register(meterRegistry);
+        this.fired = Counter.builder("credit-card.hedge.fired")
+                .description("Second attempts sent because the first was slower than the hedge delay")
+                .register(meterRegistry);
+        this.won = Counter.builder("credit-card.hedge.won")
+                .description("Hedged calls answered by the second attempt")
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> attempt) {
+        if (!enabled) {
+            return attempt.get();
+        }
+        deposit();
+        CompletableFuture<T> primary = start(attempt);
+        try {
+            Duration delay = hedgeDelay();
+            if (delay == null) {
+                return await(primary);
+            }
+            try {
+                return unwrap(() -> primary.get(delay.toNanos(), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                if (!tryHedge()) {
+                    return await(primary);
+                }
+            }
+            fired.increment();
+            CompletableFuture<T> hedge = start(attempt);
+            try {
+                return await(firstSuccess(primary, hedge));
+            } finally {
+                hedge.cancel(true);
+            }
+        } finally {
+            primary.cancel(true);
+        }
+    }
+
+    /**
+     * The configured percentile of recent attempts, or {@code null} until enough attempts were seen.
+     */
+    Duration hedgeDelay() {
+        if (attempts.count() < minSamples) {
+            return null;
+        }
+        ValueAtPercentile[] percentiles = attempts.takeSnapshot().percentileValues();
+        Duration observed = Duration.ofNanos((long) percentiles[0].value(TimeUnit.NANOSECONDS));
+        return observed.compareTo(minDelay) > 0 ? observed : minDelay;
+    }
+
+    private <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> primary, CompletableFuture<T> hedge) {
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                first.complete(value);
+            } else if (failed.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        hedge.whenComplete((value, error) -> {
+            if (error == null) {
+                if (first.complete(value)) {
+                    won.increment();
+                }
+            } else if (failed.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        return first;
+    }
+
+    private <T> CompletableFuture<T> start(Supplier<T> attempt) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Supplier<T> withinDeadline = RequestDeadline.propagate(attempt);
+        Future<?> task = virtualThreads.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                T value = withinDeadline.get();
+                attempts.record(Duration.ofNanos(System.nanoTime() - start));
+                result.complete(value);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> T await(CompletableFuture<T> attempt) {
+        try {
+            return unwrap(attempt::get);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T unwrap(Wait<T> wait) throws TimeoutException {
+        try {
+            return wait.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CreditCardServiceUnavailableException("Interrupted while waiting for the credit card service", e);
+        }
+    }
+
+    private synchronized void deposit() {
+        balance = Math.min(maxBalance, balance + maxRatio);
+    }
+
+    private synchronized boolean tryHedge() {
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Wait<T> {
+        T get() throws InterruptedException, ExecutionException, TimeoutException;
+    }
+}
@@ -0,0 +1,93 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.marvel.hospitality.reservationservice.dto.PaymentStatusResponse;
+import com.marvel.hospitality.reservationservice.model.PaymentConfirmationStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers the provider's answer per payment reference, so retried and resubmitted bookings do not call it again.
+ * Failures are never cached. Loads run outside the cache: a provider call can take seconds and would otherwise
+ * block writers of unrelated references. Concurrent misses for one reference share a single provider call.
+ */
+@Component
+public class PaymentStatusCache {
+
+    static final String CACHE_NAME = "payment-status";
+
+    private final CreditCardClient creditCardClient;
+    private final boolean enabled;
+    private final Cache<String, PaymentStatusResponse> cache;
+    private final SingleFlight<String, PaymentStatusResponse> inFlight;
+
+    @Autowired
+    public PaymentStatusCache(CreditCardClient creditCardClient,
+                              @Value("${credit-card-service.cache.enabled:true}") boolean enabled,
+                              @Value("${credit-card-service.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${credit-card-service.cache.confirmed-ttl:10m}") Duration confirmedTtl,
+                              @Value("${credit-card-service.cache.rejected-ttl:1m}") Duration rejectedTtl,
+                              @Value("${credit-card-service.coalescing.max-wait:10s}") Duration coalescingMaxWait,
+                              MeterRegistry meterRegistry) {
+        this(creditCardClient, enabled, maximumSize, confirmedTtl, rejectedTtl, coalescingMaxWait, meterRegistry,
+                Ticker.systemTicker());
+    }
+
+    PaymentStatusCache(CreditCardClient creditCardClient, boolean enabled, long maximumSize, Duration confirmedTtl,
+                       Duration rejectedTtl, Duration coalescingMaxWait, MeterRegistry meterRegistry, Ticker ticker) {
+        this.creditCardClient = creditCardClient;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.creating((String reference, PaymentStatusResponse response) ->
+                        response.status() == PaymentConfirmationStatus.CONFIRMED ? confirmedTtl : rejectedTtl))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.inFlight = new SingleFlight<>("credit-card.verification", coalescingMaxWait, meterRegistry);
+    }
+
+    public PaymentStatusResponse verifyPayment(String reference) {
+        if (!enabled) {
+            return inFlight.call(reference, () -> creditCardClient.verifyPayment(reference));
+        }
+        PaymentStatusResponse cached = cache.getIfPresent(reference);
+        if (cached != null) {
+            return cached;
+        }
+        return inFlight.call(reference, () -> load(reference));
+    }
+
+    private PaymentStatusResponse load(String reference) {
+        // a call that finished between our miss and taking the lead has already cached its answer
+        PaymentStatusResponse cached = cache.policy().getIfPresentQuietly(reference);
+        if (cached != null) {
+            return cached;
+        }
+        PaymentStatusResponse response = creditCardClient.verifyPayment(reference);
+        if (response != null && response.status() != null) {
+            cache.put(reference, response);
+        }
+        return response;
+    }
+
+    /**
+     * Drops the answer remembered for {@code reference}; returns whether there was one.
+     */
+    public boolean invalidate(String reference) {
+        return cache.asMap().remove(reference) != null;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,23 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "paymentstatuscache")
+@RequiredArgsConstructor
+public class PaymentStatusCacheEndpoint {
+
+    private final PaymentStatusCache cache;
+
+    @DeleteOperation
+    public Invalidation invalidate(@Selector String reference) {
+        return new Invalidation(reference, cache.invalidate(reference));
+    }
+
+    public record Invalidation(String reference, boolean invalidated) {
+    }
+}
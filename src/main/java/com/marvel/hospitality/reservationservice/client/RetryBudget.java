@@ -0,0 +1,75 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Predicate;
+
+/**
+ * Token bucket shared by all credit-card calls that caps retries at {@code ratio} of first attempts. Every attempt
+ * deposits {@code ratio} tokens and a retry costs {@code 1 + ratio}, as the retried attempt deposits again. The
+ * bucket holds at most {@code max-balance} tokens, so only recent traffic earns retries.
+ */
+@Component
+public class RetryBudget {
+
+    private final boolean enabled;
+    private final double ratio;
+    private final double maxBalance;
+    private final Counter exhausted;
+
+    private double balance;
+
+    public RetryBudget(@Value("${credit-card-service.retry-budget.enabled:true}") boolean enabled,
+                       @Value("${credit-card-service.retry-budget.ratio:0.1}") double ratio,
+                       @Value("${credit-card-service.retry-budget.max-balance:10}") double maxBalance,
+                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ratio = ratio;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+        this.exhausted = Counter.builder("credit-card.retry.budget.exhausted")
+                .description("Retryable credit-card failures not retried because the retry budget was spent")
+                .register(meterRegistry);
+        Gauge.builder("credit-card.retry.budget.balance", this, RetryBudget::balance)
+                .description("Retries currently affordable, in tokens")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retry predicate that lets a {@code retryable} failure be retried only while the budget can pay for it.
+     */
+    public Predicate<Throwable> gate(Predicate<Throwable> retryable) {
+        return failure -> retryable.test(failure) && tryWithdraw();
+    }
+
+    public synchronized void recordAttempt() {
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * Gives back a withdrawal that did not turn into a retry because the attempts were used up.
+     */
+    public synchronized void refund() {
+        balance = Math.min(maxBalance, balance + 1 + ratio);
+    }
+
+    synchronized double balance() {
+        return balance;
+    }
+
+    private synchronized boolean tryWithdraw() {
+        if (!enabled) {
+            return true;
+        }
+        if (balance < 1 + ratio) {
+            exhausted.increment();
+            return false;
+        }
+        balance -= 1 + ratio;
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.marvel.hospitality.reservationservice.exception.CreditCardServiceUnavailableException;
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
+import com.marvel.hospitality.reservationservice.service.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent calls for the same key share one in-flight call and its result or failure. The first caller runs
+ * the call on its own thread, under its own request deadline; the others wait for it, each for at most
+ * {@code maxWait} or until its own deadline, and giving up does not cancel the shared call. A waiter whose own
+ * deadline has not passed does not take the first caller's {@link DeadlineExceededException}: it makes or joins
+ * another call instead.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+    private final Counter collapsed;
+    private final Counter waitTimeouts;
+    private final Counter leaderDeadlineRetries;
+
+    SingleFlight(String name, Duration maxWait, MeterRegistry meterRegistry) {
+        this.maxWait = maxWait;
+        this.collapsed = Counter.builder(name + ".coalesced")
+                .description("Calls that joined an in-flight call for the same key instead of making their own")
+                .register(meterRegistry);
+        this.waitTimeouts = Counter.builder(name + ".coalesced.timeouts")
+                .description("Joined calls that gave up waiting for the in-flight call")
+                .register(meterRegistry);
+        this.leaderDeadlineRetries = Counter.builder(name + ".coalesced.retries")
+                .description("Joined calls retried because the in-flight call ran out of its caller's deadline")
+                .register(meterRegistry);
+        Gauge.builder(name + ".in-flight", inFlight, ConcurrentMap::size)
+                .description("Keys with a call in flight")
+                .register(meterRegistry);
+    }
+
+    V call(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        while (running != null) {
+            collapsed.increment();
+            try {
+                return join(running);
+            } catch (DeadlineExceededException e) {
+                if (ownDeadlinePassed()) {
+                    throw e;
+                }
+                leaderDeadlineRetries.increment();
+                // the finished call may still be registered until its caller's finally block runs
+                inFlight.remove(key, running);
+                running = inFlight.putIfAbsent(key, mine);
+            }
+        }
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V join(CompletableFuture<V> running) {
+        try {
+            return running.get(RequestDeadline.cap(maxWait).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            waitTimeouts.increment();
+            if (ownDeadlinePassed()) {
+                throw new DeadlineExceededException("Request deadline passed waiting for the in-flight call of the same key");
+            }
+            throw new CreditCardServiceUnavailableException("Gave up waiting for the in-flight call of the same key", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CreditCardServiceUnavailableException("Interrupted while waiting for the in-flight call", e);
+        }
+    }
+
+    private static boolean ownDeadlinePassed() {
+        return RequestDeadline.current().filter(RequestDeadline::isExpired).isPresent();
+    }
+}
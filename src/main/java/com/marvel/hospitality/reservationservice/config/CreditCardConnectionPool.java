@@ -0,0 +1,119 @@
+package com.marvel.hospitality.reservationservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Connection pool of the credit card client. Publishes pool gauges and the time callers wait to lease a connection,
+ * and opens {@code warmUpConnections} connections to the provider once the context is up, before traffic arrives.
+ */
+@Slf4j
+public class CreditCardConnectionPool extends PoolingHttpClientConnectionManager implements SmartInitializingSingleton {
+
+    static final String NAME = "credit-card";
+
+    private final URI provider;
+    private final int warmUpConnections;
+    private final Timeout leaseTimeout;
+    private final TimeValue keepAlive;
+    private final Timer leased;
+    private final Timer leaseTimedOut;
+
+    public CreditCardConnectionPool(URI provider, int warmUpConnections, Timeout leaseTimeout, TimeValue keepAlive,
+                                    MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.warmUpConnections = warmUpConnections;
+        this.leaseTimeout = leaseTimeout;
+        this.keepAlive = keepAlive;
+        this.leased = leaseWait(meterRegistry, "acquired");
+        this.leaseTimedOut = leaseWait(meterRegistry, "timeout");
+        new PoolingHttpClientConnectionManagerMetricsBinder(this, NAME).bindTo(meterRegistry);
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest lease = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                long start = System.nanoTime();
+                Timer outcome = leaseTimedOut;
+                try {
+                    ConnectionEndpoint endpoint = lease.get(timeout);
+                    outcome = leased;
+                    return endpoint;
+                } finally {
+                    outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return lease.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (warmUpConnections > 0) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Leases {@code warmUpConnections} endpoints at once so each gets its own connection, connects them and hands
+     * them back to the pool. A provider that cannot be reached is logged and left to the first bookings.
+     */
+    void warmUp() {
+        HttpHost target = RoutingSupport.normalize(HttpHost.create(provider), DefaultSchemePortResolver.INSTANCE);
+        HttpRoute route = new HttpRoute(target, null, URIScheme.HTTPS.same(target.getSchemeName()));
+        List<ConnectionEndpoint> endpoints = new ArrayList<>();
+        try {
+            for (int i = 0; i < warmUpConnections; i++) {
+                ConnectionEndpoint endpoint = super.lease("warm-up-" + i, route, leaseTimeout, null).get(leaseTimeout);
+                endpoints.add(endpoint);
+                if (!endpoint.isConnected()) {
+                    connect(endpoint, null, HttpClientContext.create());
+                }
+            }
+            log.info("Opened {} connections to the credit card service at {}", endpoints.size(), target);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Could not warm up connections to the credit card service at {}: {}", target, e.getMessage());
+        } finally {
+            endpoints.forEach(endpoint -> release(endpoint, null, keepAlive));
+        }
+    }
+
+    private static Timer leaseWait(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("credit-card.http.pool.lease-wait")
+                .description("Time spent waiting for a pooled connection to the credit card service")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
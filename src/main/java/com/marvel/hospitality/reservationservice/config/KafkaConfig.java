@@ -1,15 +1,24 @@
 package com.marvel.hospitality.reservationservice.config;
 
 import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+import com.marvel.hospitality.reservationservice.listener.ConsumerLagMetrics;
+import com.marvel.hospitality.reservationservice.listener.PaymentUpdateRetryListener;
+import com.marvel.hospitality.reservationservice.listener.PaymentUpdateRetryTopology;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
@@ -17,10 +26,13 @@ import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
+@EnableKafka
 @ConditionalOnProperty(value = "app.kafka.enabled", havingValue = "true", matchIfMissing = true)
 public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
@@ -31,35 +43,88 @@ public class KafkaConfig {
     private int concurrency;
     @Value("${spring.kafka.topic.payment-update}")
     private String paymentUpdateTopic;
+    @Value("${spring.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+    @Value("${spring.kafka.dlt-topic:${spring.kafka.topic.payment-update}-dlt}")
+    private String dltTopic;
+    @Value("${spring.kafka.retry.delays:1s,10s,1m}")
+    private List<Duration> retryDelays;
+    @Value("${spring.kafka.lag-metrics.interval:15s}")
+    private Duration lagInterval;
 
    @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, byte[]> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // payment updates are parsed from the raw bytes by PaymentUpdateParser
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    /**
+     * Batch listener for the main topic. A failed record is forwarded at once to the first retry tier, or to the DLT
+     * when malformed, so the partition keeps flowing behind it.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
-            ConsumerFactory<String, String> consumerFactory, KafkaTemplate<String, String> template) {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory(
+            ConsumerFactory<String, byte[]> consumerFactory, DefaultErrorHandler forwardingErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
         factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.setCommonErrorHandler(forwardingErrorHandler);
+        return factory;
+    }
 
-        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(template);
-        FixedBackOff backOff = new FixedBackOff(1000L, 2L);
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
-        errorHandler.addNotRetryableExceptions(IllegalPaymentUpdateMessageFormatException.class);
-        factory.setCommonErrorHandler(errorHandler);
+    /** Record listener for the retry tiers, forwarding to the next tier on failure. */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> retryListenerContainerFactory(
+            ConsumerFactory<String, byte[]> consumerFactory, DefaultErrorHandler forwardingErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.setCommonErrorHandler(forwardingErrorHandler);
         return factory;
     }
 
+    @Bean
+    public DefaultErrorHandler forwardingErrorHandler(KafkaTemplate<String, byte[]> deadLetterTemplate,
+                                                      PaymentUpdateRetryTopology retryTopology) {
+        DeadLetterPublishingRecoverer recoverer =
+                new DeadLetterPublishingRecoverer(deadLetterTemplate, retryTopology::destination);
+        recoverer.setHeadersFunction(retryTopology::headers);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(0L, 0L));
+        errorHandler.addNotRetryableExceptions(IllegalPaymentUpdateMessageFormatException.class);
+        return errorHandler;
+    }
+
+    @Bean
+    public PaymentUpdateRetryTopology paymentUpdateRetryTopology() {
+        return new PaymentUpdateRetryTopology(paymentUpdateTopic, dltTopic, retryDelays);
+    }
+
+    @Bean
+    public PaymentUpdateRetryContainers paymentUpdateRetryContainers(
+            ConcurrentKafkaListenerContainerFactory<String, byte[]> retryListenerContainerFactory,
+            PaymentUpdateRetryTopology retryTopology, PaymentUpdateRetryListener retryListener) {
+        return new PaymentUpdateRetryContainers(retryListenerContainerFactory, retryTopology.tiers(), groupId,
+                retryListener);
+    }
+
+    @Bean
+    public ConsumerLagMetrics consumerLagMetrics(MeterRegistry meterRegistry) {
+        return new ConsumerLagMetrics(
+                () -> AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers)),
+                groupId, List.of(paymentUpdateTopic), lagInterval, meterRegistry);
+    }
+
     @Bean
     public ProducerFactory<String, String> producerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -74,8 +139,25 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory);
     }
 
+    /** Republishes failed records to the DLT with their original bytes. */
+    @Bean
+    public KafkaTemplate<String, byte[]> deadLetterTemplate() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
     @Bean
     public NewTopic paymentUpdateTopic() {
         return new NewTopic(paymentUpdateTopic, concurrency, (short) 1);
     }
+
+    @Bean
+    public KafkaAdmin.NewTopics paymentUpdateRetryTopics(PaymentUpdateRetryTopology retryTopology) {
+        return new KafkaAdmin.NewTopics(retryTopology.tiers().stream()
+                .map(tier -> new NewTopic(tier.topic(), concurrency, (short) 1))
+                .toArray(NewTopic[]::new));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.marvel.hospitality.reservationservice.config;
+
+import com.marvel.hospitality.reservationservice.listener.PaymentUpdateRetryListener;
+import com.marvel.hospitality.reservationservice.listener.PaymentUpdateRetryTopology.RetryTier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.List;
+
+/**
+ * One listener container per delay tier, each in its own consumer group, so a tier paused until its next record is
+ * due never holds up a shorter one. Started and stopped with the application context.
+ */
+public class PaymentUpdateRetryContainers implements SmartLifecycle {
+
+    private final List<ConcurrentMessageListenerContainer<String, byte[]>> containers;
+
+    public PaymentUpdateRetryContainers(ConcurrentKafkaListenerContainerFactory<String, byte[]> factory,
+                                        List<RetryTier> tiers, String groupId, PaymentUpdateRetryListener listener) {
+        this.containers = tiers.stream().map(tier -> {
+            ConcurrentMessageListenerContainer<String, byte[]> container = factory.createContainer(tier.topic());
+            container.getContainerProperties().setGroupId(groupId + "-retry-" + tier.delay().toMillis());
+            container.getContainerProperties().setMessageListener(listener);
+            container.setBeanName("paymentUpdateRetry-" + tier.delay().toMillis());
+            return container;
+        }).toList();
+    }
+
+    public List<ConcurrentMessageListenerContainer<String, byte[]>> containers() {
+        return containers;
+    }
+
+    @Override
+    public void start() {
+        containers.forEach(ConcurrentMessageListenerContainer::start);
+    }
+
+    @Override
+    public void stop() {
+        containers.forEach(ConcurrentMessageListenerContainer::stop);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return containers.stream().anyMatch(ConcurrentMessageListenerContainer::isRunning);
+    }
+}
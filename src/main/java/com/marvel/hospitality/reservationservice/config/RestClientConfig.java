@@ -1,47 +1,110 @@
 package com.marvel.hospitality.reservationservice.config;
 
+import com.marvel.hospitality.reservationservice.service.RequestDeadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
 import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
-import java.util.concurrent.TimeUnit;
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class RestClientConfig {
 
     @Bean
-    public RestClient restClient() {
-        ConnectionConfig connectionConfig = ConnectionConfig.custom()
-                .setConnectTimeout(Timeout.of(2, TimeUnit.SECONDS))
-                .setSocketTimeout(Timeout.of(5, TimeUnit.SECONDS))
-                .build();
-
-        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                .setMaxConnTotal(50)
-                .setMaxConnPerRoute(20)
-                .setDefaultConnectionConfig(connectionConfig)
-                .build();
+    public CreditCardConnectionPool creditCardConnectionPool(
+            @Value("${credit-card-service.url}") URI provider,
+            @Value("${credit-card-service.http.max-connections:50}") int maxConnections,
+            @Value("${credit-card-service.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+            @Value("${credit-card-service.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${credit-card-service.http.socket-timeout:5s}") Duration socketTimeout,
+            @Value("${credit-card-service.http.time-to-live:5m}") Duration timeToLive,
+            @Value("${credit-card-service.http.validate-after-inactivity:2s}") Duration validateAfterInactivity,
+            @Value("${credit-card-service.http.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+            @Value("${credit-card-service.http.keep-alive:30s}") Duration keepAlive,
+            @Value("${credit-card-service.http.warm-up-connections:0}") int warmUpConnections,
+            MeterRegistry meterRegistry) {
+        CreditCardConnectionPool pool = new CreditCardConnectionPool(provider,
+                Math.min(warmUpConnections, maxConnectionsPerRoute), Timeout.of(connectionRequestTimeout),
+                TimeValue.of(keepAlive), meterRegistry);
+        pool.setMaxTotal(maxConnections);
+        pool.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        pool.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(socketTimeout))
+                .setTimeToLive(TimeValue.of(timeToLive))
+                .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                .build());
+        return pool;
+    }
 
+    @Bean
+    public RestClient restClient(CreditCardConnectionPool connectionPool,
+                                 @Value("${credit-card-service.http.connect-timeout:2s}") Duration connectTimeout,
+                                 @Value("${credit-card-service.http.socket-timeout:5s}") Duration socketTimeout,
+                                 @Value("${credit-card-service.http.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+                                 @Value("${credit-card-service.http.idle-eviction:30s}") Duration idleEviction,
+                                 @Value("${credit-card-service.http.keep-alive:30s}") Duration keepAlive) {
         RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(Timeout.of(1, TimeUnit.SECONDS))
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
                 .build();
 
         CloseableHttpClient httpClient = HttpClients.custom()
-                .setConnectionManager(connectionManager)
+                .setConnectionManager(connectionPool)
                 .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveAtMost(TimeValue.of(keepAlive)))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
                 .disableAutomaticRetries()
                 .build();
 
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setHttpContextFactory((method, uri) ->
+                withinDeadline(requestConfig, connectTimeout, socketTimeout, connectionRequestTimeout));
         return RestClient.builder()
-                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .requestFactory(requestFactory)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Context of a call made under a request deadline, with every timeout cut to the time left before it.
+     */
+    @SuppressWarnings("deprecation") // the per-request connect timeout still overrides the pool's one
+    private static HttpContext withinDeadline(RequestConfig defaults, Duration connectTimeout, Duration socketTimeout,
+                                              Duration connectionRequestTimeout) {
+        HttpClientContext context = HttpClientContext.create();
+        RequestDeadline.current().ifPresent(deadline -> context.setRequestConfig(RequestConfig.copy(defaults)
+                .setConnectTimeout(timeoutWithin(connectTimeout))
+                .setResponseTimeout(timeoutWithin(socketTimeout))
+                .setConnectionRequestTimeout(timeoutWithin(connectionRequestTimeout))
+                .build()));
+        return context;
+    }
+
+    private static Timeout timeoutWithin(Duration timeout) {
+        // a zero timeout means no timeout at all to HttpClient
+        return Timeout.ofMilliseconds(Math.max(1, RequestDeadline.cap(timeout).toMillis()));
+    }
+
+    /**
+     * Honours a shorter {@code Keep-Alive} timeout sent by the provider; otherwise connections are reused for at most
+     * {@code keepAlive}, below the idle timeout of the load balancers in front of it.
+     */
+    private static ConnectionKeepAliveStrategy keepAliveAtMost(TimeValue keepAlive) {
+        return (response, context) ->
+                DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context).min(keepAlive);
+    }
+}
@@ -0,0 +1,67 @@
+package com.marvel.hospitality.reservationservice.config;
+
+import com.marvel.hospitality.reservationservice.client.RetryBudget;
+import com.marvel.hospitality.reservationservice.service.RequestDeadline;
+import com.marvel.hospitality.reservationservice.service.RequestDeadlines;
+import io.github.resilience4j.core.IntervalBiFunction;
+import io.github.resilience4j.common.retry.configuration.RetryConfigCustomizer;
+import io.github.resilience4j.core.registry.EntryAddedEvent;
+import io.github.resilience4j.core.registry.EntryRemovedEvent;
+import io.github.resilience4j.core.registry.EntryReplacedEvent;
+import io.github.resilience4j.core.registry.RegistryEventConsumer;
+import io.github.resilience4j.retry.Retry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Puts the {@code creditCard} retry under the shared {@link RetryBudget}. The retryable failures are listed here
+ * rather than under {@code retryExceptions}: Resilience4j ORs that list with the predicate, which would bypass
+ * the budget. A call whose request deadline has passed is not retried, and no backoff outlasts the deadline.
+ */
+@Configuration
+public class RetryBudgetConfig {
+
+    static final String CREDIT_CARD = "creditCard";
+
+    private static final Predicate<Throwable> RETRYABLE =
+            e -> e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+
+    @Bean
+    public RetryConfigCustomizer creditCardRetryBudget(RetryBudget retryBudget, RequestDeadlines deadlines) {
+        return RetryConfigCustomizer.of(CREDIT_CARD, builder -> {
+            IntervalBiFunction<Object> backoff = builder.build().getIntervalBiFunction();
+            IntervalBiFunction<Object> withinDeadline = (attempt, outcome) ->
+                    RequestDeadline.cap(Duration.ofMillis(backoff.apply(attempt, outcome))).toMillis();
+            builder.intervalFunction(null)
+                    .intervalBiFunction(withinDeadline)
+                    .retryOnException(retryBudget.gate(RETRYABLE.and(e -> deadlines.allowsRetry())));
+        });
+    }
+
+    @Bean
+    public RegistryEventConsumer<Retry> creditCardRetryBudgetRefund(RetryBudget retryBudget) {
+        return new RegistryEventConsumer<>() {
+            @Override
+            public void onEntryAddedEvent(EntryAddedEvent<Retry> event) {
+                Retry retry = event.getAddedEntry();
+                if (CREDIT_CARD.equals(retry.getName())) {
+                    // the last attempt's failure passed the gate but had no attempt left to retry
+                    retry.getEventPublisher().onError(e -> retryBudget.refund());
+                }
+            }
+
+            @Override
+            public void onEntryRemovedEvent(EntryRemovedEvent<Retry> event) {
+            }
+
+            @Override
+            public void onEntryReplacedEvent(EntryReplacedEvent<Retry> event) {
+            }
+        };
+    }
+}
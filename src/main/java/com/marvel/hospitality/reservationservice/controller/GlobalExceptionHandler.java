@@ -3,6 +3,7 @@ package com.marvel.hospitality.reservationservice.controller;
 
 
 import com.marvel.hospitality.reservationservice.exception.CreditCardServiceUnavailableException;
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
 import com.marvel.hospitality.reservationservice.exception.InvalidPaymentReferenceException;
 import com.marvel.hospitality.reservationservice.exception.PaymentRejectedException;
 import com.marvel.hospitality.reservationservice.exception.ReservationConflictException;
@@ -13,9 +14,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.Instant;
 import java.util.LinkedHashMap;
@@ -60,6 +63,16 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler({MissingServletRequestParameterException.class, MethodArgumentTypeMismatchException.class})
+    public ProblemDetail handleInvalidRequestParameter(Exception ex, WebRequest request) {
+        return buildProblemDetail(
+                HttpStatus.BAD_REQUEST,
+                ex.getMessage(),
+                null,
+                request
+        );
+    }
+
     @ExceptionHandler(ReservationConflictException.class)
     public ProblemDetail handleReservationConflict(ReservationConflictException ex, WebRequest request) {
         return buildProblemDetail(
@@ -77,7 +90,18 @@ public class GlobalExceptionHandler {
         return buildProblemDetail(
                 HttpStatus.SERVICE_UNAVAILABLE,
                 "Try Later - credit card service temporarily unavailable",
-                Map.of("cause", ex.getCause().getLocalizedMessage()),
+                Map.of("cause", causeOf(ex)),
+                request
+        );
+    }
+
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ProblemDetail handleDeadlineExceeded(DeadlineExceededException ex, WebRequest request) {
+        return buildProblemDetail(
+                HttpStatus.GATEWAY_TIMEOUT,
+                ex.getMessage(),
+                null,
                 request
         );
     }
@@ -113,4 +137,10 @@ public class GlobalExceptionHandler {
 
         return problem;
     }
+
+
+    private static String causeOf(CreditCardServiceUnavailableException ex) {
+        String cause = ex.getCause() == null ? null : ex.getCause().getLocalizedMessage();
+        return cause == null ? ex.getMessage() : cause;
+    }
 }
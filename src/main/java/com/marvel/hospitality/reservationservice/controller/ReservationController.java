@@ -2,6 +2,10 @@ package com.marvel.hospitality.reservationservice.controller;
 
 import com.marvel.hospitality.reservationservice.dto.ReservationRequest;
 import com.marvel.hospitality.reservationservice.dto.ReservationResponse;
+import com.marvel.hospitality.reservationservice.dto.RoomAvailabilityResponse;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+import com.marvel.hospitality.reservationservice.service.RequestDeadline;
+import com.marvel.hospitality.reservationservice.service.RequestDeadlines;
 import com.marvel.hospitality.reservationservice.service.ReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,16 +16,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
 
 @RestController
 @RequestMapping("/reservations")
 @RequiredArgsConstructor
 public class ReservationController {
 
+    static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+
     private final ReservationService service;
+    private final RequestDeadlines deadlines;
 
     @Operation(
             summary = "Submits a room reservation",
@@ -36,6 +48,9 @@ public class ReservationController {
             - Start date must be in the future or today
             - End date must be after start date
             - All required fields must be provided
+            
+            The `X-Request-Timeout` header tells how long the caller waits for the answer, in milliseconds;
+            downstream calls are cut short once it passes and the request fails with 504.
             """
     )
     @ApiResponses(value = {
@@ -69,6 +84,11 @@ public class ReservationController {
                     description = "Credit card service unavailable (circuit open or external 503)",
                     content = @Content(mediaType = "application/problem+json")
             ),
+            @ApiResponse(
+                    responseCode = "504",
+                    description = "The request deadline passed before the reservation could be settled",
+                    content = @Content(mediaType = "application/problem+json")
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal Error",
@@ -77,7 +97,10 @@ public class ReservationController {
     })
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ReservationResponse createReservation(
+    public CompletableFuture<ReservationResponse> createReservation(
+            @RequestHeader(name = REQUEST_TIMEOUT_HEADER, required = false)
+            @Parameter(description = "How long the caller waits for the answer, in milliseconds", example = "3000")
+            Long timeoutMillis,
             @Valid
             @RequestBody
             @Parameter(
@@ -86,6 +109,56 @@ public class ReservationController {
             )
             ReservationRequest request
     ) {
-        return service.createReservation(request);
+        RequestDeadline deadline = deadlines.start(timeoutMillis == null ? null : Duration.ofMillis(timeoutMillis));
+        return RequestDeadline.callWithin(deadline, () -> service.submitReservation(request));
+    }
+
+    @Operation(
+            summary = "Searches free rooms of a segment",
+            description = """
+            Lists the rooms of the given segment that are free for every night from `from` (inclusive)
+            to `to` (exclusive), answered from the in-memory occupancy calendar. The rooms searched are those
+            of the configured room catalogue (`availability.rooms`) and those appearing in any reservation.
+            
+            Validations:
+            - Period cannot exceed 30 days
+            - `from` must be today or in the future
+            - `to` must be after `from`
+            """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Rooms free for the whole period",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = RoomAvailabilityResponse.class),
+                            examples = @ExampleObject(value = """
+                    {
+                      "segment": "MEDIUM",
+                      "from": "2026-03-01",
+                      "to": "2026-03-05",
+                      "availableRooms": ["101", "204"]
+                    }
+                    """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid period or segment",
+                    content = @Content(mediaType = "application/problem+json")
+            )
+    })
+    @GetMapping("/availability")
+    public RoomAvailabilityResponse findAvailableRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @Parameter(description = "First night of the stay", example = "2026-03-01") LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @Parameter(description = "Check-out date (exclusive)", example = "2026-03-05") LocalDate to,
+            @RequestParam
+            @Parameter(description = "Room size category", example = "MEDIUM") RoomSegment segment
+    ) {
+        return service.findAvailableRooms(segment, from, to);
     }
 }
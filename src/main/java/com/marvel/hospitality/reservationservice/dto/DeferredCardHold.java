@@ -0,0 +1,4 @@
+package com.marvel.hospitality.reservationservice.dto;
+
+public record DeferredCardHold(String reservationId, String paymentReference) {
+}
@@ -0,0 +1,7 @@
+package com.marvel.hospitality.reservationservice.dto;
+
+
+public record PaymentUpdate(
+        String paymentId,
+        String reservationId
+) {}
@@ -0,0 +1,7 @@
+package com.marvel.hospitality.reservationservice.dto;
+
+import java.time.LocalDate;
+
+/** Keyset pagination key of the overdue sweep, ordered by start date then id. */
+public record ReservationKey(LocalDate startDate, String id) {
+}
@@ -0,0 +1,21 @@
+package com.marvel.hospitality.reservationservice.dto;
+
+
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+
+import java.time.LocalDate;
+
+public record ReservationStay(
+        String reservationId,
+        String roomNumber,
+        RoomSegment segment,
+        LocalDate startDate,
+        LocalDate endDate
+) {
+
+    public static ReservationStay of(Reservation reservation) {
+        return new ReservationStay(reservation.getId(), reservation.getRoomNumber(), reservation.getSegment(),
+                reservation.getStartDate(), reservation.getEndDate());
+    }
+}
@@ -0,0 +1,25 @@
+package com.marvel.hospitality.reservationservice.dto;
+
+
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+
+import java.time.LocalDate;
+
+public record ReservationStayChange(
+        String reservationId,
+        String roomNumber,
+        RoomSegment segment,
+        LocalDate startDate,
+        LocalDate endDate,
+        ReservationStatus status
+) {
+
+    public boolean isActive() {
+        return status == ReservationStatus.PENDING_PAYMENT || status == ReservationStatus.CONFIRMED;
+    }
+
+    public ReservationStay stay() {
+        return new ReservationStay(reservationId, roomNumber, segment, startDate, endDate);
+    }
+}
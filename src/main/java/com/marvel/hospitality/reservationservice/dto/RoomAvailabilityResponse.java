@@ -0,0 +1,23 @@
+package com.marvel.hospitality.reservationservice.dto;
+
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Schema(description = "Rooms of a segment that are free for every night of the requested period")
+public record RoomAvailabilityResponse(
+
+        @Schema(description = "Room size category", example = "MEDIUM")
+        RoomSegment segment,
+
+        @Schema(description = "First night of the requested period", example = "2026-03-01")
+        LocalDate from,
+
+        @Schema(description = "Check-out date of the requested period (exclusive)", example = "2026-03-05")
+        LocalDate to,
+
+        @Schema(description = "Room numbers free for the whole period, sorted", example = "[\"101\", \"204\"]")
+        List<String> availableRooms
+) {}
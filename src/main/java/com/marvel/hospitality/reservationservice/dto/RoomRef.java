@@ -0,0 +1,6 @@
+package com.marvel.hospitality.reservationservice.dto;
+
+
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+
+public record RoomRef(String roomNumber, RoomSegment segment) {}
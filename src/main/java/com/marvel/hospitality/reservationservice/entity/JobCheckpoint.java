@@ -0,0 +1,30 @@
+package com.marvel.hospitality.reservationservice.entity;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+
+/**
+ * Last (start_date, id) key up to which every chunk of an interrupted keyset run has been processed.
+ */
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+    @Id
+    private String jobName;
+
+
+    private LocalDate runThreshold;
+    private LocalDate lastStartDate;
+    private String lastId;
+    private LocalDateTime updatedAt;
+}
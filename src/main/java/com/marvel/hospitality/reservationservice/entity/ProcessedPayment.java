@@ -0,0 +1,41 @@
+package com.marvel.hospitality.reservationservice.entity;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+
+import java.time.LocalDateTime;
+
+
+/**
+ * A payment update that has been applied. Rows are only ever inserted, so {@link #isNew()} spares the SELECT that
+ * saving an entity with an assigned ID would otherwise cost, and a batch of them reaches the DB as one JDBC batch.
+ */
+@Entity
+@Table(name = "processed_payments")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedPayment implements Persistable<String> {
+    @Id
+    private String paymentId;
+
+
+    private String reservationId;
+    private LocalDateTime processedAt;
+
+
+    @Override
+    public String getId() {
+        return paymentId;
+    }
+
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
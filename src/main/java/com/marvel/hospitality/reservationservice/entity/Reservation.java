@@ -36,6 +36,8 @@ public class Reservation {
     private ReservationStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private LocalDateTime verificationDeferredAt;
+    private LocalDateTime refundRequiredAt;
 
 
     @PrePersist
@@ -0,0 +1,29 @@
+package com.marvel.hospitality.reservationservice.entity;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Time-limited right of one node to run a scheduled job; {@code owner} is cleared when the run ends normally, while
+ * {@code expiresAt} keeps other nodes out until the job's minimum hold has passed.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+    @Id
+    private String leaseName;
+
+
+    private String owner;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,8 @@
+package com.marvel.hospitality.reservationservice.exception;
+
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.marvel.hospitality.reservationservice.exception;
+
+
+public class PaymentRefundRequiredException extends ReservationConflictException {
+    public PaymentRefundRequiredException(String message) {
+        super(message);
+    }
+}
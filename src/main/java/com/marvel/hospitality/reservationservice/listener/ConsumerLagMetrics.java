@@ -0,0 +1,150 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the lag of the payment-update consumer group per partition as {@code payment-updates.consumer.lag}: the
+ * end offset minus the committed one, or minus the earliest one for a partition the group never committed, read from
+ * the brokers every {@code interval}. Unlike the consumers' own {@code records-lag}, it keeps growing while they are
+ * paused.
+ */
+@Slf4j
+public class ConsumerLagMetrics implements SmartLifecycle {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final Supplier<Admin> adminFactory;
+    private final String groupId;
+    private final Collection<String> topics;
+    private final Duration interval;
+    private final MeterRegistry meterRegistry;
+    private final Map<TopicPartition, AtomicLong> lags = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("consumer-lag").daemon().factory());
+    private Admin admin;
+    private ScheduledFuture<?> refreshing;
+
+    public ConsumerLagMetrics(Supplier<Admin> adminFactory, String groupId, Collection<String> topics,
+                              Duration interval, MeterRegistry meterRegistry) {
+        this.adminFactory = adminFactory;
+        this.groupId = groupId;
+        this.topics = topics;
+        this.interval = interval;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Reads the committed and end offsets of the topics' partitions once and updates their gauges. */
+    void refresh() {
+        try {
+            List<TopicPartition> partitions = admin.describeTopics(topics).allTopicNames()
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS).values().stream()
+                    .flatMap(topic -> topic.partitions().stream()
+                            .map(info -> new TopicPartition(topic.name(), info.partition())))
+                    .toList();
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Map<TopicPartition, Long> from = new HashMap<>();
+            List<TopicPartition> uncommitted = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                if (offset == null) {
+                    uncommitted.add(partition);
+                } else {
+                    from.put(partition, offset.offset());
+                }
+            }
+            from.putAll(offsets(uncommitted, OffsetSpec.earliest()));
+            offsets(partitions, OffsetSpec.latest()).forEach((partition, end) -> {
+                Long start = from.get(partition);
+                if (start != null) {
+                    lag(partition).set(Math.max(end - start, 0));
+                }
+            });
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Could not read the lag of consumer group {}: {}", groupId, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<TopicPartition, Long> offsets(List<TopicPartition> partitions, OffsetSpec spec)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        if (partitions.isEmpty()) {
+            return Map.of();
+        }
+        return admin.listOffsets(partitions.stream().collect(Collectors.toMap(Function.identity(), partition -> spec)))
+                .all().get(TIMEOUT_SECONDS, TimeUnit.SECONDS).entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().offset()));
+    }
+
+    private AtomicLong lag(TopicPartition partition) {
+        return lags.computeIfAbsent(partition, p -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("payment-updates.consumer.lag", lag, AtomicLong::get)
+                    .description("Records of a partition not yet committed by the payment-update consumer group")
+                    .tag("topic", p.topic())
+                    .tag("partition", String.valueOf(p.partition()))
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        if (refreshing == null) {
+            admin = adminFactory.get();
+            refreshing = refresher.scheduleWithFixedDelay(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.error("Consumer lag refresh failed - will retry", e);
+                }
+            }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (refreshing != null) {
+            refreshing.cancel(false);
+            refreshing = null;
+            admin.close();
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return refreshing != null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+}
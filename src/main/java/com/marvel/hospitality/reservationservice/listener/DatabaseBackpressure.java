@@ -0,0 +1,211 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.config.PaymentUpdateRetryContainers;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses the payment-update consumers while the database is saturated, so HTTP bookings get the connection pool
+ * first, and resumes them once it has recovered; the partitions stay assigned and the backlog is consumed afterwards.
+ * Every {@code check-interval} it reads the threads waiting for a Hikari connection and, while that is low, times
+ * borrowing a connection and pinging the database. The consumers pause when either crosses its pause threshold and
+ * resume only once both are back under their lower resume thresholds, after at least {@code min-pause}, so they do
+ * not flap around a single value. An unreachable database counts as saturated.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = {"app.kafka.enabled", "spring.kafka.backpressure.enabled"}, havingValue = "true",
+        matchIfMissing = true)
+public class DatabaseBackpressure implements SmartLifecycle {
+
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final DataSource dataSource;
+    private final HikariDataSource hikari;
+    private final KafkaListenerEndpointRegistry registry;
+    private final PaymentUpdateRetryContainers retryContainers;
+    private final int pauseWaitingThreads;
+    private final int resumeWaitingThreads;
+    private final long pauseLatencyNanos;
+    private final long resumeLatencyNanos;
+    private final long minPauseNanos;
+    private final Duration checkInterval;
+    private final Timer probeTimer;
+    private final Counter pauses;
+    private final Counter resumes;
+    private final ScheduledExecutorService sampler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("db-backpressure").daemon().factory());
+    private volatile boolean paused;
+    private long pausedAt;
+    private ScheduledFuture<?> sampling;
+
+    public DatabaseBackpressure(DataSource dataSource,
+                                KafkaListenerEndpointRegistry registry,
+                                PaymentUpdateRetryContainers retryContainers,
+                                @Value("${spring.kafka.backpressure.pause-waiting-threads:5}") int pauseWaitingThreads,
+                                @Value("${spring.kafka.backpressure.resume-waiting-threads:0}") int resumeWaitingThreads,
+                                @Value("${spring.kafka.backpressure.pause-latency:250ms}") Duration pauseLatency,
+                                @Value("${spring.kafka.backpressure.resume-latency:50ms}") Duration resumeLatency,
+                                @Value("${spring.kafka.backpressure.min-pause:10s}") Duration minPause,
+                                @Value("${spring.kafka.backpressure.check-interval:1s}") Duration checkInterval,
+                                MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.hikari = hikari(dataSource);
+        this.registry = registry;
+        this.retryContainers = retryContainers;
+        this.pauseWaitingThreads = pauseWaitingThreads;
+        this.resumeWaitingThreads = resumeWaitingThreads;
+        this.pauseLatencyNanos = pauseLatency.toNanos();
+        this.resumeLatencyNanos = resumeLatency.toNanos();
+        this.minPauseNanos = minPause.toNanos();
+        this.checkInterval = checkInterval;
+        this.probeTimer = Timer.builder("payment-updates.backpressure.db-probe")
+                .description("Time to borrow a pooled connection and ping the database")
+                .register(meterRegistry);
+        this.pauses = transitions(meterRegistry, "pause");
+        this.resumes = transitions(meterRegistry, "resume");
+        Gauge.builder("payment-updates.backpressure.paused", this, backpressure -> backpressure.paused ? 1 : 0)
+                .description("Whether the payment-update consumers are paused for database pressure")
+                .register(meterRegistry);
+    }
+
+    private static Counter transitions(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("payment-updates.backpressure")
+                .description("Payment-update consumers paused or resumed for database pressure")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /** Samples the pressure once and pauses or resumes the consumers accordingly. */
+    void sample() {
+        int waiting = threadsAwaitingConnection();
+        if (!paused) {
+            if (waiting >= pauseWaitingThreads) {
+                pause(waiting + " threads waiting for a connection");
+                return;
+            }
+            long latency = probe();
+            if (latency >= pauseLatencyNanos) {
+                pause(describe(latency));
+            }
+        } else if (waiting <= resumeWaitingThreads && System.nanoTime() - pausedAt >= minPauseNanos) {
+            long latency = probe();
+            if (latency <= resumeLatencyNanos) {
+                resume(describe(latency));
+            }
+        }
+    }
+
+    private int threadsAwaitingConnection() {
+        HikariPoolMXBean pool = hikari == null ? null : hikari.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+    }
+
+    /** Nanoseconds to borrow a connection and ping the database, {@link #UNREACHABLE} when that fails. */
+    private long probe() {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(pauseLatencyNanos)))) {
+                return UNREACHABLE;
+            }
+        } catch (SQLException e) {
+            log.warn("Database probe failed: {}", e.getMessage());
+            return UNREACHABLE;
+        }
+        long latency = System.nanoTime() - start;
+        probeTimer.record(latency, TimeUnit.NANOSECONDS);
+        return latency;
+    }
+
+    private static String describe(long latency) {
+        return latency == UNREACHABLE ? "database unreachable"
+                : "database probe took " + TimeUnit.NANOSECONDS.toMillis(latency) + "ms";
+    }
+
+    private void pause(String reason) {
+        log.warn("Pausing payment-update consumers - {}", reason);
+        containers().forEach(MessageListenerContainer::pause);
+        paused = true;
+        pausedAt = System.nanoTime();
+        pauses.increment();
+    }
+
+    private void resume(String reason) {
+        log.info("Resuming payment-update consumers - {}", reason);
+        containers().forEach(MessageListenerContainer::resume);
+        paused = false;
+        resumes.increment();
+    }
+
+    private List<MessageListenerContainer> containers() {
+        List<MessageListenerContainer> containers = new ArrayList<>(registry.getListenerContainers());
+        containers.addAll(retryContainers.containers());
+        return containers;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (sampling == null) {
+            sampling = sampler.scheduleWithFixedDelay(() -> {
+                try {
+                    sample();
+                } catch (RuntimeException e) {
+                    log.error("Database backpressure check failed - will retry", e);
+                }
+            }, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (sampling != null) {
+            sampling.cancel(false);
+            sampling = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return sampling != null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sampler.shutdownNow();
+    }
+}
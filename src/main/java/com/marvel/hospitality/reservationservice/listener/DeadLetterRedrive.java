@@ -0,0 +1,325 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Replays the payment updates parked in the DLT onto the main topic, in batches and at a bounded rate, so a replay
+ * after an incident does not flood the listener. Only the records in the DLT when the run starts are read, without
+ * committing offsets, and only those matching the criteria and whose reservation is still PENDING_PAYMENT are
+ * republished. One run at a time, on its own thread; its progress can be read while it goes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "app.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadLetterRedrive {
+
+    static final String CLIENT_ID_PREFIX = "dlt-redrive";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    public enum State { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    /**
+     * Which DLT records to replay: those whose exception (or cause) has this class name, fully qualified or simple,
+     * dead-lettered within [{@code from}, {@code to}). A null field matches every record.
+     */
+    public record Criteria(String exception, Instant from, Instant to) {
+    }
+
+    public record Progress(State state, Criteria criteria, double ratePerSecond, long total, long scanned,
+                           long republished, long filtered, long notPending, long malformed,
+                           Instant startedAt, Instant finishedAt, String error) {
+    }
+
+    private final PaymentUpdateParser parser = new PaymentUpdateParser();
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaTemplate<String, byte[]> template;
+    private final ReservationRepository repository;
+    private final String mainTopic;
+    private final String dltTopic;
+    private final int batchSize;
+    private final double defaultRate;
+    private final Counter republishedCounter;
+    private final Counter filteredCounter;
+    private final Counter notPendingCounter;
+    private final Counter malformedCounter;
+    private final ExecutorService runner =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("dlt-redrive").factory());
+    private volatile Run last;
+
+    public DeadLetterRedrive(ConsumerFactory<String, byte[]> consumerFactory,
+                             KafkaTemplate<String, byte[]> deadLetterTemplate,
+                             ReservationRepository repository,
+                             @Value("${spring.kafka.topic.payment-update}") String mainTopic,
+                             @Value("${spring.kafka.dlt-topic:${spring.kafka.topic.payment-update}-dlt}") String dltTopic,
+                             @Value("${spring.kafka.dlt-redrive.batch-size:100}") int batchSize,
+                             @Value("${spring.kafka.dlt-redrive.rate:50}") double defaultRate,
+                             MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.template = deadLetterTemplate;
+        this.repository = repository;
+        this.mainTopic = mainTopic;
+        this.dltTopic = dltTopic;
+        this.batchSize = batchSize;
+        this.defaultRate = defaultRate;
+        this.republishedCounter = redriven(meterRegistry, "republished");
+        this.filteredCounter = redriven(meterRegistry, "filtered");
+        this.notPendingCounter = redriven(meterRegistry, "not-pending");
+        this.malformedCounter = redriven(meterRegistry, "malformed");
+    }
+
+    private static Counter redriven(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payment-updates.dlt.redrive")
+                .description("DLT records read by a re-drive, by what was done with them")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts replaying the DLT records matching {@code criteria} at {@code ratePerSecond} records a second, or the
+     * configured rate when null. Fails when a run is already in progress.
+     */
+    public synchronized Progress start(Criteria criteria, Double ratePerSecond) {
+        double rate = ratePerSecond == null ? defaultRate : ratePerSecond;
+        if (rate <= 0) {
+            throw new IllegalArgumentException("The re-drive rate must be positive, was " + rate);
+        }
+        if (isRunning()) {
+            throw new IllegalStateException("A DLT re-drive is already in progress");
+        }
+        Run run = new Run(criteria, rate);
+        last = run;
+        log.info("Re-driving {} to {} at {}/s: {}", dltTopic, mainTopic, rate, criteria);
+        runner.execute(() -> redrive(run));
+        return run.progress();
+    }
+
+    public boolean isRunning() {
+        Run run = last;
+        return run != null && run.state == State.RUNNING;
+    }
+
+    /** Progress of the current run, or of the last one; null before the first run. */
+    public Progress progress() {
+        Run run = last;
+        return run == null ? null : run.progress();
+    }
+
+    /** Stops the current run after its batch in flight; the records already republished stay republished. */
+    public Progress cancel() {
+        Run run = last;
+        if (run == null) {
+            return null;
+        }
+        run.cancelled = true;
+        return run.progress();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cancel();
+        runner.shutdownNow();
+    }
+
+    private void redrive(Run run) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        try (Consumer<String, byte[]> consumer =
+                     consumerFactory.createConsumer(null, CLIENT_ID_PREFIX, null, overrides)) {
+            Map<TopicPartition, Long> end = assign(consumer, run.criteria.from());
+            run.total.set(end.entrySet().stream().mapToLong(e -> e.getValue() - consumer.position(e.getKey())).sum());
+            while (!run.cancelled && !caughtUp(consumer, end)) {
+                List<ConsumerRecord<String, byte[]>> batch = new ArrayList<>();
+                for (ConsumerRecord<String, byte[]> consumerRecord : consumer.poll(POLL_TIMEOUT)) {
+                    if (consumerRecord.offset() < end.get(
+                            new TopicPartition(consumerRecord.topic(), consumerRecord.partition()))) {
+                        batch.add(consumerRecord);
+                    }
+                }
+                replay(batch, run);
+            }
+            run.finish(run.cancelled ? State.CANCELLED : State.COMPLETED, null);
+            log.info("DLT re-drive {}: {}", run.state, run.progress());
+        } catch (RuntimeException e) {
+            log.error("DLT re-drive failed: {}", run.progress(), e);
+            run.finish(State.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Assigns every DLT partition from {@code from}, or from the beginning, and returns where each one ends now:
+     * records dead-lettered during the run are left for the next one.
+     */
+    private Map<TopicPartition, Long> assign(Consumer<String, byte[]> consumer, Instant from) {
+        List<TopicPartition> partitions = consumer.partitionsFor(dltTopic).stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+        consumer.assign(partitions);
+        Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+        if (from == null) {
+            consumer.seekToBeginning(partitions);
+        } else {
+            Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(partitions.stream()
+                    .collect(Collectors.toMap(Function.identity(), partition -> from.toEpochMilli())));
+            partitions.forEach(partition -> {
+                OffsetAndTimestamp offset = found.get(partition);
+                consumer.seek(partition, offset == null ? end.get(partition) : offset.offset());
+            });
+        }
+        return end;
+    }
+
+    /** Whether every partition was read up to its end, pausing those that were. */
+    private static boolean caughtUp(Consumer<String, byte[]> consumer, Map<TopicPartition, Long> end) {
+        List<TopicPartition> done = end.keySet().stream()
+                .filter(partition -> consumer.position(partition) >= end.get(partition))
+                .toList();
+        consumer.pause(done);
+        return done.size() == end.size();
+    }
+
+    private void replay(List<ConsumerRecord<String, byte[]>> batch, Run run) {
+        run.scanned.addAndGet(batch.size());
+        List<ConsumerRecord<String, byte[]>> candidates = new ArrayList<>(batch.size());
+        List<String> reservationIds = new ArrayList<>(batch.size());
+        for (ConsumerRecord<String, byte[]> consumerRecord : batch) {
+            if (!matches(consumerRecord, run.criteria)) {
+                count(run.filtered, filteredCounter);
+                continue;
+            }
+            try {
+                reservationIds.add(parser.parse(consumerRecord.value()).reservationId());
+                candidates.add(consumerRecord);
+            } catch (IllegalPaymentUpdateMessageFormatException e) {
+                count(run.malformed, malformedCounter);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<String> pending = new HashSet<>(repository.findPendingIds(reservationIds));
+        List<CompletableFuture<?>> sends = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!pending.contains(reservationIds.get(i))) {
+                count(run.notPending, notPendingCounter);
+                continue;
+            }
+            if (!run.pace()) {
+                break;
+            }
+            ConsumerRecord<String, byte[]> consumerRecord = candidates.get(i);
+            sends.add(template.send(mainTopic, consumerRecord.key(), consumerRecord.value()));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        run.republished.addAndGet(sends.size());
+        republishedCounter.increment(sends.size());
+        log.info("DLT re-drive: {}/{} records read, {} republished", run.scanned, run.total, run.republished);
+    }
+
+    private static boolean matches(ConsumerRecord<String, byte[]> consumerRecord, Criteria criteria) {
+        if (criteria.from() != null && consumerRecord.timestamp() < criteria.from().toEpochMilli()) {
+            return false;
+        }
+        if (criteria.to() != null && consumerRecord.timestamp() >= criteria.to().toEpochMilli()) {
+            return false;
+        }
+        return criteria.exception() == null
+                || isException(consumerRecord, KafkaHeaders.DLT_EXCEPTION_FQCN, criteria.exception())
+                || isException(consumerRecord, KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN, criteria.exception());
+    }
+
+    private static boolean isException(ConsumerRecord<String, byte[]> consumerRecord, String header, String name) {
+        Header value = consumerRecord.headers().lastHeader(header);
+        if (value == null) {
+            return false;
+        }
+        String className = new String(value.value(), StandardCharsets.UTF_8);
+        return className.equals(name) || className.endsWith("." + name);
+    }
+
+    private static void count(AtomicLong runCount, Counter counter) {
+        runCount.incrementAndGet();
+        counter.increment();
+    }
+
+    private static final class Run {
+        private final Criteria criteria;
+        private final double rate;
+        private final long nanosPerRecord;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong republished = new AtomicLong();
+        private final AtomicLong filtered = new AtomicLong();
+        private final AtomicLong notPending = new AtomicLong();
+        private final AtomicLong malformed = new AtomicLong();
+        private volatile State state = State.RUNNING;
+        private volatile boolean cancelled;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private long nextSendAt = System.nanoTime();
+
+        private Run(Criteria criteria, double rate) {
+            this.criteria = criteria;
+            this.rate = rate;
+            this.nanosPerRecord = (long) (1_000_000_000L / rate);
+        }
+
+        /**
+         * Waits for the next send slot, {@code 1 / rate} seconds after the previous one. Returns false, without
+         * waiting any longer, once the run is cancelled.
+         */
+        private boolean pace() {
+            for (long wait = nextSendAt - System.nanoTime(); wait > 0 && !cancelled;
+                 wait = nextSendAt - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            nextSendAt = Math.max(nextSendAt, System.nanoTime()) + nanosPerRecord;
+            return !cancelled;
+        }
+
+        private void finish(State finalState, String failure) {
+            error = failure;
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        private Progress progress() {
+            return new Progress(state, criteria, rate, total.get(), scanned.get(), republished.get(), filtered.get(),
+                    notPending.get(), malformed.get(), startedAt, finishedAt, error);
+        }
+    }
+}
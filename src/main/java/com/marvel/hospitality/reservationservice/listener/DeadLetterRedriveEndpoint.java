@@ -0,0 +1,46 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.Criteria;
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.Progress;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Component
+@Endpoint(id = "paymentupdatedlt")
+@ConditionalOnProperty(value = "app.kafka.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DeadLetterRedriveEndpoint {
+
+    private final DeadLetterRedrive redrive;
+
+    @ReadOperation
+    public Progress progress() {
+        return redrive.progress();
+    }
+
+    @WriteOperation
+    public Progress redrive(@Nullable String exception, @Nullable Instant from, @Nullable Instant to,
+                            @Nullable Double rate) {
+        if (redrive.isRunning()) {
+            throw new InvalidEndpointRequestException("A DLT re-drive is already in progress", "Already running");
+        }
+        if (rate != null && rate <= 0) {
+            throw new InvalidEndpointRequestException("rate must be positive", "Invalid rate");
+        }
+        return redrive.start(new Criteria(exception, from, to), rate);
+    }
+
+    @DeleteOperation
+    public Progress cancel() {
+        return redrive.cancel();
+    }
+}
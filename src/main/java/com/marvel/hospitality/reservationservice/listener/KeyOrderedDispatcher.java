@@ -0,0 +1,116 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Splits the items of one poll over {@code lanes} worker threads by their key, a key always going to the same lane so
+ * the records of one reservation keep their order. A lane is handled in one call; when that call fails its items are
+ * handled again one at a time, in order, up to the one that fails on its own. The lowest index of an item failing on
+ * its own is reported with {@link BatchListenerFailedException}: every record before it has completed, so those are
+ * committed and only that record is forwarded. With a single lane, items are handled on the consumer thread.
+ */
+@Component
+public class KeyOrderedDispatcher {
+
+    private record Failure(int index, Throwable cause) {}
+
+    private final int lanes;
+    private final ExecutorService workers;
+
+    public KeyOrderedDispatcher(@Value("${spring.kafka.key-ordered.lanes:1}") int lanes) {
+        this.lanes = Math.max(lanes, 1);
+        this.workers = this.lanes == 1 ? null
+                : Executors.newFixedThreadPool(this.lanes, Thread.ofPlatform().name("payment-update-lane-", 0).factory());
+    }
+
+    public <T> void dispatch(List<T> items, Function<T, String> keyOf, Consumer<List<T>> action) {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (workers == null || items.size() < 2) {
+            Failure failure = applyLane(items, IntStream.range(0, items.size()).boxed().toList(), action);
+            if (failure != null) {
+                throw failed(items, keyOf, failure);
+            }
+            return;
+        }
+        List<List<Integer>> laneIndexes = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            laneIndexes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            laneIndexes.get(Math.floorMod(keyOf.apply(items.get(i)).hashCode(), lanes)).add(i);
+        }
+        List<List<Integer>> used = laneIndexes.stream().filter(indexes -> !indexes.isEmpty()).toList();
+        List<Future<Failure>> running = used.stream()
+                .map(indexes -> workers.submit(() -> applyLane(items, indexes, action)))
+                .toList();
+        Failure first = null;
+        for (int lane = 0; lane < running.size(); lane++) {
+            Failure failure;
+            try {
+                failure = running.get(lane).get();
+            } catch (ExecutionException e) {
+                failure = new Failure(used.get(lane).getFirst(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.forEach(future -> future.cancel(true));
+                throw new BatchListenerFailedException("Interrupted while waiting for the lane of " + keyOf.apply(items.get(0)), e, 0);
+            }
+            if (failure != null && (first == null || failure.index() < first.index())) {
+                first = failure;
+            }
+        }
+        if (first != null) {
+            throw failed(items, keyOf, first);
+        }
+    }
+
+    /**
+     * Handles the items at {@code indexes} in one call, or one at a time once that call failed. Returns the first
+     * item failing on its own, or null when the lane completed; the items after a failing one are left untouched.
+     */
+    private static <T> Failure applyLane(List<T> items, List<Integer> indexes, Consumer<List<T>> action) {
+        try {
+            action.accept(indexes.stream().map(items::get).toList());
+            return null;
+        } catch (RuntimeException e) {
+            if (indexes.size() == 1) {
+                return new Failure(indexes.getFirst(), e);
+            }
+        }
+        for (int index : indexes) {
+            try {
+                action.accept(List.of(items.get(index)));
+            } catch (RuntimeException e) {
+                return new Failure(index, e);
+            }
+        }
+        return null;
+    }
+
+    private static <T> BatchListenerFailedException failed(List<T> items, Function<T, String> keyOf, Failure failure) {
+        return new BatchListenerFailedException("Update of " + keyOf.apply(items.get(failure.index())) + " failed",
+                failure.cause(), failure.index());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdate;
+import com.marvel.hospitality.reservationservice.entity.ProcessedPayment;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Drops payment updates whose {@code paymentId} was already applied, before any reservation is loaded. Recently
+ * applied IDs are remembered in memory; the others are looked up in {@code processed_payments} with one query per
+ * batch, since an ID missing from memory may have been applied before a restart or by another node. The remaining
+ * updates are confirmed and recorded in the same transaction. Updates without a {@code paymentId} are always applied.
+ */
+@Slf4j
+@Component
+public class PaymentDeduplicator {
+
+    static final String CACHE_NAME = "processed-payments";
+
+    private final ProcessedPaymentRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Cache<String, Boolean> recent;
+    private final Counter droppedFromMemory;
+    private final Counter droppedFromTable;
+    private final Counter lookupsNew;
+
+    public PaymentDeduplicator(ProcessedPaymentRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${spring.kafka.dedup.enabled:true}") boolean enabled,
+                               @Value("${spring.kafka.dedup.maximum-size:100000}") long maximumSize,
+                               @Value("${spring.kafka.dedup.ttl:7d}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, CACHE_NAME);
+        this.droppedFromMemory = duplicates(meterRegistry, "memory");
+        this.droppedFromTable = duplicates(meterRegistry, "table");
+        this.lookupsNew = Counter.builder("payment-updates.dedup.table-lookups")
+                .description("Payment IDs missing from memory that the processed-payments table did not know either")
+                .tag("outcome", "new")
+                .register(meterRegistry);
+    }
+
+    private static Counter duplicates(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("payment-updates.duplicates")
+                .description("Payment updates dropped because their paymentId was already applied")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Passes the reservation IDs of the updates not applied yet to {@code confirm}, in a transaction that also
+     * records their payment IDs. A failure rolls both back, so the updates are applied again when redelivered.
+     */
+    public void confirmOnce(List<PaymentUpdate> updates, Consumer<List<String>> confirm) {
+        if (!enabled) {
+            confirm.accept(updates.stream().map(PaymentUpdate::reservationId).toList());
+            return;
+        }
+        List<PaymentUpdate> fresh = dropDuplicates(updates);
+        if (fresh.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ProcessedPayment> processed = fresh.stream()
+                .filter(update -> update.paymentId() != null)
+                .map(update -> ProcessedPayment.builder()
+                        .paymentId(update.paymentId())
+                        .reservationId(update.reservationId())
+                        .processedAt(now)
+                        .build())
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            confirm.accept(fresh.stream().map(PaymentUpdate::reservationId).toList());
+            repository.saveAll(processed);
+        });
+        processed.forEach(payment -> recent.put(payment.getPaymentId(), Boolean.TRUE));
+    }
+
+    private List<PaymentUpdate> dropDuplicates(List<PaymentUpdate> updates) {
+        List<PaymentUpdate> candidates = new ArrayList<>(updates.size());
+        Set<String> unknown = new LinkedHashSet<>();
+        for (PaymentUpdate update : updates) {
+            if (update.paymentId() == null) {
+                candidates.add(update);
+            } else if (recent.getIfPresent(update.paymentId()) != null || !unknown.add(update.paymentId())) {
+                droppedFromMemory.increment();
+            } else {
+                candidates.add(update);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return candidates;
+        }
+        Set<String> applied = new HashSet<>(repository.findProcessedIds(unknown));
+        lookupsNew.increment(unknown.size() - applied.size());
+        if (applied.isEmpty()) {
+            return candidates;
+        }
+        droppedFromTable.increment(applied.size());
+        applied.forEach(paymentId -> recent.put(paymentId, Boolean.TRUE));
+        log.info("Dropped already applied payment updates {}", applied);
+        return candidates.stream().filter(update -> !applied.contains(update.paymentId())).toList();
+    }
+
+    /**
+     * Deletes the records older than the TTL; the payment IDs they hold are no longer recognised as duplicates.
+     */
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        Integer purged = transactionTemplate.execute(status -> repository.deleteProcessedBefore(cutoff));
+        return purged == null ? 0 : purged;
+    }
+}
@@ -1,66 +1,68 @@
 package com.marvel.hospitality.reservationservice.listener;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdate;
 import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
 import com.marvel.hospitality.reservationservice.service.ReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PaymentUpdateListener {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PaymentUpdateParser parser = new PaymentUpdateParser();
     private final ReservationService service;
-    private static final Pattern RESERVATION_ID_PATTERN = Pattern.compile("^[A-Z0-9]{8}$");
+    private final KeyOrderedDispatcher dispatcher;
+    private final PaymentDeduplicator deduplicator;
 
 
-    @KafkaListener(topics = "${spring.kafka.topic.payment-update}", groupId = "${spring.kafka.consumer.group-id}")
-    public void onMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment ack) {
-        String payload = consumerRecord.value();
-        try {
-            PaymentUpdateEvent paymentUpdateEvent = getPaymentEvent(payload);
-            String reservationId = getReservationId(paymentUpdateEvent);
-            log.info("Processing valid bank transfer payment update for reservation {}", reservationId);
-            service.confirmBankTransferPayment(reservationId);
-            ack.acknowledge();
-        } catch (Exception e) {
-            log.error("Failed processing message - will retry / send to DLQ: {}", payload, e);
-            throw e;
+    /**
+     * Confirms a whole poll of payment updates in one transaction and acknowledges it once. A malformed record is
+     * reported by its index: the records before it are confirmed and committed, it goes to the DLT on its own and
+     * the records after it are redelivered. With several key-ordered lanes, the reservations are confirmed in
+     * parallel, one transaction per lane. A failed confirmation is retried record by record so that the record
+     * reported, and forwarded to the retry tier, is the one that fails. Updates whose paymentId was already applied
+     * are dropped unread.
+     */
+    @KafkaListener(topics = "${spring.kafka.topic.payment-update}", groupId = "${spring.kafka.consumer.group-id}",
+            batch = "true")
+    public void onMessages(List<ConsumerRecord<String, byte[]>> consumerRecords, Acknowledgment ack) {
+        List<PaymentUpdate> updates = new ArrayList<>(consumerRecords.size());
+        for (int i = 0; i < consumerRecords.size(); i++) {
+            byte[] payload = consumerRecords.get(i).value();
+            try {
+                updates.add(parser.parse(payload));
+            } catch (IllegalPaymentUpdateMessageFormatException e) {
+                confirm(updates);
+                log.error("Malformed payment update - sending to DLQ: {}",
+                        payload == null ? null : new String(payload, StandardCharsets.UTF_8), e);
+                throw new BatchListenerFailedException(e.getMessage(), e, i);
+            }
         }
+        confirm(updates);
+        ack.acknowledge();
     }
 
-    private PaymentUpdateEvent getPaymentEvent(String payload) {
-        try {
-            return objectMapper.readValue(payload, PaymentUpdateEvent.class);
-        } catch (JsonProcessingException jsonProcessingException) {
-            throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message",
-                    jsonProcessingException);
+    private void confirm(List<PaymentUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
         }
-    }
-
-    private static String getReservationId(PaymentUpdateEvent event) {
-        String desc = event.transactionDescription();
-        if (desc == null || desc.trim().isEmpty()) {
-            throw new IllegalPaymentUpdateMessageFormatException("Missing transactionDescription");
-        }
-        String[] parts = desc.trim().split(" ");
-        if (parts.length < 2) {
-            throw new IllegalPaymentUpdateMessageFormatException("Invalid transactionDescription format - expected E2E<10chars> <reservationId>");
-        }
-        String reservationId = parts[1].trim();
-        if (!RESERVATION_ID_PATTERN.matcher(reservationId).matches()) {
-            throw new IllegalPaymentUpdateMessageFormatException("Invalid reservationId (must be exactly 8 uppercase alphanumeric): " + reservationId);
+        try {
+            dispatcher.dispatch(updates, PaymentUpdate::reservationId,
+                    lane -> deduplicator.confirmOnce(lane, service::confirmBankTransferPayments));
+        } catch (Exception e) {
+            log.error("Failed confirming {} bank transfer payments - will retry / send to DLQ", updates.size(), e);
+            throw e;
         }
-        return reservationId;
     }
 }
@@ -0,0 +1,200 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdate;
+import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+
+import java.io.IOException;
+
+/**
+ * Reads a payment update straight from the record bytes. The JSON tokens are streamed and only {@code paymentId}
+ * and {@code transactionDescription} are kept; the description is scanned in the parser's own character buffer,
+ * so the reservation ID is the only string it allocates. It accepts and rejects the same descriptions, with the
+ * same messages, as the former {@code trim().split(" ")} and regex checks. Like the former {@code PaymentUpdateEvent}
+ * mapping, it rejects fields the event does not have and fields holding an object or an array, and an
+ * {@code amountReceived} that is neither a JSON number nor a numeric string; the amount is checked, not converted.
+ */
+public class PaymentUpdateParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int RESERVATION_ID_LENGTH = 8;
+
+    public PaymentUpdate parse(byte[] payload) {
+        String paymentId = null;
+        String reservationId = null;
+        boolean descriptionSeen = false;
+        if (payload == null) {
+            throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message");
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "paymentId" -> paymentId = scalarText(parser, value);
+                    case "transactionDescription" -> {
+                        descriptionSeen = true;
+                        reservationId = reservationId(parser, value);
+                    }
+                    case "debtorAccountnumber" -> scalarText(parser, value);
+                    case "amountReceived" -> requireAmount(parser, value);
+                    default -> throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message", e);
+        }
+        if (!descriptionSeen) {
+            throw new IllegalPaymentUpdateMessageFormatException("Missing transactionDescription");
+        }
+        return new PaymentUpdate(paymentId, reservationId);
+    }
+
+    private static String scalarText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!value.isScalarValue()) {
+            throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message");
+        }
+        return parser.getText();
+    }
+
+    private static void requireAmount(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL || value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return;
+        }
+        if (value != JsonToken.VALUE_STRING
+                || !isDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+            throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message");
+        }
+    }
+
+    /**
+     * Whether the trimmed text is one the former {@code BigDecimal} binding accepted: empty, read as null, or an
+     * optionally signed decimal with an optional exponent.
+     */
+    static boolean isDecimal(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end && chars[i] <= ' ') {
+            i++;
+        }
+        while (end > i && chars[end - 1] <= ' ') {
+            end--;
+        }
+        if (i == end) {
+            return true;
+        }
+        if (chars[i] == '+' || chars[i] == '-') {
+            i++;
+        }
+        int digits = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            if (i < end && (chars[i] == '+' || chars[i] == '-')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    private static String reservationId(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            throw new IllegalPaymentUpdateMessageFormatException("Missing transactionDescription");
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            return scanDescription(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        if (value.isScalarValue()) {
+            String text = parser.getText();
+            return scanDescription(text.toCharArray(), 0, text.length());
+        }
+        throw new IllegalPaymentUpdateMessageFormatException("Unable to parse payment update message");
+    }
+
+    /**
+     * Expects {@code E2E<10chars> <reservationId>}: the second space-separated word of the trimmed description must be
+     * exactly eight uppercase letters or digits. Later words are ignored.
+     */
+    static String scanDescription(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            throw new IllegalPaymentUpdateMessageFormatException("Missing transactionDescription");
+        }
+        int idStart = indexOfSpace(chars, start, end) + 1;
+        if (idStart == 0) {
+            throw new IllegalPaymentUpdateMessageFormatException("Invalid transactionDescription format - expected E2E<10chars> <reservationId>");
+        }
+        int idEnd = indexOfSpace(chars, idStart, end);
+        if (idEnd < 0) {
+            idEnd = end;
+        }
+        while (idStart < idEnd && chars[idStart] <= ' ') {
+            idStart++;
+        }
+        while (idEnd > idStart && chars[idEnd - 1] <= ' ') {
+            idEnd--;
+        }
+        if (!isReservationId(chars, idStart, idEnd)) {
+            throw new IllegalPaymentUpdateMessageFormatException("Invalid reservationId (must be exactly 8 uppercase alphanumeric): "
+                    + new String(chars, idStart, idEnd - idStart));
+        }
+        return new String(chars, idStart, RESERVATION_ID_LENGTH);
+    }
+
+    private static int indexOfSpace(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] == ' ') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isReservationId(char[] chars, int from, int to) {
+        if (to - from != RESERVATION_ID_LENGTH) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdate;
+import com.marvel.hospitality.reservationservice.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reprocesses the payment updates of one delay tier, one record at a time. A record that is not due yet is
+ * negatively acknowledged for the time left: the consumer is paused, not blocked, and the records of a tier
+ * become due in the order they arrived. A failure forwards the record to the next tier through the error handler.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentUpdateRetryListener implements AcknowledgingMessageListener<String, byte[]> {
+
+    private final PaymentUpdateParser parser = new PaymentUpdateParser();
+    private final ReservationService service;
+    private final PaymentDeduplicator deduplicator;
+
+    @Override
+    public void onMessage(ConsumerRecord<String, byte[]> consumerRecord, Acknowledgment ack) {
+        long wait = dueAt(consumerRecord) - System.currentTimeMillis();
+        if (wait > 0) {
+            ack.nack(Duration.ofMillis(wait));
+            return;
+        }
+        PaymentUpdate update = parser.parse(consumerRecord.value());
+        deduplicator.confirmOnce(List.of(update), service::confirmBankTransferPayments);
+        log.info("Retried payment update for {} from {}", update.reservationId(), consumerRecord.topic());
+        ack.acknowledge();
+    }
+
+    private static long dueAt(ConsumerRecord<String, byte[]> consumerRecord) {
+        Header due = consumerRecord.headers().lastHeader(PaymentUpdateRetryTopology.DUE_HEADER);
+        return due == null ? 0 : ByteBuffer.wrap(due.value()).getLong();
+    }
+}
@@ -0,0 +1,87 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Where a failed payment update goes next. A record that failed on the main topic is forwarded to the first delay
+ * tier, one that failed on a tier to the next one, and one that failed on the last tier to the DLT. A malformed
+ * record goes straight to the DLT from anywhere. Each forwarded record carries the time it becomes due in
+ * {@value #DUE_HEADER}, so the main partition never waits for it.
+ */
+public class PaymentUpdateRetryTopology {
+
+    public static final String DUE_HEADER = "payment-update-retry-due";
+
+    public record RetryTier(String topic, Duration delay) {}
+
+    private final String mainTopic;
+    private final String dltTopic;
+    private final List<RetryTier> tiers;
+
+    public PaymentUpdateRetryTopology(String mainTopic, String dltTopic, List<Duration> delays) {
+        this.mainTopic = mainTopic;
+        this.dltTopic = dltTopic;
+        this.tiers = delays.stream()
+                .map(delay -> new RetryTier(mainTopic + "-retry-" + delay.toMillis(), delay))
+                .toList();
+    }
+
+    public List<RetryTier> tiers() {
+        return tiers;
+    }
+
+    public String dltTopic() {
+        return dltTopic;
+    }
+
+    /**
+     * The topic {@code failed} goes to after {@code exception}; the partition is left to the producer, which keeps
+     * the records of one key together.
+     */
+    public TopicPartition destination(ConsumerRecord<?, ?> failed, Exception exception) {
+        RetryTier next = isMalformed(exception) ? null : nextTier(failed.topic());
+        return new TopicPartition(next == null ? dltTopic : next.topic(), -1);
+    }
+
+    /**
+     * The {@value #DUE_HEADER} header of a record forwarded to a delay tier; none for the DLT.
+     */
+    public Headers headers(ConsumerRecord<?, ?> failed, Exception exception) {
+        RecordHeaders headers = new RecordHeaders();
+        RetryTier next = isMalformed(exception) ? null : nextTier(failed.topic());
+        if (next != null) {
+            long due = System.currentTimeMillis() + next.delay().toMillis();
+            headers.add(DUE_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(due).array());
+        }
+        return headers;
+    }
+
+    private RetryTier nextTier(String topic) {
+        if (topic.equals(mainTopic)) {
+            return tiers.isEmpty() ? null : tiers.getFirst();
+        }
+        for (int i = 0; i < tiers.size() - 1; i++) {
+            if (tiers.get(i).topic().equals(topic)) {
+                return tiers.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMalformed(Throwable exception) {
+        for (Throwable t = exception; t != null; t = t.getCause()) {
+            if (t instanceof IllegalPaymentUpdateMessageFormatException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
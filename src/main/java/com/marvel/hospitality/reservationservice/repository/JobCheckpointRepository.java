@@ -0,0 +1,7 @@
+package com.marvel.hospitality.reservationservice.repository;
+
+import com.marvel.hospitality.reservationservice.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
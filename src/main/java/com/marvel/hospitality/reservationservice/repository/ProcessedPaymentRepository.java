@@ -0,0 +1,21 @@
+package com.marvel.hospitality.reservationservice.repository;
+
+import com.marvel.hospitality.reservationservice.entity.ProcessedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProcessedPaymentRepository extends JpaRepository<ProcessedPayment, String> {
+
+    @Query("SELECT p.paymentId FROM ProcessedPayment p WHERE p.paymentId IN :paymentIds")
+    List<String> findProcessedIds(@Param("paymentIds") Collection<String> paymentIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM ProcessedPayment p WHERE p.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,13 +1,22 @@
 package com.marvel.hospitality.reservationservice.repository;
 
+import com.marvel.hospitality.reservationservice.dto.DeferredCardHold;
+import com.marvel.hospitality.reservationservice.dto.ReservationKey;
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
+import com.marvel.hospitality.reservationservice.dto.ReservationStayChange;
+import com.marvel.hospitality.reservationservice.dto.RoomRef;
 import com.marvel.hospitality.reservationservice.entity.Reservation;
 import com.marvel.hospitality.reservationservice.model.PaymentMode;
 import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReservationRepository extends JpaRepository<Reservation, String> {
@@ -28,4 +37,142 @@ public interface ReservationRepository extends JpaRepository<Reservation, String
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
+
+    boolean existsByRoomNumberAndStatusInAndEndDateAfterAndStartDateBefore(String roomNumber,
+                                                                           Collection<ReservationStatus> statuses,
+                                                                           LocalDate startDate,
+                                                                           LocalDate endDate);
+
+    /** Whether an active stay of the room overlaps the period, without loading it. */
+    default boolean existsOverlappingStay(String roomNumber, LocalDate startDate, LocalDate endDate) {
+        return existsByRoomNumberAndStatusInAndEndDateAfterAndStartDateBefore(roomNumber,
+                List.of(ReservationStatus.PENDING_PAYMENT, ReservationStatus.CONFIRMED), startDate, endDate);
+    }
+
+    @Query("""
+        SELECT new com.marvel.hospitality.reservationservice.dto.ReservationStay(
+            r.id, r.roomNumber, r.segment, r.startDate, r.endDate)
+        FROM Reservation r
+        WHERE r.status IN ('PENDING_PAYMENT', 'CONFIRMED')
+    """)
+    List<ReservationStay> findActiveStays();
+
+    @Query("""
+        SELECT new com.marvel.hospitality.reservationservice.dto.ReservationStayChange(
+            r.id, r.roomNumber, r.segment, r.startDate, r.endDate, r.status)
+        FROM Reservation r
+        WHERE r.updatedAt >= :since
+    """)
+    List<ReservationStayChange> findStaysChangedSince(@Param("since") LocalDateTime since);
+
+    @Query("""
+        SELECT DISTINCT new com.marvel.hospitality.reservationservice.dto.RoomRef(r.roomNumber, r.segment)
+        FROM Reservation r
+        WHERE r.roomNumber IS NOT NULL AND r.segment IS NOT NULL
+    """)
+    List<RoomRef> findRooms();
+
+    @Query("""
+        SELECT r.id FROM Reservation r
+        WHERE r.status = 'PENDING_PAYMENT'
+        AND r.paymentMode = 'BANK_TRANSFER'
+        AND r.startDate <= :threshold
+        ORDER BY r.startDate, r.id
+    """)
+    List<String> findOverdueBankTransferIds(@Param("threshold") LocalDate threshold, Limit limit);
+
+    @Query("""
+        SELECT new com.marvel.hospitality.reservationservice.dto.ReservationKey(r.startDate, r.id)
+        FROM Reservation r
+        WHERE r.status = 'PENDING_PAYMENT'
+        AND r.paymentMode = 'BANK_TRANSFER'
+        AND r.startDate <= :threshold
+        ORDER BY r.startDate, r.id
+    """)
+    List<ReservationKey> findOverdueBankTransferKeys(@Param("threshold") LocalDate threshold, Limit limit);
+
+    @Query("""
+        SELECT new com.marvel.hospitality.reservationservice.dto.ReservationKey(r.startDate, r.id)
+        FROM Reservation r
+        WHERE r.status = 'PENDING_PAYMENT'
+        AND r.paymentMode = 'BANK_TRANSFER'
+        AND r.startDate <= :threshold
+        AND r.startDate >= :afterStartDate
+        AND (r.startDate > :afterStartDate OR r.id > :afterId)
+        ORDER BY r.startDate, r.id
+    """)
+    List<ReservationKey> findOverdueBankTransferKeysAfter(@Param("threshold") LocalDate threshold,
+                                                          @Param("afterStartDate") LocalDate afterStartDate,
+                                                          @Param("afterId") String afterId,
+                                                          Limit limit);
+
+    @Query("""
+        SELECT r.id FROM Reservation r
+        WHERE r.status = 'PENDING_PAYMENT'
+        AND r.paymentMode = 'CREDIT_CARD'
+        AND r.createdAt < :createdBefore
+        AND (r.verificationDeferredAt IS NULL OR r.verificationDeferredAt < :deferredBefore)
+        ORDER BY r.createdAt, r.id
+    """)
+    List<String> findStaleCardHoldIds(@Param("createdBefore") LocalDateTime createdBefore,
+                                      @Param("deferredBefore") LocalDateTime deferredBefore,
+                                      Limit limit);
+
+    @Query("""
+        SELECT new com.marvel.hospitality.reservationservice.dto.DeferredCardHold(r.id, r.paymentReference)
+        FROM Reservation r
+        WHERE r.status = 'PENDING_PAYMENT'
+        AND r.verificationDeferredAt IS NOT NULL
+        ORDER BY r.verificationDeferredAt, r.id
+    """)
+    List<DeferredCardHold> findDeferredCardHolds(Limit limit);
+
+    @Query("""
+        SELECT COUNT(r) FROM Reservation r
+        WHERE r.status = 'PENDING_PAYMENT'
+        AND r.verificationDeferredAt IS NOT NULL
+    """)
+    long countDeferredCardHolds();
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE Reservation r
+        SET r.verificationDeferredAt = :now, r.updatedAt = :now
+        WHERE r.id = :id
+        AND r.status = 'PENDING_PAYMENT'
+    """)
+    int deferVerification(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE Reservation r
+        SET r.status = 'CANCELLED', r.updatedAt = :now
+        WHERE r.id IN :ids
+        AND r.status = 'PENDING_PAYMENT'
+    """)
+    int cancelPending(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE Reservation r
+        SET r.refundRequiredAt = :now, r.updatedAt = :now
+        WHERE r.id = :id
+        AND r.status = 'CANCELLED'
+    """)
+    int flagRefund(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Query("""
+        SELECT r.id FROM Reservation r
+        WHERE r.id IN :ids
+        AND r.status = 'PENDING_PAYMENT'
+    """)
+    List<String> findPendingIds(@Param("ids") Collection<String> ids);
+
+    @Query("""
+        SELECT r.id FROM Reservation r
+        WHERE r.id IN :ids
+        AND r.status = 'CANCELLED'
+        AND r.updatedAt = :cancelledAt
+    """)
+    List<String> findCancelledAt(@Param("ids") Collection<String> ids, @Param("cancelledAt") LocalDateTime cancelledAt);
 }
@@ -0,0 +1,50 @@
+package com.marvel.hospitality.reservationservice.repository;
+
+import com.marvel.hospitality.reservationservice.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE SchedulerLease l
+        SET l.owner = :owner, l.acquiredAt = :now, l.expiresAt = :expiresAt
+        WHERE l.leaseName = :leaseName
+        AND (l.owner = :owner OR l.expiresAt < :now)
+    """)
+    int tryAcquire(@Param("leaseName") String leaseName,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE SchedulerLease l
+        SET l.expiresAt = :expiresAt
+        WHERE l.leaseName = :leaseName
+        AND l.owner = :owner
+    """)
+    int renew(@Param("leaseName") String leaseName,
+              @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE SchedulerLease l
+        SET l.owner = NULL, l.expiresAt = :heldUntil
+        WHERE l.leaseName = :leaseName
+        AND l.owner = :owner
+    """)
+    int release(@Param("leaseName") String leaseName,
+                @Param("owner") String owner,
+                @Param("heldUntil") LocalDateTime heldUntil);
+
+    /** The database clock, shared by every node, so lease expiry does not depend on each node's own clock. */
+    @Query(value = "SELECT LOCALTIMESTAMP", nativeQuery = true)
+    LocalDateTime currentTimestamp();
+}
@@ -0,0 +1,8 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+public enum CancellationMode {
+    /** One chunk after the other on the scheduler thread. */
+    SEQUENTIAL,
+    /** Keyset-paginated chunks cancelled in parallel, with a resumable checkpoint. */
+    CHUNKED
+}
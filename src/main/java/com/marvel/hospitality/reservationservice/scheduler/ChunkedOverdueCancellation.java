@@ -0,0 +1,191 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationKey;
+import com.marvel.hospitality.reservationservice.entity.JobCheckpoint;
+import com.marvel.hospitality.reservationservice.repository.JobCheckpointRepository;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Walks the overdue set by keyset pagination on (start_date, id) and cancels each page on a bounded worker pool,
+ * every page in its own short transaction. The checkpoint only moves past a key once every earlier page is done,
+ * so an interrupted run resumes without skipping rows.
+ */
+@Slf4j
+@Component
+public class ChunkedOverdueCancellation {
+
+    static final String JOB_NAME = "overdue-bank-transfer-cancellation";
+
+    private final ReservationRepository repository;
+    private final JobCheckpointRepository checkpoints;
+    private final OverdueReservationCanceller canceller;
+    private final int chunkSize;
+    private final int workers;
+    private final ExecutorService pool;
+    private final Timer runTimer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ChunkedOverdueCancellation(ReservationRepository repository,
+                                      JobCheckpointRepository checkpoints,
+                                      OverdueReservationCanceller canceller,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${cancel.chunk-size:500}") int chunkSize,
+                                      @Value("${cancel.workers:4}") int workers) {
+        this.repository = repository;
+        this.checkpoints = checkpoints;
+        this.canceller = canceller;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.pool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("overdue-cancel-", 0).factory());
+        this.runTimer = Timer.builder("reservation.cancellation.run")
+                .description("Duration of a chunked overdue cancellation run")
+                .register(meterRegistry);
+        Gauge.builder("reservation.cancellation.chunks.in-flight", inFlight, AtomicInteger::get)
+                .description("Chunks of a chunked overdue cancellation run currently being cancelled")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cancels every reservation overdue at {@code threshold}, resuming from the checkpoint of an interrupted run
+     * with the same threshold. Stops dispatching chunks as soon as {@code keepRunning} turns false.
+     * Returns the number of reservations cancelled.
+     */
+    public int run(LocalDate threshold, BooleanSupplier keepRunning) {
+        ReservationKey resumeAfter = checkpoints.findById(JOB_NAME)
+                .filter(checkpoint -> checkpoint.getRunThreshold().equals(threshold))
+                .map(checkpoint -> new ReservationKey(checkpoint.getLastStartDate(), checkpoint.getLastId()))
+                .orElse(null);
+        if (resumeAfter != null) {
+            log.info("Resuming overdue cancellation (threshold: {}) after {}/{}",
+                    threshold, resumeAfter.startDate(), resumeAfter.id());
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A chunked overdue cancellation run is already in progress");
+        }
+        try {
+            return runTimer.record(() -> walk(threshold, resumeAfter, keepRunning));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Whether a run left a checkpoint: it stopped before the end of the overdue set, or it is still going on some
+     * node. Only the lease tells the two apart.
+     */
+    public boolean wasInterrupted() {
+        return checkpoints.existsById(JOB_NAME);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private int walk(LocalDate threshold, ReservationKey resumeAfter, BooleanSupplier keepRunning) {
+        Progress progress = new Progress(threshold);
+        Semaphore slots = new Semaphore(workers * 2);
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        ReservationKey after = resumeAfter;
+        long sequence = 0;
+        try {
+            while (!failed.get()) {
+                if (!keepRunning.getAsBoolean()) {
+                    log.warn("Overdue cancellation told to stop - it will resume from the last checkpoint");
+                    failed.set(true);
+                    break;
+                }
+                List<ReservationKey> page = after == null
+                        ? repository.findOverdueBankTransferKeys(threshold, Limit.of(chunkSize))
+                        : repository.findOverdueBankTransferKeysAfter(
+                                threshold, after.startDate(), after.id(), Limit.of(chunkSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                after = page.getLast();
+                long chunk = sequence++;
+                ReservationKey last = after;
+                List<String> ids = page.stream().map(ReservationKey::id).toList();
+                slots.acquire();
+                inFlight.incrementAndGet();
+                chunks.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        cancelled.addAndGet(canceller.cancel(ids).size());
+                        progress.completed(chunk, last);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        log.error("Failed to cancel chunk ending at {}/{} - run will resume from the last checkpoint",
+                                last.startDate(), last.id(), e);
+                        throw e;
+                    } finally {
+                        inFlight.decrementAndGet();
+                        slots.release();
+                    }
+                }, pool));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.set(true);
+        }
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        if (failed.get()) {
+            throw new IllegalStateException("Chunked overdue cancellation stopped after " + cancelled.get()
+                    + " reservations; it will resume from the last checkpoint");
+        }
+        checkpoints.deleteById(JOB_NAME);
+        return cancelled.get();
+    }
+
+    /** Completed chunks by sequence; the checkpoint advances over the contiguous prefix only. */
+    private final class Progress {
+        private final LocalDate threshold;
+        private final TreeMap<Long, ReservationKey> done = new TreeMap<>();
+        private long nextToCheckpoint;
+
+        private Progress(LocalDate threshold) {
+            this.threshold = threshold;
+        }
+
+        synchronized void completed(long chunk, ReservationKey last) {
+            done.put(chunk, last);
+            ReservationKey contiguous = null;
+            while (!done.isEmpty() && done.firstKey() == nextToCheckpoint) {
+                contiguous = done.pollFirstEntry().getValue();
+                nextToCheckpoint++;
+            }
+            if (contiguous != null) {
+                checkpoints.save(JobCheckpoint.builder()
+                        .jobName(JOB_NAME)
+                        .runThreshold(threshold)
+                        .lastStartDate(contiguous.startDate())
+                        .lastId(contiguous.id())
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.marvel.hospitality.reservationservice.service.RoomAvailabilityService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Cancels overdue bank-transfer reservations one bounded chunk at a time, each chunk being a single
+ * set-based UPDATE in its own short transaction.
+ */
+@Component
+public class OverdueReservationCanceller {
+
+    private final ReservationRepository repository;
+    private final RoomAvailabilityService roomAvailability;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Timer chunkTimer;
+    private final Counter cancelledCounter;
+
+    public OverdueReservationCanceller(ReservationRepository repository,
+                                       RoomAvailabilityService roomAvailability,
+                                       TransactionTemplate transactionTemplate,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${cancel.chunk-size:500}") int chunkSize) {
+        this.repository = repository;
+        this.roomAvailability = roomAvailability;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.chunkTimer = Timer.builder("reservation.cancellation.chunk")
+                .description("Time spent cancelling one chunk of overdue reservations")
+                .register(meterRegistry);
+        this.cancelledCounter = Counter.builder("reservation.cancellation.cancelled")
+                .description("Overdue bank-transfer reservations cancelled")
+                .register(meterRegistry);
+    }
+
+    public CancelledChunk cancelNextChunk(LocalDate threshold) {
+        CancelledChunk chunk = chunkTimer.record(() -> transactionTemplate.execute(status -> cancelChunk(threshold)));
+        cancelledCounter.increment(chunk.cancelledIds().size());
+        return chunk;
+    }
+
+    /**
+     * Cancels the next chunk of card-payment holds placed before {@code createdBefore} and never confirmed or released,
+     * i.e. whose node died between placing the hold and settling the payment. Holds whose verification was deferred
+     * while the provider was unreachable are only cancelled once deferred before {@code deferredBefore}.
+     */
+    public CancelledChunk cancelStaleCardHolds(LocalDateTime createdBefore, LocalDateTime deferredBefore) {
+        CancelledChunk chunk = chunkTimer.record(() -> transactionTemplate.execute(status -> {
+            List<String> ids = repository.findStaleCardHoldIds(createdBefore, deferredBefore, Limit.of(chunkSize));
+            return ids.isEmpty() ? new CancelledChunk(0, List.of()) : new CancelledChunk(ids.size(), cancelPending(ids));
+        }));
+        cancelledCounter.increment(chunk.cancelledIds().size());
+        return chunk;
+    }
+
+    /**
+     * Cancels the given reservations that are still pending, in one transaction, and returns the ids it cancelled.
+     */
+    public List<String> cancel(List<String> ids) {
+        List<String> cancelled = chunkTimer.record(() -> transactionTemplate.execute(status -> cancelPending(ids)));
+        cancelledCounter.increment(cancelled.size());
+        return cancelled;
+    }
+
+    private CancelledChunk cancelChunk(LocalDate threshold) {
+        List<String> ids = repository.findOverdueBankTransferIds(threshold, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return new CancelledChunk(0, List.of());
+        }
+        return new CancelledChunk(ids.size(), cancelPending(ids));
+    }
+
+    private List<String> cancelPending(List<String> ids) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int updated = repository.cancelPending(ids, now);
+        // A payment confirmed between the select and the update leaves its row out; find which ones we really cancelled.
+        List<String> cancelled = updated == ids.size() ? ids : repository.findCancelledAt(ids, now);
+        cancelled.forEach(roomAvailability::release);
+        return cancelled;
+    }
+
+    public record CancelledChunk(int scanned, List<String> cancelledIds) {
+    }
+}
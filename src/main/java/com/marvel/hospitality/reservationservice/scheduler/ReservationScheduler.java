@@ -1,21 +1,20 @@
 package com.marvel.hospitality.reservationservice.scheduler;
 
 
-import com.marvel.hospitality.reservationservice.entity.Reservation;
-import com.marvel.hospitality.reservationservice.model.ReservationStatus;
-import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.marvel.hospitality.reservationservice.listener.PaymentDeduplicator;
+import com.marvel.hospitality.reservationservice.scheduler.OverdueReservationCanceller.CancelledChunk;
+import com.marvel.hospitality.reservationservice.service.DeferredCardVerifier;
+import com.marvel.hospitality.reservationservice.service.RoomAvailabilityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.List;
-
-
-import static com.marvel.hospitality.reservationservice.model.PaymentMode.BANK_TRANSFER;
-import static com.marvel.hospitality.reservationservice.model.ReservationStatus.PENDING_PAYMENT;
+import java.time.LocalDateTime;
 
 
 @Component
@@ -24,34 +23,191 @@ import static com.marvel.hospitality.reservationservice.model.ReservationStatus.
 public class ReservationScheduler {
 
 
-    private final ReservationRepository reservationRepository;
+    static final String OVERDUE_CANCELLATION = "overdue-cancellation";
+    static final String DEFERRED_CARD_VERIFICATION = "deferred-card-verification";
+    static final String STALE_CARD_HOLDS = "stale-card-holds";
+
+    private final OverdueReservationCanceller canceller;
+    private final ChunkedOverdueCancellation chunkedCancellation;
+    private final DeferredCardVerifier deferredVerification;
+    private final SchedulerLeases leases;
+    private final PaymentDeduplicator paymentDeduplicator;
+    private final RoomAvailabilityService roomAvailability;
+
+    @Value("${cancel.mode:SEQUENTIAL}")
+    private CancellationMode mode;
+
+    @Value("${scheduler.lease.min-hold:10m}")
+    private Duration overdueMinHold;
+
+    @Value("${cancel.card-hold.timeout:5m}")
+    private Duration cardHoldTimeout;
+
+    @Value("${cancel.card-hold.max-deferral:2h}")
+    private Duration maxDeferral;
 
 
     @Scheduled(cron = "${cancel.cron:0 0 0 * * ?}")
     public void cancelOverdueBankTransferReservations() {
         try {
-            LocalDate threshold = LocalDate.now().plusDays(2);
-            log.info("Starting overdue cancellation check (threshold: {})", threshold);
+            if (!leases.runExclusively(OVERDUE_CANCELLATION, overdueMinHold, this::cancelOverdue)) {
+                log.info("Overdue cancellation skipped - another node holds the lease");
+            }
+        } catch (Exception e) {
+            log.error("Overdue cancellation could not start - will retry next schedule", e);
+        }
+    }
+
+
+    /**
+     * Takes over a run whose node died mid-run (its lease expired without being released)
+     * or a chunked run that stopped before the end of the overdue set. The checkpoint of a run still going on
+     * another node, or whose minimum hold has not passed, is left alone.
+     */
+    @Scheduled(fixedDelayString = "${cancel.resume-check-interval:1m}",
+            initialDelayString = "${cancel.resume-check-interval:1m}")
+    public void resumeInterruptedCancellation() {
+        try {
+            boolean interrupted = leases.isAbandoned(OVERDUE_CANCELLATION)
+                    || (mode == CancellationMode.CHUNKED && chunkedCancellation.wasInterrupted()
+                        && !leases.isTaken(OVERDUE_CANCELLATION));
+            if (interrupted) {
+                log.info("Resuming interrupted overdue cancellation");
+                cancelOverdueBankTransferReservations();
+            }
+        } catch (Exception e) {
+            log.error("Resuming overdue cancellation failed - will retry", e);
+        }
+    }
+
+
+    /**
+     * Cancels card-payment holds left behind by a node that died while verifying the card. The timeout must outlast
+     * the slowest verification, retries included. Holds deferred while the provider's circuit was open are left to
+     * the deferred verification for {@code max-deferral}. Runs on the node holding the lease, so nodes do not select
+     * and lock the same stale holds.
+     */
+    @Scheduled(fixedDelayString = "${cancel.card-hold.sweep-interval:1m}")
+    public void releaseStaleCardHolds() {
+        try {
+            leases.runExclusively(STALE_CARD_HOLDS, () -> {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime createdBefore = now.minus(cardHoldTimeout);
+                LocalDateTime deferredBefore = now.minus(maxDeferral);
+                CancelledChunk chunk;
+                do {
+                    chunk = canceller.cancelStaleCardHolds(createdBefore, deferredBefore);
+                    if (!chunk.cancelledIds().isEmpty()) {
+                        log.warn("Released stale card-payment holds {}", chunk.cancelledIds());
+                    }
+                } while (chunk.scanned() > 0 && leases.holds(STALE_CARD_HOLDS));
+                return chunk.scanned() == 0;
+            });
+        } catch (Exception e) {
+            log.error("Releasing stale card-payment holds failed - will retry", e);
+        }
+    }
+
+
+    /**
+     * Verifies card bookings accepted while the credit card circuit was open, one rate-limited batch per run.
+     * Runs on the node holding the lease, so the rate limit holds across the cluster.
+     */
+    @Scheduled(fixedDelayString = "${credit-card-service.degraded-mode.drain-interval:5s}")
+    public void verifyDeferredCardPayments() {
+        if (!deferredVerification.isEnabled()) {
+            return;
+        }
+        try {
+            leases.runExclusively(DEFERRED_CARD_VERIFICATION, () -> {
+                int settled = deferredVerification.drain();
+                if (settled > 0) {
+                    log.info("Settled {} deferred card payments", settled);
+                }
+                return true;
+            });
+        } catch (Exception e) {
+            log.error("Deferred card verification failed - will retry", e);
+        }
+    }
+
+
+    /**
+     * Forgets the payment updates applied longer ago than the dedup TTL. Runs on every node without a lease:
+     * the DELETE is idempotent.
+     */
+    @Scheduled(fixedDelayString = "${spring.kafka.dedup.cleanup-interval:1h}")
+    public void purgeProcessedPayments() {
+        try {
+            int purged = paymentDeduplicator.purgeExpired();
+            if (purged > 0) {
+                log.info("Purged {} processed payment records past their TTL", purged);
+            }
+        } catch (Exception e) {
+            log.error("Purging processed payment records failed - will retry", e);
+        }
+    }
+
+
+    /**
+     * Applies the reservations changed since the last refresh to this node's availability index, so bookings and
+     * cancellations made on other nodes reach its fast path and the availability search. Runs on every node without
+     * a lease: each node has its own index.
+     */
+    @Scheduled(fixedDelayString = "${availability.refresh-interval:10s}",
+            initialDelayString = "${availability.refresh-interval:10s}")
+    public void refreshRoomAvailability() {
+        try {
+            roomAvailability.refresh();
+        } catch (Exception e) {
+            log.error("Refreshing the room availability index failed - will retry", e);
+        }
+    }
+
+
+    /**
+     * Rebuilds this node's availability index from every active stay, moving the calendar origin to today and
+     * dropping stays whose rows were deleted, which the refresh cannot see.
+     */
+    @Scheduled(fixedDelayString = "${availability.reload-interval:1h}",
+            initialDelayString = "${availability.reload-interval:1h}")
+    public void reloadRoomAvailability() {
+        try {
+            roomAvailability.reload();
+        } catch (Exception e) {
+            log.error("Reloading the room availability index failed - will retry", e);
+        }
+    }
 
 
-            List<Reservation> overdue = reservationRepository.findByStatusAndPaymentModeAndStartDateLessThanEqual(
-                    PENDING_PAYMENT, BANK_TRANSFER, threshold);
+    private boolean cancelOverdue() {
+        int count = 0;
+        try {
+            LocalDate threshold = LocalDate.now().plusDays(2);
+            log.info("Starting overdue cancellation check (threshold: {})", threshold);
 
 
-            int count = 0;
-            for (Reservation res : overdue) {
-                try {
-                    res.setStatus(ReservationStatus.CANCELLED);
-                    reservationRepository.save(res);
-                    count++;
-                    log.info("Cancelled reservation {}", res.getId());
-                } catch (Exception e) {
-                    log.error("Failed to cancel reservation {} - continuing", res.getId(), e);
+            if (mode == CancellationMode.CHUNKED) {
+                count = chunkedCancellation.run(threshold, () -> leases.holds(OVERDUE_CANCELLATION));
+            } else {
+                CancelledChunk chunk;
+                do {
+                    chunk = canceller.cancelNextChunk(threshold);
+                    count += chunk.cancelledIds().size();
+                    if (!chunk.cancelledIds().isEmpty()) {
+                        log.info("Cancelled reservations {}", chunk.cancelledIds());
+                    }
+                } while (chunk.scanned() > 0 && leases.holds(OVERDUE_CANCELLATION));
+                if (chunk.scanned() > 0) {
+                    log.warn("Overdue cancellation stopped after {} reservations - lease lost to another node", count);
+                    return false;
                 }
             }
             log.info("Overdue cancellation completed - processed {} reservations", count);
+            return true;
         } catch (Exception e) {
-            log.error("Overdue cancellation task failed - will retry next schedule", e);
+            log.error("Overdue cancellation task failed after {} reservations - will retry next schedule", count, e);
+            return false;
         }
     }
 }
@@ -0,0 +1,25 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+import com.marvel.hospitality.reservationservice.scheduler.SchedulerLeases.LeaseState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "schedulerleases")
+@RequiredArgsConstructor
+public class SchedulerLeaseEndpoint {
+
+    private final SchedulerLeases leases;
+
+    @ReadOperation
+    public SchedulerLeasesReport leases() {
+        return new SchedulerLeasesReport(leases.nodeId(), leases.leases());
+    }
+
+    public record SchedulerLeasesReport(String node, List<LeaseState> leases) {
+    }
+}
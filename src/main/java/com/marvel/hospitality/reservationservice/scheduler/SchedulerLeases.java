@@ -0,0 +1,219 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+import com.marvel.hospitality.reservationservice.entity.SchedulerLease;
+import com.marvel.hospitality.reservationservice.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Database leases that let exactly one node run a scheduled job. A lease is taken with a conditional UPDATE
+ * (inserting the row the first time), renewed every third of its TTL while the job runs and released when it ends.
+ * A released lease still keeps other nodes out until the run's minimum hold has passed, so a node whose trigger fires
+ * a little later does not run the same slot again. A node that dies mid-run leaves an expired lease with an owner
+ * behind, which {@link #isAbandoned} reports so another node can take the job over. Expiry is always compared with the
+ * database clock, so clock skew between nodes does not move a takeover.
+ */
+@Slf4j
+@Component
+public class SchedulerLeases {
+
+    private final SchedulerLeaseRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final String nodeId;
+    private final ScheduledExecutorService renewer =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("lease-renewer").daemon().factory());
+    private final Map<String, Boolean> held = new ConcurrentHashMap<>();
+    private final Map<String, LastRun> lastRuns = new ConcurrentHashMap<>();
+
+    public SchedulerLeases(SchedulerLeaseRepository repository,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${scheduler.lease.ttl:30s}") Duration ttl,
+                           @Value("${scheduler.lease.node-id:}") String nodeId) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.nodeId = nodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8)
+                : nodeId;
+    }
+
+    /**
+     * Runs {@code job} if this node can take the lease, keeping it renewed for the whole run.
+     * The job reports success through its return value. Returns false when another node holds the lease.
+     */
+    public boolean runExclusively(String leaseName, BooleanSupplier job) {
+        return runExclusively(leaseName, Duration.ZERO, job);
+    }
+
+    /**
+     * {@link #runExclusively(String, BooleanSupplier)}, keeping other nodes out for at least {@code minHold} from the
+     * start of the run even when it ends sooner. {@code minHold} must outlast the spread of the nodes' triggers for
+     * one scheduled slot.
+     */
+    public boolean runExclusively(String leaseName, Duration minHold, BooleanSupplier job) {
+        // The lease row only tells nodes apart: a second trigger of the job on this node must not renew it and run too.
+        if (held.putIfAbsent(leaseName, true) != null) {
+            log.debug("Lease {} is already held by a run on this node - skipping", leaseName);
+            return false;
+        }
+        LocalDateTime acquiredAt;
+        try {
+            acquiredAt = acquire(leaseName);
+        } catch (RuntimeException e) {
+            held.remove(leaseName);
+            throw e;
+        }
+        if (acquiredAt == null) {
+            held.remove(leaseName);
+            log.debug("Lease {} is held by another node - skipping", leaseName);
+            return false;
+        }
+        long renewEvery = Math.max(ttl.toMillis() / 3, 1);
+        ScheduledFuture<?> renewal = renewer.scheduleAtFixedRate(
+                () -> renew(leaseName), renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            outcome = job.getAsBoolean() ? "success" : "failure";
+            return true;
+        } finally {
+            renewal.cancel(false);
+            held.remove(leaseName);
+            release(leaseName, acquiredAt.plus(minHold));
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("scheduler.job.duration")
+                    .description("Duration of scheduled job runs on the node holding their lease")
+                    .tag("job", leaseName)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            lastRuns.put(leaseName, new LastRun(LocalDateTime.now(), Duration.ofNanos(elapsed), outcome));
+        }
+    }
+
+    /**
+     * Whether this node still holds the lease of a running job; a job should stop between chunks once it does not.
+     */
+    public boolean holds(String leaseName) {
+        return held.getOrDefault(leaseName, false);
+    }
+
+    /**
+     * Whether the last holder's lease expired without being released, i.e. that node died mid-run.
+     */
+    public boolean isAbandoned(String leaseName) {
+        return repository.findById(leaseName)
+                .map(lease -> lease.getOwner() != null && lease.getExpiresAt().isBefore(now()))
+                .orElse(false);
+    }
+
+    /**
+     * Whether the lease keeps other nodes out right now: a live run holds it, or a finished run's minimum hold has
+     * not passed yet. An abandoned lease is not taken.
+     */
+    public boolean isTaken(String leaseName) {
+        return repository.findById(leaseName)
+                .map(lease -> lease.getExpiresAt() != null && lease.getExpiresAt().isAfter(now()))
+                .orElse(false);
+    }
+
+    public List<LeaseState> leases() {
+        LocalDateTime now = now();
+        return repository.findAll().stream()
+                .map(lease -> new LeaseState(lease.getLeaseName(), lease.getOwner(), lease.getAcquiredAt(),
+                        lease.getExpiresAt(), nodeId.equals(lease.getOwner()) && lease.getExpiresAt().isAfter(now),
+                        lastRuns.get(lease.getLeaseName())))
+                .toList();
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    /** Takes the lease and returns when, by the database clock, or null when another node holds it. */
+    private LocalDateTime acquire(String leaseName) {
+        LocalDateTime now = now();
+        Integer updated = transactionTemplate.execute(
+                status -> repository.tryAcquire(leaseName, nodeId, now, now.plus(ttl)));
+        if (updated != null && updated == 1) {
+            return now;
+        }
+        try {
+            boolean inserted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (repository.existsById(leaseName)) {
+                    return false;
+                }
+                repository.saveAndFlush(SchedulerLease.builder()
+                        .leaseName(leaseName).owner(nodeId).acquiredAt(now).expiresAt(now.plus(ttl)).build());
+                return true;
+            }));
+            return inserted ? now : null;
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    private void renew(String leaseName) {
+        try {
+            Integer renewed = transactionTemplate.execute(
+                    status -> repository.renew(leaseName, nodeId, now().plus(ttl)));
+            if (renewed == null || renewed == 0) {
+                log.warn("Lost lease {} - the running job will stop at its next checkpoint", leaseName);
+                held.put(leaseName, false);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not renew lease {} - will retry", leaseName, e);
+        }
+    }
+
+    private void release(String leaseName, LocalDateTime minHoldUntil) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = now();
+                repository.release(leaseName, nodeId, minHoldUntil.isAfter(now) ? minHoldUntil : now);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not release lease {} - it will expire on its own", leaseName, e);
+        }
+    }
+
+    private LocalDateTime now() {
+        return repository.currentTimestamp().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public record LastRun(LocalDateTime finishedAt, Duration duration, String outcome) {
+    }
+
+    public record LeaseState(String job, String owner, LocalDateTime acquiredAt, LocalDateTime expiresAt,
+                             boolean heldByThisNode, LastRun lastRunOnThisNode) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.marvel.hospitality.reservationservice.service;
+
+public enum BudgetExceededAction {
+    /** Abandon the verification, release the room hold and answer 503. */
+    REJECT,
+    /** Answer with the hold still pending; the verification settles it when the provider answers. */
+    KEEP_PENDING
+}
@@ -0,0 +1,47 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Card payments the provider confirmed after their room hold was cancelled, e.g. by the stale hold sweep while a slow
+ * verification was still running. The payment is taken but the room is gone, so the cancelled reservation is marked
+ * {@code refund_required_at} and the payment logged as an error for the refund to be issued.
+ */
+@Slf4j
+@Component
+public class CardPaymentRefunds {
+
+    private final ReservationRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter required;
+
+    public CardPaymentRefunds(ReservationRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.required = Counter.builder("credit-card.refund.required")
+                .description("Card payments confirmed by the provider after their room hold was cancelled")
+                .register(meterRegistry);
+    }
+
+    public void flag(String reservationId, String paymentReference) {
+        required.increment();
+        log.error("Card payment {} of reservation {} was confirmed after its room hold was cancelled - refund required",
+                paymentReference, reservationId);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.flagRefund(reservationId, now));
+        } catch (RuntimeException e) {
+            log.error("Could not flag reservation {} for refund - only this log records it", reservationId, e);
+        }
+    }
+}
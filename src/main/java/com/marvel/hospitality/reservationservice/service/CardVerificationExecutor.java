@@ -0,0 +1,108 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs credit-card verifications in the configured {@link CardVerificationMode}. On virtual threads a blocked
+ * provider call or retry backoff costs no platform thread, and the request thread is released until it settles or the
+ * latency budget runs out.
+ */
+@Component
+public class CardVerificationExecutor {
+
+    private final CardVerificationMode mode;
+    private final Duration latencyBudget;
+    private final BudgetExceededAction onBudgetExceeded;
+    private final ExecutorService virtualThreads =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("card-verification-", 0).factory());
+    private final Timer verificationTimer;
+    private final Counter budgetExceeded;
+
+    public CardVerificationExecutor(@Value("${credit-card-service.execution.mode:BLOCKING}") CardVerificationMode mode,
+                                    @Value("${credit-card-service.execution.latency-budget:10s}") Duration latencyBudget,
+                                    @Value("${credit-card-service.execution.on-budget-exceeded:REJECT}")
+                                    BudgetExceededAction onBudgetExceeded,
+                                    MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.latencyBudget = latencyBudget;
+        this.onBudgetExceeded = onBudgetExceeded;
+        this.verificationTimer = Timer.builder("credit-card.verification")
+                .description("Duration of credit-card verifications, retries included")
+                .tag("mode", mode.name())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.budgetExceeded = Counter.builder("credit-card.verification.budget-exceeded")
+                .description("Credit-card verifications still running when their latency budget ran out")
+                .tag("action", onBudgetExceeded.name())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a verification. In BLOCKING mode it runs on the calling thread and the returned future is already done;
+     * on virtual threads, cancelling the returned future interrupts the call. With KEEP_PENDING the call outlives the
+     * request it answered pending, so it does not carry the request deadline and runs until the provider answers.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> verification) {
+        if (mode == CardVerificationMode.BLOCKING) {
+            try {
+                return CompletableFuture.completedFuture(verificationTimer.record(verification));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Supplier<T> call = onBudgetExceeded == BudgetExceededAction.KEEP_PENDING ? verification
+                : RequestDeadline.propagate(verification);
+        Future<?> running = virtualThreads.submit(() -> {
+            try {
+                result.complete(verificationTimer.record(call));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * A view of {@code future} that fails with a {@link TimeoutException} once the latency budget, or the request
+     * deadline if sooner, runs out. Nobody waits for it, and {@code future} itself keeps running.
+     */
+    public <T> CompletableFuture<T> withinBudget(CompletableFuture<T> future) {
+        return future.copy()
+                .orTimeout(RequestDeadline.cap(latencyBudget).toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((value, error) -> {
+                    if (error instanceof TimeoutException) {
+                        budgetExceeded.increment();
+                    }
+                });
+    }
+
+    public BudgetExceededAction onBudgetExceeded() {
+        return onBudgetExceeded;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+}
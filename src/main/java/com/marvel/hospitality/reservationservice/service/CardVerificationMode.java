@@ -0,0 +1,8 @@
+package com.marvel.hospitality.reservationservice.service;
+
+public enum CardVerificationMode {
+    /** The provider is called on the request thread, bounded only by its timeouts and retries. */
+    BLOCKING,
+    /** The provider is called on a virtual thread, retry backoff included, and awaited for the latency budget. */
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,198 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.client.PaymentStatusCache;
+import com.marvel.hospitality.reservationservice.dto.DeferredCardHold;
+import com.marvel.hospitality.reservationservice.dto.ReservationResponse;
+import com.marvel.hospitality.reservationservice.exception.ReservationConflictException;
+import com.marvel.hospitality.reservationservice.model.PaymentConfirmationStatus;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.marvel.hospitality.reservationservice.model.ReservationStatus.CONFIRMED;
+import static com.marvel.hospitality.reservationservice.model.ReservationStatus.PENDING_PAYMENT;
+
+/**
+ * Degraded mode of card bookings. While the {@code creditCard} circuit is open a booking keeps its room hold as
+ * PENDING_PAYMENT instead of failing with 503, and its verification is deferred. {@link #drain} verifies deferred
+ * holds oldest first once the circuit half-opens or closes, at the pace of the {@code deferredCardVerification}
+ * rate limiter, and confirms or cancels them. A half-open circuit gets no more calls than it lets through.
+ */
+@Slf4j
+@Component
+public class DeferredCardVerifier {
+
+    static final String CIRCUIT = "creditCard";
+    static final String RATE_LIMITER = "deferredCardVerification";
+
+    private final ReservationRepository repository;
+    private final PaymentStatusCache paymentStatusCache;
+    private final RoomAvailabilityService roomAvailability;
+    private final CardPaymentRefunds refunds;
+    private final TransactionTemplate transactionTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter accepted;
+    private final Counter confirmed;
+    private final Counter cancelled;
+
+    public DeferredCardVerifier(ReservationRepository repository,
+                                PaymentStatusCache paymentStatusCache,
+                                RoomAvailabilityService roomAvailability,
+                                CardPaymentRefunds refunds,
+                                TransactionTemplate transactionTemplate,
+                                CircuitBreakerRegistry circuitBreakers,
+                                RateLimiterRegistry rateLimiters,
+                                @Value("${credit-card-service.degraded-mode.enabled:false}") boolean enabled,
+                                @Value("${credit-card-service.degraded-mode.batch-size:50}") int batchSize,
+                                MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.paymentStatusCache = paymentStatusCache;
+        this.roomAvailability = roomAvailability;
+        this.refunds = refunds;
+        this.transactionTemplate = transactionTemplate;
+        this.circuitBreaker = circuitBreakers.circuitBreaker(CIRCUIT);
+        this.rateLimiter = rateLimiters.rateLimiter(RATE_LIMITER);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        Gauge.builder("credit-card.deferred.backlog", backlog, AtomicLong::get)
+                .description("Card bookings held pending payment until the credit card service can verify them")
+                .register(meterRegistry);
+        this.accepted = Counter.builder("credit-card.deferred.accepted")
+                .description("Card bookings accepted pending payment because the credit card circuit was open")
+                .register(meterRegistry);
+        this.confirmed = settled(meterRegistry, "confirmed");
+        this.cancelled = settled(meterRegistry, "cancelled");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether a failed verification should leave the booking pending rather than fail it: the circuit was open.
+     */
+    public boolean defers(Throwable failure) {
+        if (!enabled) {
+            return false;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CallNotPermittedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public ReservationResponse defer(String reservationId) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Integer deferred = transactionTemplate.execute(status -> repository.deferVerification(reservationId, now));
+        if (deferred == null || deferred == 0) {
+            throw new ReservationConflictException(
+                    "The room hold of reservation " + reservationId + " expired before the card payment was verified");
+        }
+        accepted.increment();
+        backlog.incrementAndGet();
+        log.warn("Credit card circuit open - reservation {} accepted pending payment verification", reservationId);
+        return new ReservationResponse(reservationId, PENDING_PAYMENT);
+    }
+
+    /**
+     * Verifies the next batch of deferred holds and returns how many were settled. Stops at the first failure of
+     * the credit card service, or when the rate limiter has no permit left for this run.
+     */
+    public int drain() {
+        backlog.set(repository.countDeferredCardHolds());
+        CircuitBreaker.State state = circuitBreaker.getState();
+        if (backlog.get() == 0 || (state != CircuitBreaker.State.CLOSED && state != CircuitBreaker.State.HALF_OPEN)) {
+            return 0;
+        }
+        int limit = state == CircuitBreaker.State.HALF_OPEN
+                ? Math.min(batchSize, circuitBreaker.getCircuitBreakerConfig().getPermittedNumberOfCallsInHalfOpenState())
+                : batchSize;
+        List<DeferredCardHold> holds = repository.findDeferredCardHolds(Limit.of(limit));
+        int settled = 0;
+        for (DeferredCardHold hold : holds) {
+            if (!rateLimiter.acquirePermission()) {
+                break;
+            }
+            PaymentConfirmationStatus status;
+            try {
+                status = paymentStatusCache.verifyPayment(hold.paymentReference()).status();
+            } catch (HttpClientErrorException e) {
+                status = PaymentConfirmationStatus.REJECTED;
+            } catch (RuntimeException e) {
+                log.warn("Deferred card verification paused - credit card service call failed: {}", e.getMessage());
+                break;
+            }
+            if (status == PaymentConfirmationStatus.CONFIRMED) {
+                confirm(hold);
+            } else {
+                cancel(hold.reservationId());
+            }
+            settled++;
+        }
+        backlog.set(Math.max(0, backlog.get() - settled));
+        return settled;
+    }
+
+    private void confirm(DeferredCardHold hold) {
+        String reservationId = hold.reservationId();
+        boolean updated = Boolean.TRUE.equals(transactionTemplate.execute(status -> repository.findById(reservationId)
+                .filter(reservation -> reservation.getStatus() == PENDING_PAYMENT)
+                .map(reservation -> {
+                    reservation.setStatus(CONFIRMED);
+                    repository.save(reservation);
+                    return true;
+                })
+                .orElse(false)));
+        if (updated) {
+            confirmed.increment();
+            log.info("Confirmed deferred card payment of {}", reservationId);
+        } else {
+            refunds.flag(reservationId, hold.paymentReference());
+        }
+    }
+
+    private void cancel(String reservationId) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        boolean updated = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (repository.cancelPending(List.of(reservationId), now) == 0) {
+                return false;
+            }
+            roomAvailability.release(reservationId);
+            return true;
+        }));
+        if (updated) {
+            cancelled.increment();
+            log.info("Cancelled reservation {} - deferred card payment was not confirmed", reservationId);
+        }
+    }
+
+    private static Counter settled(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("credit-card.deferred.settled")
+                .description("Deferred card bookings settled once the credit card service answered again")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,148 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One {@code long[]} bitset per room, one bit per night counted from a 64-day aligned origin, grouped by segment.
+ * Nights before the origin are not tracked since they can no longer be booked.
+ */
+class OccupancyCalendar {
+
+    private final long originDay;
+    private final Map<String, RoomNights> rooms = new HashMap<>();
+    private final Map<RoomSegment, List<RoomNights>> bySegment = new EnumMap<>(RoomSegment.class);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    OccupancyCalendar(LocalDate today) {
+        this.originDay = Math.floorDiv(today.toEpochDay(), Long.SIZE) * Long.SIZE;
+    }
+
+    void register(String roomNumber, RoomSegment segment) {
+        if (roomNumber == null || segment == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            roomOf(roomNumber, segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void occupy(ReservationStay stay) {
+        if (stay.roomNumber() == null || stay.segment() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            roomOf(stay.roomNumber(), stay.segment()).mark(stay);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void reset(String roomNumber, Collection<ReservationStay> stays) {
+        lock.writeLock().lock();
+        try {
+            RoomNights room = rooms.get(roomNumber);
+            if (room != null) {
+                Arrays.fill(room.words, 0L);
+                stays.forEach(room::mark);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<String> freeRooms(RoomSegment segment, LocalDate from, LocalDate to) {
+        long first = Math.max(from.toEpochDay() - originDay, 0);
+        long last = to.toEpochDay() - originDay - 1;
+        lock.readLock().lock();
+        try {
+            List<String> free = new ArrayList<>();
+            for (RoomNights room : bySegment.getOrDefault(segment, List.of())) {
+                if (last < first || room.isFree(first, last)) {
+                    free.add(room.roomNumber);
+                }
+            }
+            free.sort(Comparator.naturalOrder());
+            return free;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoomNights roomOf(String roomNumber, RoomSegment segment) {
+        RoomNights room = rooms.get(roomNumber);
+        if (room == null) {
+            room = new RoomNights(roomNumber, segment);
+            rooms.put(roomNumber, room);
+            bySegment.computeIfAbsent(segment, s -> new ArrayList<>()).add(room);
+        } else if (room.segment != segment) {
+            bySegment.get(room.segment).remove(room);
+            room.segment = segment;
+            bySegment.computeIfAbsent(segment, s -> new ArrayList<>()).add(room);
+        }
+        return room;
+    }
+
+    private final class RoomNights {
+        private final String roomNumber;
+        private RoomSegment segment;
+        private long[] words = new long[0];
+
+        private RoomNights(String roomNumber, RoomSegment segment) {
+            this.roomNumber = roomNumber;
+            this.segment = segment;
+        }
+
+        private void mark(ReservationStay stay) {
+            long first = Math.max(stay.startDate().toEpochDay() - originDay, 0);
+            long last = stay.endDate().toEpochDay() - originDay - 1;
+            if (last < first) {
+                return;
+            }
+            int lastWord = (int) (last >>> 6);
+            if (lastWord >= words.length) {
+                words = Arrays.copyOf(words, lastWord + 1);
+            }
+            for (int w = (int) (first >>> 6); w <= lastWord; w++) {
+                words[w] |= mask(w, first, last);
+            }
+        }
+
+        private boolean isFree(long first, long last) {
+            int lastWord = (int) Math.min(last >>> 6, words.length - 1L);
+            for (int w = (int) (first >>> 6); w <= lastWord; w++) {
+                if ((words[w] & mask(w, first, last)) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long mask(int word, long first, long last) {
+            long mask = -1L;
+            if (word == first >>> 6) {
+                mask &= -1L << (first & 63);
+            }
+            if (word == last >>> 6) {
+                mask &= -1L >>> (63 - (last & 63));
+            }
+            return mask;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The moment the caller of the current request stops waiting for its answer. {@link #callWithin} binds it to the
+ * calling thread; work handed to another thread keeps it only when wrapped with {@link #propagate}.
+ */
+public record RequestDeadline(long expiresAtNanos) {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public static Optional<RequestDeadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * {@code timeout}, or the time left before the current deadline if that is shorter.
+     */
+    public static Duration cap(Duration timeout) {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return timeout;
+        }
+        Duration remaining = deadline.remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    public static <T> T callWithin(RequestDeadline deadline, Supplier<T> work) {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * {@code work} bound to the deadline of the calling thread, to run on another thread.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline == null ? work : () -> callWithin(deadline, work);
+    }
+}
@@ -0,0 +1,71 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Starts the deadline of a request and stops work that would only finish after it, counting the abandoned work
+ * per stage in {@code request.deadline.exceeded}.
+ */
+@Component
+public class RequestDeadlines {
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public RequestDeadlines(@Value("${server.request-deadline.default-timeout:10s}") Duration defaultTimeout,
+                            @Value("${server.request-deadline.max-timeout:30s}") Duration maxTimeout,
+                            MeterRegistry meterRegistry) {
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Deadline of a request whose caller waits {@code requested}, or the default timeout when it did not say;
+     * never further away than the max timeout.
+     */
+    public RequestDeadline start(Duration requested) {
+        Duration timeout = requested == null || requested.isNegative() ? defaultTimeout : requested;
+        return RequestDeadline.after(timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout);
+    }
+
+    /**
+     * Throws once the current deadline has passed, so that {@code stage} is not started for a caller that left.
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            abandoned(stage);
+            throw new DeadlineExceededException("Request deadline passed before " + stage);
+        }
+    }
+
+    /**
+     * Whether a failed call may still be retried: not once the current deadline has passed.
+     */
+    public boolean allowsRetry() {
+        if (isExpired()) {
+            abandoned("retry");
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isExpired() {
+        return RequestDeadline.current().filter(RequestDeadline::isExpired).isPresent();
+    }
+
+    private void abandoned(String stage) {
+        Counter.builder("request.deadline.exceeded")
+                .description("Work abandoned because the request deadline had passed")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -1,23 +1,35 @@
 package com.marvel.hospitality.reservationservice.service;
 
-import com.marvel.hospitality.reservationservice.client.CreditCardClient;
+import com.marvel.hospitality.reservationservice.client.PaymentStatusCache;
 import com.marvel.hospitality.reservationservice.dto.*;
 import com.marvel.hospitality.reservationservice.entity.Reservation;
 import com.marvel.hospitality.reservationservice.model.PaymentConfirmationStatus;
 import com.marvel.hospitality.reservationservice.model.PaymentMode;
-import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
 import com.marvel.hospitality.reservationservice.exception.*;
 import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import static com.marvel.hospitality.reservationservice.model.PaymentMode.CASH;
 import static com.marvel.hospitality.reservationservice.model.ReservationStatus.CONFIRMED;
@@ -29,12 +41,130 @@ import static com.marvel.hospitality.reservationservice.model.ReservationStatus.
 @RequiredArgsConstructor
 public class ReservationService  {
 
+    /** PostgreSQL exclusion_violation, raised by the reservations_no_overlapping_stays constraint. */
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final ReservationRepository repository;
-    private final CreditCardClient creditCardClient;
+    private final PaymentStatusCache paymentStatusCache;
+    private final RoomAvailabilityService roomAvailability;
+    private final RoomLockStripes roomLocks;
+    private final CardVerificationExecutor cardVerification;
+    private final DeferredCardVerifier deferredVerification;
+    private final CardPaymentRefunds refunds;
+    private final RequestDeadlines deadlines;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
-    public ReservationResponse createReservation(ReservationRequest request) {
+    /**
+     * Books the room in a short transaction, as a tentative hold for card payments. The card is verified with no
+     * connection held, then the hold is confirmed or cancelled in a second short transaction, so a slow payment
+     * provider cannot drain the connection pool shared with cash and bank-transfer bookings. Nothing is booked once
+     * the request deadline has passed; a card payment the provider already confirmed is still confirmed.
+     * <p>
+     * The returned future is already done unless the card is verified on a virtual thread; the calling thread is then
+     * free while the provider answers.
+     */
+    public CompletableFuture<ReservationResponse> submitReservation(ReservationRequest request) {
         validateDates(request.startDate(), request.endDate());
+        if (request.paymentMode() == PaymentMode.CREDIT_CARD) {
+            requirePaymentReference(request.paymentReference());
+        }
+        deadlines.check("booking");
+        Reservation reservation = placeReservation(request);
+        if (request.paymentMode() != PaymentMode.CREDIT_CARD) {
+            return CompletableFuture.completedFuture(new ReservationResponse(reservation.getId(), reservation.getStatus()));
+        }
+        return settleCardPayment(reservation.getId(), request.paymentReference());
+    }
+
+    /**
+     * {@link #submitReservation}, waiting on the calling thread for the card payment to settle.
+     */
+    public ReservationResponse createReservation(ReservationRequest request) {
+        try {
+            return submitReservation(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<ReservationResponse> settleCardPayment(String reservationId, String ref) {
+        CompletableFuture<PaymentStatusResponse> verification = cardVerification.submit(() -> getStatusResponse(ref));
+        CompletableFuture<ReservationResponse> settlement =
+                verification.handle((status, error) -> settleHold(reservationId, ref, status, error));
+        Supplier<ReservationResponse> onBudgetExceeded =
+                RequestDeadline.propagate(() -> budgetExceeded(reservationId, verification, settlement));
+        return cardVerification.withinBudget(settlement).handle((response, error) -> {
+            if (error == null) {
+                return response;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                return onBudgetExceeded.get();
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Answers a card booking whose settlement outlived the latency budget. A verification that answered before it
+     * could be cancelled is being settled already, so the client gets that settlement rather than a 503.
+     */
+    private ReservationResponse budgetExceeded(String reservationId, CompletableFuture<PaymentStatusResponse> verification,
+                                               CompletableFuture<ReservationResponse> settlement) {
+        if (cardVerification.onBudgetExceeded() == BudgetExceededAction.KEEP_PENDING) {
+            log.warn("Card verification of {} exceeded its latency budget - left pending", reservationId);
+            return new ReservationResponse(reservationId, PENDING_PAYMENT);
+        }
+        if (!verification.cancel(true)) {
+            log.info("Card verification of {} answered as its latency budget ran out - settling it", reservationId);
+            try {
+                return settlement.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+        deadlines.check("card verification");
+        throw new CreditCardServiceUnavailableException(
+                "Credit card service did not answer within the latency budget", new TimeoutException());
+    }
+
+    private ReservationResponse settleHold(String reservationId, String ref, PaymentStatusResponse status,
+                                           Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (deferredVerification.defers(cause)) {
+                return deferredVerification.defer(reservationId);
+            }
+            releaseHold(reservationId);
+            if (cause instanceof RuntimeException runtime && !(cause instanceof CancellationException)) {
+                throw runtime;
+            }
+            throw new CreditCardServiceUnavailableException("Credit card verification was abandoned", cause);
+        }
+        if (status.status() != PaymentConfirmationStatus.CONFIRMED) {
+            releaseHold(reservationId);
+            throw new PaymentRejectedException("The card payment was REJECTED");
+        }
+        return confirmHold(reservationId, ref);
+    }
+
+    private Reservation placeReservation(ReservationRequest request) {
+        try {
+            return roomLocks.withLock(request.roomNumber(),
+                    () -> transactionTemplate.execute(status -> bookRoom(request)));
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                throw new ReservationConflictException(
+                        "Room " + request.roomNumber() + " is already booked for the requested period");
+            }
+            throw e;
+        }
+    }
+
+    private Reservation bookRoom(ReservationRequest request) {
         checkForOverlappingReservations(request);
 
         Reservation reservation = Reservation.builder()
@@ -49,15 +179,65 @@ public class ReservationService  {
                 .build();
 
 
-        if (request.paymentMode() == PaymentMode.CREDIT_CARD) {
-            handleCreditCardPayment(reservation, request.paymentReference());
-        }
-
         repository.save(reservation);
+        roomAvailability.hold(reservation);
         log.info("Created reservation {}", reservation.getId());
 
 
-        return new ReservationResponse(reservation.getId(), reservation.getStatus());
+        return reservation;
+    }
+
+    /**
+     * Confirms the hold of a card payment the provider confirmed. A hold cancelled meanwhile, by the stale hold sweep
+     * while a slow verification was still running, leaves a taken payment without a room: it is flagged for refund.
+     */
+    private ReservationResponse confirmHold(String reservationId, String ref) {
+        ReservationResponse confirmed = transactionTemplate.execute(status -> repository.findById(reservationId)
+                .filter(res -> res.getStatus() == PENDING_PAYMENT)
+                .map(reservation -> {
+                    reservation.setStatus(CONFIRMED);
+                    repository.save(reservation);
+                    log.info("Confirmed card payment of {}", reservationId);
+                    return new ReservationResponse(reservation.getId(), reservation.getStatus());
+                })
+                .orElse(null));
+        if (confirmed == null) {
+            refunds.flag(reservationId, ref);
+            throw new PaymentRefundRequiredException("The room hold of reservation " + reservationId
+                    + " expired before the card payment was verified - the payment will be refunded");
+        }
+        return confirmed;
+    }
+
+    /**
+     * Cancels the hold of a card payment that was not verified. The row is kept as CANCELLED rather than deleted:
+     * a KEEP_PENDING answer may already have handed its id to the client.
+     */
+    private void releaseHold(String reservationId) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        try {
+            boolean cancelled = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (repository.cancelPending(List.of(reservationId), now) == 0) {
+                    return false;
+                }
+                roomAvailability.release(reservationId);
+                return true;
+            }));
+            if (cancelled) {
+                log.info("Cancelled room hold of {} - card payment not verified", reservationId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not release room hold of {} - left to the stale hold sweep", reservationId, e);
+        }
+    }
+
+
+    public RoomAvailabilityResponse findAvailableRooms(RoomSegment segment, LocalDate from, LocalDate to) {
+        if (from.isBefore(LocalDate.now())) {
+            throw new ReservationValidationException("Availability search must start today or in the future");
+        }
+        validateDates(from, to);
+        return new RoomAvailabilityResponse(segment, from, to, roomAvailability.findFreeRooms(segment, from, to));
     }
 
 
@@ -68,13 +248,7 @@ public class ReservationService  {
     }
 
     private void checkForOverlappingReservations(ReservationRequest request) {
-        List<Reservation> overlapping = repository.findOverlappingReservations(
-                request.roomNumber(),
-                request.startDate(),
-                request.endDate()
-        );
-
-        if (!overlapping.isEmpty()) {
+        if (roomAvailability.isBooked(request.roomNumber(), request.startDate(), request.endDate())) {
             throw new ReservationConflictException(
                     "Room " + request.roomNumber() + " is already booked for the requested period"
             );
@@ -82,24 +256,28 @@ public class ReservationService  {
     }
 
 
-    private void handleCreditCardPayment(Reservation res, String ref) {
-        if (ref == null || ref.isBlank()) {
-            throw new ReservationValidationException("paymentReference is required for CreditCard payments");
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        PaymentStatusResponse paymentStatusResponse = getStatusResponse(ref);
-
-        if (paymentStatusResponse.status() != PaymentConfirmationStatus.CONFIRMED) {
-            throw new PaymentRejectedException("The card payment was REJECTED");
+    private static void requirePaymentReference(String ref) {
+        if (ref == null || ref.isBlank()) {
+            throw new ReservationValidationException("paymentReference is required for CreditCard payments");
         }
-        res.setStatus(ReservationStatus.CONFIRMED);
     }
 
     private PaymentStatusResponse getStatusResponse(String ref) {
         try {
-            return creditCardClient.verifyPayment(ref);
+            return paymentStatusCache.verifyPayment(ref);
         } catch (HttpClientErrorException clientErrorException) {
             throw new InvalidPaymentReferenceException("Payment Reference was not found or invalid", clientErrorException);
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch(Exception e) {
             throw new CreditCardServiceUnavailableException("Credit card service call failed", e);
         }
@@ -113,13 +291,41 @@ public class ReservationService  {
             log.warn("Reservation {} not found - skipping", reservationId);
             return;
         }
-        if (res.getStatus() == PENDING_PAYMENT &&
-                res.getPaymentMode() == PaymentMode.BANK_TRANSFER) {
-            res.setStatus(CONFIRMED);
+        if (confirmIfPendingBankTransfer(reservationId, res)) {
             repository.save(res);
             log.info("Confirmed {}", reservationId);
-        } else {
+        }
+    }
+
+    /**
+     * Confirms the pending bank-transfer reservations among {@code reservationIds} in one transaction, loaded with a
+     * single query and written back as one JDBC batch. Unknown and already settled reservations are skipped.
+     */
+    @Transactional
+    public int confirmBankTransferPayments(Collection<String> reservationIds) {
+        List<Reservation> found = repository.findAllById(new LinkedHashSet<>(reservationIds));
+        List<Reservation> confirmed = found.stream()
+                .filter(res -> confirmIfPendingBankTransfer(res.getId(), res))
+                .toList();
+        repository.saveAll(confirmed);
+        if (found.size() < reservationIds.size()) {
+            Set<String> missing = new LinkedHashSet<>(reservationIds);
+            found.forEach(res -> missing.remove(res.getId()));
+            if (!missing.isEmpty()) {
+                log.warn("Reservations {} not found - skipping", missing);
+            }
+        }
+        log.info("Confirmed {} of {} bank transfer payments", confirmed.size(), reservationIds.size());
+        return confirmed.size();
+    }
+
+    private boolean confirmIfPendingBankTransfer(String reservationId, Reservation res) {
+        if (res.getStatus() != PENDING_PAYMENT || res.getPaymentMode() != PaymentMode.BANK_TRANSFER) {
             log.info("Skipped {} (already {})", reservationId, res.getStatus());
+            return false;
         }
+        res.setStatus(CONFIRMED);
+        roomAvailability.hold(res);
+        return true;
     }
 }
\ No newline at end of file
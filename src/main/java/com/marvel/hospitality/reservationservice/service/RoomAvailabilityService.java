@@ -0,0 +1,202 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
+import com.marvel.hospitality.reservationservice.dto.ReservationStayChange;
+import com.marvel.hospitality.reservationservice.dto.RoomRef;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoomAvailabilityService implements SmartInitializingSingleton {
+
+    private final ReservationRepository repository;
+    private volatile Indexes indexes = new Indexes(new RoomIntervalIndex(), new OccupancyCalendar(LocalDate.now()));
+    private volatile LocalDateTime loadedAt;
+    /** Changes applied while a reload reads the database, replayed onto the reloaded indexes before they are swapped in. */
+    private volatile Queue<Consumer<Indexes>> changedDuringReload;
+    private final ReadWriteLock swap = new ReentrantReadWriteLock();
+
+    @Value("${availability.refresh-lookback:1m}")
+    private Duration refreshLookback;
+
+    /** The hotel's rooms as {@code number:SEGMENT}, so rooms never booked yet are listed free too. */
+    @Value("${availability.rooms:}")
+    private List<String> roomCatalogue = List.of();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    public synchronized void reload() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Queue<Consumer<Indexes>> changes = new ConcurrentLinkedQueue<>();
+        swapLocked(() -> changedDuringReload = changes);
+        try {
+            Indexes loaded = new Indexes(new RoomIntervalIndex(), new OccupancyCalendar(LocalDate.now()));
+            List<RoomRef> rooms = rooms();
+            rooms.forEach(room -> loaded.calendar().register(room.roomNumber(), room.segment()));
+            List<ReservationStay> stays = repository.findActiveStays();
+            stays.forEach(loaded::add);
+            swapLocked(() -> {
+                changes.forEach(change -> change.accept(loaded));
+                indexes = loaded;
+                loadedAt = startedAt;
+            });
+            log.info("Loaded {} active reservations over {} rooms into the room availability index",
+                    stays.size(), rooms.size());
+        } finally {
+            swapLocked(() -> changedDuringReload = null);
+        }
+    }
+
+    /**
+     * The configured room catalogue followed by the rooms known from reservations. Without a catalogue, only rooms
+     * that appear in some reservation are searched.
+     */
+    private List<RoomRef> rooms() {
+        List<RoomRef> rooms = new ArrayList<>();
+        for (String entry : roomCatalogue) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalStateException("availability.rooms entry must be number:SEGMENT, got: " + entry);
+            }
+            rooms.add(new RoomRef(entry.substring(0, colon).trim(),
+                    RoomSegment.valueOf(entry.substring(colon + 1).trim())));
+        }
+        rooms.addAll(repository.findRooms());
+        return rooms;
+    }
+
+    /**
+     * Applies the reservations changed since the last load or refresh, so this node catches up with bookings and
+     * cancellations made on other nodes without reading every active stay again. Each refresh reaches back
+     * {@code availability.refresh-lookback} further, to cover clock skew between nodes and transactions that commit
+     * after stamping {@code updated_at}.
+     */
+    public synchronized void refresh() {
+        LocalDateTime since = loadedAt;
+        if (since == null) {
+            reload();
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<ReservationStayChange> changes = repository.findStaysChangedSince(since.minus(refreshLookback));
+        for (ReservationStayChange change : changes) {
+            if (change.isActive()) {
+                ReservationStay stay = change.stay();
+                apply(current -> current.add(stay));
+            } else {
+                apply(current -> current.remove(change.reservationId()));
+            }
+        }
+        loadedAt = startedAt;
+        log.debug("Refreshed the room availability index with {} changed reservations", changes.size());
+    }
+
+    /** Whether this node's index holds a stay of the room overlapping the period. */
+    public boolean hasOverlap(String roomNumber, LocalDate startDate, LocalDate endDate) {
+        return indexes.intervals().overlaps(roomNumber, startDate, endDate);
+    }
+
+    /**
+     * Whether an active stay of the room overlaps the period. A stay in this node's index answers without a query.
+     * Otherwise the database is asked, since stays booked on other nodes only reach the index with the next
+     * {@link #refresh}; a stay cancelled on another node may still be answered as booked until then.
+     */
+    public boolean isBooked(String roomNumber, LocalDate startDate, LocalDate endDate) {
+        if (hasOverlap(roomNumber, startDate, endDate)) {
+            return true;
+        }
+        return repository.existsOverlappingStay(roomNumber, startDate, endDate);
+    }
+
+    public List<String> findFreeRooms(RoomSegment segment, LocalDate from, LocalDate to) {
+        return indexes.calendar().freeRooms(segment, from, to);
+    }
+
+    public void hold(Reservation reservation) {
+        ReservationStay stay = ReservationStay.of(reservation);
+        AfterCommit.run(() -> apply(current -> current.add(stay)));
+    }
+
+    public void release(String reservationId) {
+        AfterCommit.run(() -> apply(current -> current.remove(reservationId)));
+    }
+
+    public int size() {
+        return indexes.intervals().size();
+    }
+
+    /**
+     * Applies a change to the indexes in use, and records it for the reload in progress, if any: the database read by
+     * that reload may predate the change. Both happen under the indexes' lock, so changes are replayed in the order
+     * they were applied.
+     */
+    private void apply(Consumer<Indexes> change) {
+        swap.readLock().lock();
+        try {
+            Indexes current = indexes;
+            synchronized (current) {
+                change.accept(current);
+                Queue<Consumer<Indexes>> journal = changedDuringReload;
+                if (journal != null) {
+                    journal.add(change);
+                }
+            }
+        } finally {
+            swap.readLock().unlock();
+        }
+    }
+
+    private void swapLocked(Runnable action) {
+        swap.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            swap.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A room's intervals and its calendar bits change together under the instance lock: a calendar reset rebuilt from a
+     * snapshot of the intervals taken before a concurrent add would otherwise wipe that stay's nights.
+     */
+    private record Indexes(RoomIntervalIndex intervals, OccupancyCalendar calendar) {
+
+        synchronized void add(ReservationStay stay) {
+            ReservationStay previous = intervals.add(stay);
+            if (previous != null) {
+                calendar.reset(previous.roomNumber(), intervals.staysOf(previous.roomNumber()));
+            }
+            calendar.occupy(stay);
+        }
+
+        synchronized void remove(String reservationId) {
+            ReservationStay removed = intervals.remove(reservationId);
+            if (removed != null) {
+                calendar.reset(removed.roomNumber(), intervals.staysOf(removed.roomNumber()));
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-room sorted set of half-open [start, end) epoch-day intervals.
+ * An overlap lookup only visits stays starting within {@code maxStayDays} before the requested end date,
+ * so it stays logarithmic in the number of reservations of the room.
+ */
+class RoomIntervalIndex {
+
+    private static final Comparator<Interval> BY_START_THEN_ID =
+            Comparator.comparingLong(Interval::start).thenComparing(Interval::reservationId);
+
+    private final Map<String, RoomIntervals> rooms = new ConcurrentHashMap<>();
+    private final Map<String, ReservationStay> stays = new ConcurrentHashMap<>();
+
+    ReservationStay add(ReservationStay stay) {
+        ReservationStay previous = stays.put(stay.reservationId(), stay);
+        if (previous != null) {
+            roomOf(previous.roomNumber()).remove(Interval.of(previous));
+        }
+        roomOf(stay.roomNumber()).add(Interval.of(stay));
+        return previous;
+    }
+
+    ReservationStay remove(String reservationId) {
+        ReservationStay removed = stays.remove(reservationId);
+        if (removed != null) {
+            roomOf(removed.roomNumber()).remove(Interval.of(removed));
+        }
+        return removed;
+    }
+
+    boolean overlaps(String roomNumber, LocalDate startDate, LocalDate endDate) {
+        RoomIntervals room = rooms.get(roomNumber);
+        return room != null && room.overlaps(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    List<ReservationStay> staysOf(String roomNumber) {
+        RoomIntervals room = rooms.get(roomNumber);
+        return room == null ? List.of() : room.stays();
+    }
+
+    int size() {
+        return stays.size();
+    }
+
+    private RoomIntervals roomOf(String roomNumber) {
+        return rooms.computeIfAbsent(roomNumber, r -> new RoomIntervals());
+    }
+
+    private record Interval(long start, long end, String reservationId, ReservationStay stay) {
+        static Interval of(ReservationStay stay) {
+            return new Interval(stay.startDate().toEpochDay(), stay.endDate().toEpochDay(), stay.reservationId(), stay);
+        }
+
+        static Interval probe(long start) {
+            return new Interval(start, Long.MIN_VALUE, "", null);
+        }
+    }
+
+    private static final class RoomIntervals {
+        private final NavigableSet<Interval> intervals = new TreeSet<>(BY_START_THEN_ID);
+        private long maxStayDays;
+
+        synchronized void add(Interval interval) {
+            intervals.add(interval);
+            maxStayDays = Math.max(maxStayDays, interval.end() - interval.start());
+        }
+
+        synchronized void remove(Interval interval) {
+            intervals.remove(interval);
+        }
+
+        synchronized List<ReservationStay> stays() {
+            return intervals.stream().map(Interval::stay).toList();
+        }
+
+        synchronized boolean overlaps(long start, long end) {
+            Interval from = Interval.probe(start - maxStayDays + 1);
+            Interval to = Interval.probe(end);
+            if (BY_START_THEN_ID.compare(from, to) >= 0) {
+                return false;
+            }
+            for (Interval candidate : intervals.subSet(from, true, to, false)) {
+                if (candidate.end() > start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
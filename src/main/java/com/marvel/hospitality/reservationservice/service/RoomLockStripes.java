@@ -0,0 +1,92 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.exception.ReservationConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+public class RoomLockStripes {
+
+    private final ReentrantLock[] stripes;
+    private final Duration acquireTimeout;
+    private final Timer waitTimer;
+    private final Counter contended;
+    private final Counter timeouts;
+
+    public RoomLockStripes(@Value("${reservation.room-lock.stripes:1024}") int stripes,
+                           @Value("${reservation.room-lock.acquire-timeout:5s}") Duration acquireTimeout,
+                           MeterRegistry meterRegistry) {
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1];
+        Arrays.setAll(this.stripes, i -> new ReentrantLock());
+        this.acquireTimeout = acquireTimeout;
+        this.waitTimer = Timer.builder("reservation.room.lock.wait")
+                .description("Time spent waiting for a contended room lock")
+                .register(meterRegistry);
+        this.contended = Counter.builder("reservation.room.lock.contended")
+                .description("Room lock acquisitions that had to wait for another booking of the same stripe")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("reservation.room.lock.timeouts")
+                .description("Room lock acquisitions that gave up after the acquire timeout")
+                .register(meterRegistry);
+        Gauge.builder("reservation.room.lock.queued", this, RoomLockStripes::queuedThreads)
+                .description("Threads currently waiting for a room lock")
+                .register(meterRegistry);
+    }
+
+    public <T> T withLock(String roomNumber, Supplier<T> action) {
+        ReentrantLock lock = stripeOf(roomNumber);
+        acquire(lock, roomNumber);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private void acquire(ReentrantLock lock, String roomNumber) {
+        if (lock.tryLock()) {
+            return;
+        }
+        contended.increment();
+        long start = System.nanoTime();
+        try {
+            if (!lock.tryLock(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new ReservationConflictException(
+                        "Room " + roomNumber + " is being booked by another request, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReservationConflictException("Interrupted while waiting to book room " + roomNumber);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ReentrantLock stripeOf(String roomNumber) {
+        int hash = roomNumber.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private double queuedThreads() {
+        int queued = 0;
+        for (ReentrantLock stripe : stripes) {
+            queued += stripe.getQueueLength();
+        }
+        return queued;
+    }
+}
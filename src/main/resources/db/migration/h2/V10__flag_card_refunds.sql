@@ -0,0 +1,2 @@
+-- Card payments the provider confirmed after their room hold had been cancelled; they must be refunded
+ALTER TABLE reservations ADD COLUMN refund_required_at TIMESTAMP(6);
@@ -0,0 +1,2 @@
+-- ReservationRepository.findStaysChangedSince: each node refreshes its availability index from recent changes
+CREATE INDEX idx_reservations_updated_at ON reservations (updated_at);
@@ -0,0 +1,14 @@
+CREATE TABLE reservations (
+    id                VARCHAR(255) NOT NULL,
+    customer_name     VARCHAR(255),
+    room_number       VARCHAR(255),
+    start_date        DATE,
+    end_date          DATE,
+    segment           VARCHAR(255),
+    payment_mode      VARCHAR(255),
+    payment_reference VARCHAR(255),
+    status            VARCHAR(255),
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6),
+    CONSTRAINT pk_reservations PRIMARY KEY (id)
+);
@@ -0,0 +1,5 @@
+-- ReservationRepository.findOverlappingReservations
+CREATE INDEX idx_reservations_room_period ON reservations (room_number, start_date, end_date, status);
+
+-- ReservationRepository.findByStatusAndPaymentModeAndStartDateLessThanEqual
+CREATE INDEX idx_reservations_status_mode_start ON reservations (status, payment_mode, start_date);
@@ -0,0 +1,8 @@
+CREATE TABLE job_checkpoints (
+    job_name        VARCHAR(100) NOT NULL,
+    run_threshold   DATE         NOT NULL,
+    last_start_date DATE         NOT NULL,
+    last_id         VARCHAR(255) NOT NULL,
+    updated_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_job_checkpoints PRIMARY KEY (job_name)
+);
@@ -0,0 +1,7 @@
+CREATE TABLE scheduler_leases (
+    lease_name  VARCHAR(100) NOT NULL,
+    owner       VARCHAR(255),
+    acquired_at TIMESTAMP(6),
+    expires_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_scheduler_leases PRIMARY KEY (lease_name)
+);
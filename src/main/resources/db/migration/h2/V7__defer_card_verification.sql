@@ -0,0 +1,2 @@
+-- Card bookings accepted while the payment provider's circuit was open, verified later by DeferredCardVerifier
+ALTER TABLE reservations ADD COLUMN verification_deferred_at TIMESTAMP(6);
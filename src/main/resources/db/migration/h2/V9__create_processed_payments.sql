@@ -0,0 +1,10 @@
+-- Payment updates already applied, by paymentId, so redelivered and re-driven ones are dropped by PaymentDeduplicator
+CREATE TABLE processed_payments (
+    payment_id     VARCHAR(255) NOT NULL,
+    reservation_id VARCHAR(255) NOT NULL,
+    processed_at   TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_processed_payments PRIMARY KEY (payment_id)
+);
+
+-- ProcessedPaymentRepository.deleteProcessedBefore: the TTL purge
+CREATE INDEX idx_processed_payments_processed_at ON processed_payments (processed_at);
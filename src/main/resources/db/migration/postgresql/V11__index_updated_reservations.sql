@@ -0,0 +1,3 @@
+-- ReservationRepository.findStaysChangedSince: each node refreshes its availability index from recent changes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reservations_updated_at
+    ON reservations (updated_at);
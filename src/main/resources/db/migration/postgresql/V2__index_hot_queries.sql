@@ -0,0 +1,8 @@
+-- ReservationRepository.findOverlappingReservations: only active stays can overlap
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reservations_room_period_active
+    ON reservations (room_number, start_date, end_date)
+    WHERE status IN ('PENDING_PAYMENT', 'CONFIRMED');
+
+-- ReservationRepository.findByStatusAndPaymentModeAndStartDateLessThanEqual
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reservations_status_mode_start
+    ON reservations (status, payment_mode, start_date);
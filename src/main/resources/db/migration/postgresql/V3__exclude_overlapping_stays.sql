@@ -0,0 +1,7 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Last line of defence against double-booking: two active stays of the same room cannot share a night.
+ALTER TABLE reservations
+    ADD CONSTRAINT reservations_no_overlapping_stays
+    EXCLUDE USING gist (room_number WITH =, daterange(start_date, end_date, '[)') WITH &&)
+    WHERE (status IN ('PENDING_PAYMENT', 'CONFIRMED'));
@@ -0,0 +1,4 @@
+-- Keyset walk of the chunked overdue cancellation: ORDER BY start_date, id straight from the index
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reservations_overdue_keyset
+    ON reservations (start_date, id)
+    WHERE status = 'PENDING_PAYMENT' AND payment_mode = 'BANK_TRANSFER';
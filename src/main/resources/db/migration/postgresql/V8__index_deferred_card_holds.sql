@@ -0,0 +1,4 @@
+-- ReservationRepository.findDeferredCardHolds: the drain walks the backlog oldest first
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reservations_deferred_card_holds
+    ON reservations (verification_deferred_at, id)
+    WHERE status = 'PENDING_PAYMENT' AND verification_deferred_at IS NOT NULL;
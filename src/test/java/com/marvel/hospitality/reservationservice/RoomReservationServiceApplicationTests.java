@@ -2,14 +2,26 @@ package com.marvel.hospitality.reservationservice;
 
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 
 @SpringBootTest
 class RoomReservationServiceApplicationTests {
+    @Autowired
+    private ThreadPoolTaskScheduler taskScheduler;
+
     @Test
     void contextLoads() {}
 
+    @Test
+    void should_runScheduledJobsOnTheirOwnThreads() {
+        assertThat(taskScheduler.getScheduledThreadPoolExecutor().getCorePoolSize()).isEqualTo(7);
+    }
+
     @Test
     void should_run_main_method_without_exceptions() {
         RoomReservationServiceApplication.main(new String[]{});
@@ -3,21 +3,31 @@ package com.marvel.hospitality.reservationservice.client;
 import com.marvel.hospitality.reservationservice.model.PaymentConfirmationStatus;
 import com.marvel.hospitality.reservationservice.dto.PaymentStatusRequest;
 import com.marvel.hospitality.reservationservice.dto.PaymentStatusResponse;
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
+import com.marvel.hospitality.reservationservice.service.RequestDeadline;
+import com.marvel.hospitality.reservationservice.service.RequestDeadlines;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +39,21 @@ class CreditCardClientTest {
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     private RestClient.RequestBodyUriSpec requestBodyUriSpec;
 
+    @Spy
+    private CreditCardConcurrencyLimiter concurrencyLimiter = new CreditCardConcurrencyLimiter(
+            BulkheadRegistry.ofDefaults(), true, 20, 2, Duration.ofSeconds(1), 0.9, new SimpleMeterRegistry());
+
+    @Mock
+    private RetryBudget retryBudget;
+
+    @Spy
+    private CreditCardHedging hedging = new CreditCardHedging(false, 0.95, Duration.ofMillis(50), 20, 0.05, 10,
+            new SimpleMeterRegistry());
+
+    @Spy
+    private RequestDeadlines deadlines = new RequestDeadlines(
+            Duration.ofSeconds(10), Duration.ofSeconds(30), new SimpleMeterRegistry());
+
     @InjectMocks
     private CreditCardClient creditCardClient;
 
@@ -70,4 +95,25 @@ class CreditCardClientTest {
                 .isInstanceOf(HttpServerErrorException.class)
                 .hasMessageContaining("500 Server Error");
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_notCallProvider_when_requestDeadlineHasPassed() {
+        assertThatThrownBy(() -> RequestDeadline.callWithin(RequestDeadline.after(Duration.ZERO),
+                () -> creditCardClient.verifyPayment("REF-LATE")))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        verifyNoInteractions(restClient, retryBudget);
+    }
+
+    @Test
+    void should_reportDeadlineExceeded_when_callTimesOutOnExpiredDeadline() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(50));
+        when(restClient.post()).thenAnswer(i -> {
+            Thread.sleep(100);
+            throw new ResourceAccessException("Read timed out");
+        });
+
+        assertThatThrownBy(() -> RequestDeadline.callWithin(deadline, () -> creditCardClient.verifyPayment("REF-SLOW")))
+                .isInstanceOf(DeadlineExceededException.class);
+    }
+}
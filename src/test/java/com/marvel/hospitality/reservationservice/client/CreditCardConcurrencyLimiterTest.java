@@ -0,0 +1,126 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.marvel.hospitality.reservationservice.exception.ConcurrencyLimitExceededException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CreditCardConcurrencyLimiterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void should_rejectImmediately_when_limitIsReached() throws Exception {
+        CreditCardConcurrencyLimiter limiter = limiter(10, 1);
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> limiter.call(() -> {
+            called.countDown();
+            awaitQuietly(answer);
+            return "ok";
+        }));
+        assertThat(called.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> limiter.call(() -> "second"))
+                .isInstanceOf(ConcurrencyLimitExceededException.class);
+        answer.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(meterRegistry.get("credit-card.concurrency.rejected").tag("reason", "limit").counter().count())
+                .isEqualTo(1);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void should_raiseLimitByOne_when_callAnswersQuickly() {
+        CreditCardConcurrencyLimiter limiter = limiter(10, 1);
+
+        limiter.call(() -> "ok");
+
+        assertThat(limiter.limit()).isEqualTo(2);
+        assertThat(meterRegistry.get("credit-card.concurrency.limit").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void should_neverExceedBulkhead_when_limitKeepsGrowing() {
+        CreditCardConcurrencyLimiter limiter = limiter(3, 1);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.call(() -> "ok");
+        }
+
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+
+    @Test
+    void should_cutLimit_when_callTimesOut() {
+        CreditCardConcurrencyLimiter limiter = limiter(40, 20);
+
+        assertThatThrownBy(() -> limiter.call(() -> {
+            throw new ResourceAccessException("Read timed out");
+        })).isInstanceOf(ResourceAccessException.class);
+
+        assertThat(limiter.limit()).isEqualTo(18);
+    }
+
+    @Test
+    void should_keepLimit_when_providerRejectsTheReference() {
+        CreditCardConcurrencyLimiter limiter = limiter(40, 20);
+
+        assertThatThrownBy(() -> limiter.call(() -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        })).isInstanceOf(HttpClientErrorException.class);
+
+        assertThat(limiter.limit()).isEqualTo(20);
+    }
+
+    @Test
+    void should_failFast_when_bulkheadIsFull() {
+        BulkheadRegistry registry = bulkheadRegistry(1);
+        CreditCardConcurrencyLimiter limiter = new CreditCardConcurrencyLimiter(registry, true, 1, 1,
+                Duration.ofSeconds(1), 0.9, meterRegistry);
+        registry.bulkhead(CreditCardConcurrencyLimiter.BULKHEAD).acquirePermission();
+
+        assertThatThrownBy(() -> limiter.call(() -> "ok")).isInstanceOf(BulkheadFullException.class);
+
+        assertThat(meterRegistry.get("credit-card.concurrency.rejected").tag("reason", "bulkhead").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("credit-card.concurrency.queue-wait").timer().count()).isEqualTo(1);
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.limit()).isEqualTo(1);
+    }
+
+    private CreditCardConcurrencyLimiter limiter(int bulkhead, int initialLimit) {
+        return new CreditCardConcurrencyLimiter(bulkheadRegistry(bulkhead), true, initialLimit, 1,
+                Duration.ofSeconds(1), 0.9, meterRegistry);
+    }
+
+    private static BulkheadRegistry bulkheadRegistry(int maxConcurrentCalls) {
+        return BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Credit-card verification latency against a provider whose answers are log-normally distributed around
+ * {@value #MEDIAN_MS} ms, with and without hedging. Skipped by the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = {
+        "app.kafka.enabled=false",
+        "credit-card-service.concurrency.enabled=false",
+        "resilience4j.circuitbreaker.instances.creditCard.minimumNumberOfCalls=10000"
+})
+class CreditCardHedgingBenchmarkTest {
+
+    private static final int MEDIAN_MS = 40;
+    private static final double SIGMA = 1.0;
+    private static final int CONCURRENCY = 8;
+    private static final int WARM_UP_CALLS = 200;
+    private static final int MEASURED_CALLS = 2_000;
+
+    private static final Map<String, Result> results = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static WireMockServer provider;
+
+    @BeforeAll
+    static void startProvider() {
+        provider = new WireMockServer(options().port(9090).disableRequestJournal());
+        provider.start();
+        provider.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .willReturn(aResponse().withStatus(200)
+                        .withLogNormalRandomDelay(MEDIAN_MS, SIGMA)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"status\": \"CONFIRMED\"}")));
+    }
+
+    @AfterAll
+    static void report() {
+        provider.stop();
+        System.out.printf("%nHedging benchmark - log-normal provider delay, median %d ms, sigma %.1f, %d calls%n",
+                MEDIAN_MS, SIGMA, MEASURED_CALLS);
+        System.out.printf("%-10s %8s %8s %8s %8s %8s%n", "hedging", "p50 ms", "p95 ms", "p99 ms", "fired", "won");
+        results.forEach((mode, result) -> System.out.printf("%-10s %8d %8d %8d %8.0f %8.0f%n",
+                mode, result.p50Millis(), result.p95Millis(), result.p99Millis(), result.fired(), result.won()));
+    }
+
+    @Nested
+    @SpringBootTest(properties = "credit-card-service.hedging.enabled=false")
+    @ActiveProfiles("test")
+    class Off extends Scenario {
+
+        Off() {
+            super("off");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = "credit-card-service.hedging.enabled=true")
+    @ActiveProfiles("test")
+    class On extends Scenario {
+
+        On() {
+            super("on");
+        }
+    }
+
+    abstract static class Scenario {
+
+        private final String mode;
+        private final AtomicInteger references = new AtomicInteger();
+
+        @Autowired
+        private CreditCardClient creditCardClient;
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        Scenario(String mode) {
+            this.mode = mode;
+        }
+
+        @Test
+        void benchmark() throws Exception {
+            drive(WARM_UP_CALLS);
+            double firedBefore = meterRegistry.get("credit-card.hedge.fired").counter().count();
+            double wonBefore = meterRegistry.get("credit-card.hedge.won").counter().count();
+
+            List<Long> latencies = drive(MEASURED_CALLS);
+
+            Collections.sort(latencies);
+            results.put(mode, new Result(percentile(latencies, 0.50), percentile(latencies, 0.95),
+                    percentile(latencies, 0.99),
+                    meterRegistry.get("credit-card.hedge.fired").counter().count() - firedBefore,
+                    meterRegistry.get("credit-card.hedge.won").counter().count() - wonBefore));
+            assertThat(latencies).hasSize(MEASURED_CALLS);
+        }
+
+        private List<Long> drive(int calls) throws Exception {
+            Semaphore inFlight = new Semaphore(CONCURRENCY);
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < calls; i++) {
+                    inFlight.acquire();
+                    String reference = "PAYREF-" + mode + "-" + references.incrementAndGet();
+                    clients.submit(() -> {
+                        long sent = System.nanoTime();
+                        try {
+                            creditCardClient.verifyPayment(reference);
+                            latencies.add(System.nanoTime() - sent);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+            return new ArrayList<>(latencies);
+        }
+
+        private static long percentile(List<Long> sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+            return Duration.ofNanos(sorted.get(Math.max(index, 0))).toMillis();
+        }
+    }
+
+    record Result(long p50Millis, long p95Millis, long p99Millis, double fired, double won) {
+    }
+}
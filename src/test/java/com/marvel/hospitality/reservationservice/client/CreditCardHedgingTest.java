@@ -0,0 +1,117 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CreditCardHedgingTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CreditCardHedging hedging;
+
+    @AfterEach
+    void tearDown() {
+        if (hedging != null) {
+            hedging.shutdown();
+        }
+    }
+
+    @Test
+    void should_runOnCallerThread_when_hedgingIsDisabled() {
+        hedging = new CreditCardHedging(false, 0.95, Duration.ofMillis(20), 2, 0.05, 10, meterRegistry);
+        Thread caller = Thread.currentThread();
+
+        assertThat(hedging.call(() -> Thread.currentThread() == caller)).isTrue();
+    }
+
+    @Test
+    void should_notHedge_when_tooFewAttemptsWereTimed() {
+        hedging = hedging(10);
+
+        assertThat(hedging.call(sleepingFor(100, "slow"))).isEqualTo("slow");
+
+        assertThat(meterRegistry.get("credit-card.hedge.fired").counter().count()).isZero();
+    }
+
+    @Test
+    void should_returnSecondAttemptAndCancelFirst_when_firstIsSlowerThanHedgeDelay() throws Exception {
+        hedging = hedging(10);
+        warmUp();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch firstCancelled = new CountDownLatch(1);
+
+        String answer = hedging.call(() -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    firstCancelled.countDown();
+                    throw new ResourceAccessException("cancelled");
+                }
+                return "first";
+            }
+            return "second";
+        });
+
+        assertThat(answer).isEqualTo("second");
+        assertThat(firstCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("credit-card.hedge.fired").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("credit-card.hedge.won").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_stopHedging_when_hedgeBudgetIsSpent() {
+        hedging = hedging(1);
+        warmUp();
+
+        hedging.call(sleepingFor(100, "slow"));
+        hedging.call(sleepingFor(100, "slow"));
+
+        assertThat(meterRegistry.get("credit-card.hedge.fired").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_throwFailure_when_bothAttemptsFail() {
+        hedging = hedging(10);
+        warmUp();
+
+        assertThatThrownBy(() -> hedging.call(() -> {
+            sleepingFor(100, null).get();
+            throw new ResourceAccessException("Read timed out");
+        })).isInstanceOf(ResourceAccessException.class);
+
+        assertThat(meterRegistry.get("credit-card.hedge.won").counter().count()).isZero();
+    }
+
+    private CreditCardHedging hedging(double maxBalance) {
+        return new CreditCardHedging(true, 0.95, Duration.ofMillis(20), 5, 0, maxBalance, meterRegistry);
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 5; i++) {
+            hedging.call(() -> "fast");
+        }
+    }
+
+    private static Supplier<String> sleepingFor(long millis, String answer) {
+        return () -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return answer;
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.marvel.hospitality.reservationservice.dto.PaymentStatusResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.wiremock.spring.ConfigureWireMock;
+import org.wiremock.spring.EnableWireMock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.marvel.hospitality.reservationservice.model.PaymentConfirmationStatus.CONFIRMED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.kafka.enabled=false")
+@EnableWireMock(@ConfigureWireMock(name = "credit-card-payment-server", port = 9090, registerSpringBean = true))
+@ActiveProfiles("test")
+class PaymentStatusCacheIntegrationTest {
+
+    private static final int CONCURRENT_CALLS = 10;
+
+    @Autowired
+    private PaymentStatusCache paymentStatusCache;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Qualifier("credit-card-payment-server")
+    @Autowired
+    private WireMockServer wireMockServer;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer.resetAll();
+        circuitBreakerRegistry.circuitBreaker("creditCard").reset();
+        paymentStatusCache.invalidateAll();
+    }
+
+    @Test
+    void should_sendOneUpstreamRequest_when_sameReferenceIsVerifiedConcurrently() throws Exception {
+        wireMockServer.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .willReturn(aResponse().withStatus(200)
+                        .withFixedDelay(1000)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"status\": \"CONFIRMED\"}")));
+        double collapsedBefore = meterRegistry.get("credit-card.verification.coalesced").counter().count();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<PaymentStatusResponse>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLS)) {
+            for (int i = 0; i < CONCURRENT_CALLS; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> {
+                    awaitQuietly(start);
+                    return paymentStatusCache.verifyPayment("PAYREF-DOUBLE-SUBMIT");
+                }, executor));
+            }
+            start.countDown();
+            for (CompletableFuture<PaymentStatusResponse> call : calls) {
+                assertThat(call.get(10, TimeUnit.SECONDS).status()).isEqualTo(CONFIRMED);
+            }
+        }
+
+        assertThat(wireMockServer.findAll(postRequestedFor(urlPathMatching("/credit-card-payment-api/.*")))).hasSize(1);
+        assertThat(meterRegistry.get("credit-card.verification.coalesced").counter().count() - collapsedBefore)
+                .isEqualTo(CONCURRENT_CALLS - 1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.marvel.hospitality.reservationservice.dto.PaymentStatusResponse;
+import com.marvel.hospitality.reservationservice.exception.CreditCardServiceUnavailableException;
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.marvel.hospitality.reservationservice.model.PaymentConfirmationStatus.CONFIRMED;
+import static com.marvel.hospitality.reservationservice.model.PaymentConfirmationStatus.REJECTED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentStatusCacheTest {
+
+    private static final PaymentStatusResponse CONFIRMED_RESPONSE = new PaymentStatusResponse(null, CONFIRMED);
+    private static final PaymentStatusResponse REJECTED_RESPONSE = new PaymentStatusResponse(null, REJECTED);
+
+    @Mock
+    private CreditCardClient creditCardClient;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PaymentStatusCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(true);
+    }
+
+    @Test
+    void should_callProviderOnce_when_referenceIsVerifiedTwice() {
+        when(creditCardClient.verifyPayment("REF-1")).thenReturn(CONFIRMED_RESPONSE);
+
+        assertThat(cache.verifyPayment("REF-1")).isEqualTo(CONFIRMED_RESPONSE);
+        assertThat(cache.verifyPayment("REF-1")).isEqualTo(CONFIRMED_RESPONSE);
+
+        verify(creditCardClient, times(1)).verifyPayment("REF-1");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "payment-status").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "payment-status").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_expireRejectedBeforeConfirmed_when_ttlsDiffer() {
+        when(creditCardClient.verifyPayment("REF-OK")).thenReturn(CONFIRMED_RESPONSE);
+        when(creditCardClient.verifyPayment("REF-KO")).thenReturn(REJECTED_RESPONSE);
+        cache.verifyPayment("REF-OK");
+        cache.verifyPayment("REF-KO");
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.verifyPayment("REF-OK");
+        cache.verifyPayment("REF-KO");
+
+        verify(creditCardClient, times(1)).verifyPayment("REF-OK");
+        verify(creditCardClient, times(2)).verifyPayment("REF-KO");
+    }
+
+    @Test
+    void should_notCacheFailure_when_providerCallFails() {
+        when(creditCardClient.verifyPayment("REF-500"))
+                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR))
+                .thenReturn(CONFIRMED_RESPONSE);
+
+        assertThatThrownBy(() -> cache.verifyPayment("REF-500")).isInstanceOf(HttpServerErrorException.class);
+        assertThat(cache.verifyPayment("REF-500")).isEqualTo(CONFIRMED_RESPONSE);
+    }
+
+    @Test
+    void should_callProviderAgain_when_referenceWasInvalidated() {
+        when(creditCardClient.verifyPayment("REF-1")).thenReturn(REJECTED_RESPONSE, CONFIRMED_RESPONSE);
+        cache.verifyPayment("REF-1");
+
+        assertThat(new PaymentStatusCacheEndpoint(cache).invalidate("REF-1").invalidated()).isTrue();
+        assertThat(cache.invalidate("REF-1")).isFalse();
+
+        assertThat(cache.verifyPayment("REF-1")).isEqualTo(CONFIRMED_RESPONSE);
+    }
+
+    @Test
+    void should_alwaysCallProvider_when_cacheIsDisabled() {
+        cache = newCache(false);
+        when(creditCardClient.verifyPayment("REF-1")).thenReturn(CONFIRMED_RESPONSE);
+
+        cache.verifyPayment("REF-1");
+        cache.verifyPayment("REF-1");
+
+        verify(creditCardClient, times(2)).verifyPayment("REF-1");
+    }
+
+    @Test
+    void should_shareFailure_when_joinedCallFails() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        when(creditCardClient.verifyPayment("REF-1")).thenAnswer(invocation -> {
+            called.countDown();
+            fail.await(5, TimeUnit.SECONDS);
+            throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        });
+        CompletableFuture<PaymentStatusResponse> leader = CompletableFuture.supplyAsync(() -> cache.verifyPayment("REF-1"));
+        assertThat(called.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<PaymentStatusResponse> joined = CompletableFuture.supplyAsync(() -> cache.verifyPayment("REF-1"));
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                meterRegistry.get("credit-card.verification.coalesced").counter().count() == 1);
+        fail.countDown();
+
+        assertThatThrownBy(() -> joined.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpServerErrorException.class);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpServerErrorException.class);
+        verify(creditCardClient, times(1)).verifyPayment("REF-1");
+    }
+
+    @Test
+    void should_callAgain_when_joinedCallRanOutOfTheLeadersDeadline() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        when(creditCardClient.verifyPayment("REF-1")).thenAnswer(invocation -> {
+            called.countDown();
+            fail.await(5, TimeUnit.SECONDS);
+            throw new DeadlineExceededException("Request deadline passed calling the credit card service");
+        }).thenReturn(CONFIRMED_RESPONSE);
+        CompletableFuture<PaymentStatusResponse> leader = CompletableFuture.supplyAsync(() -> cache.verifyPayment("REF-1"));
+        assertThat(called.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<PaymentStatusResponse> joined = CompletableFuture.supplyAsync(() -> cache.verifyPayment("REF-1"));
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                meterRegistry.get("credit-card.verification.coalesced").counter().count() == 1);
+        fail.countDown();
+
+        assertThat(joined.get(5, TimeUnit.SECONDS)).isEqualTo(CONFIRMED_RESPONSE);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DeadlineExceededException.class);
+        verify(creditCardClient, times(2)).verifyPayment("REF-1");
+        assertThat(meterRegistry.get("credit-card.verification.coalesced.retries").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_giveUpAlone_when_joinedCallWaitsLongerThanItsMaxWait() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        when(creditCardClient.verifyPayment("REF-1")).thenAnswer(invocation -> {
+            called.countDown();
+            answer.await(5, TimeUnit.SECONDS);
+            return CONFIRMED_RESPONSE;
+        });
+        CompletableFuture<PaymentStatusResponse> leader = CompletableFuture.supplyAsync(() -> cache.verifyPayment("REF-1"));
+        assertThat(called.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> cache.verifyPayment("REF-1"))
+                .isInstanceOf(CreditCardServiceUnavailableException.class);
+        answer.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(CONFIRMED_RESPONSE);
+        assertThat(meterRegistry.get("credit-card.verification.coalesced.timeouts").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("credit-card.verification.in-flight").gauge().value()).isZero();
+    }
+
+    private PaymentStatusCache newCache(boolean enabled) {
+        return new PaymentStatusCache(creditCardClient, enabled, 100, Duration.ofMinutes(10), Duration.ofMinutes(1),
+                Duration.ofMillis(200), meterRegistry, nanos::get);
+    }
+}
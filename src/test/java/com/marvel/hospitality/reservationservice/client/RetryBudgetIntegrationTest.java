@@ -0,0 +1,69 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.HttpServerErrorException;
+import org.wiremock.spring.ConfigureWireMock;
+import org.wiremock.spring.EnableWireMock;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The circuit breaker is kept closed so the budget alone bounds the upstream traffic.
+ */
+@SpringBootTest(properties = {
+        "app.kafka.enabled=false",
+        "credit-card-service.retry-budget.ratio=0.1",
+        "credit-card-service.retry-budget.max-balance=2",
+        "resilience4j.retry.instances.creditCard.waitDuration=10ms",
+        "resilience4j.circuitbreaker.instances.creditCard.slidingWindowSize=1000",
+        "resilience4j.circuitbreaker.instances.creditCard.minimumNumberOfCalls=1000"
+})
+@EnableWireMock(@ConfigureWireMock(name = "credit-card-payment-server", port = 9090, registerSpringBean = true))
+@ActiveProfiles("test")
+class RetryBudgetIntegrationTest {
+
+    private static final int CALLS = 40;
+
+    @Autowired
+    private CreditCardClient creditCardClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Qualifier("credit-card-payment-server")
+    @Autowired
+    private WireMockServer wireMockServer;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer.resetAll();
+    }
+
+    @Test
+    void should_boundUpstreamRequests_when_providerKeepsFailing() {
+        wireMockServer.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .willReturn(aResponse().withStatus(503)));
+
+        for (int i = 0; i < CALLS; i++) {
+            String reference = "REF-BROWNOUT-" + i;
+            assertThatThrownBy(() -> creditCardClient.verifyPayment(reference))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+
+        // three attempts per call would be 120 requests; the budget pays for max-balance + 10% of first attempts
+        int upstreamRequests = wireMockServer.findAll(postRequestedFor(urlPathMatching("/credit-card-payment-api/.*"))).size();
+        assertThat(upstreamRequests).isBetween(CALLS + 1, CALLS + 2 + CALLS / 10);
+        assertThat(meterRegistry.get("credit-card.retry.budget.exhausted").counter().count()).isPositive();
+    }
+}
@@ -0,0 +1,63 @@
+package com.marvel.hospitality.reservationservice.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    private static final Predicate<Throwable> RETRYABLE = e -> e instanceof IllegalStateException;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void should_allowOneRetryPerTenFirstAttempts_when_budgetIsSpent() {
+        RetryBudget budget = new RetryBudget(true, 0.1, 2, meterRegistry);
+        Predicate<Throwable> gate = budget.gate(RETRYABLE);
+        budget.recordAttempt();
+        assertThat(gate.test(new IllegalStateException())).isTrue();
+        assertThat(gate.test(new IllegalStateException())).isFalse();
+
+        for (int i = 0; i < 10; i++) {
+            budget.recordAttempt();
+        }
+
+        assertThat(gate.test(new IllegalStateException())).isTrue();
+        assertThat(gate.test(new IllegalStateException())).isFalse();
+        assertThat(meterRegistry.get("credit-card.retry.budget.exhausted").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void should_notSpendBudget_when_failureIsNotRetryable() {
+        RetryBudget budget = new RetryBudget(true, 0.1, 2, meterRegistry);
+
+        assertThat(budget.gate(RETRYABLE).test(new IllegalArgumentException())).isFalse();
+
+        assertThat(budget.balance()).isEqualTo(2);
+    }
+
+    @Test
+    void should_capBalance_when_trafficIsQuietForLong() {
+        RetryBudget budget = new RetryBudget(true, 0.1, 2, meterRegistry);
+
+        for (int i = 0; i < 1000; i++) {
+            budget.recordAttempt();
+        }
+        budget.refund();
+
+        assertThat(budget.balance()).isEqualTo(2);
+        assertThat(meterRegistry.get("credit-card.retry.budget.balance").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void should_alwaysRetry_when_budgetIsDisabled() {
+        RetryBudget budget = new RetryBudget(false, 0.1, 0, meterRegistry);
+
+        assertThat(budget.gate(RETRYABLE).test(new IllegalStateException())).isTrue();
+        assertThat(budget.gate(RETRYABLE).test(new IllegalArgumentException())).isFalse();
+    }
+}
@@ -0,0 +1,58 @@
+package com.marvel.hospitality.reservationservice.config;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.marvel.hospitality.reservationservice.client.CreditCardClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.wiremock.spring.ConfigureWireMock;
+import org.wiremock.spring.EnableWireMock;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.kafka.enabled=false",
+        "credit-card-service.http.warm-up-connections=3"
+})
+@EnableWireMock(@ConfigureWireMock(name = "credit-card-payment-server", port = 9090, registerSpringBean = true))
+@ActiveProfiles("test")
+class CreditCardConnectionPoolIntegrationTest {
+
+    @Autowired
+    private CreditCardClient creditCardClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Qualifier("credit-card-payment-server")
+    @Autowired
+    private WireMockServer wireMockServer;
+
+    @Test
+    void should_reuseWarmedUpConnections_when_firstCallIsMade() {
+        assertThat(connections("available")).isEqualTo(3);
+        wireMockServer.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"status\": \"CONFIRMED\"}")));
+
+        creditCardClient.verifyPayment("REF-WARM-UP");
+
+        assertThat(connections("available")).isEqualTo(3);
+        assertThat(connections("leased")).isZero();
+        assertThat(meterRegistry.get("credit-card.http.pool.lease-wait").tag("outcome", "acquired").timer().count())
+                .isEqualTo(1);
+    }
+
+    private double connections(String state) {
+        return meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", CreditCardConnectionPool.NAME)
+                .tag("state", state)
+                .gauge().value();
+    }
+}
@@ -1,8 +1,13 @@
 package com.marvel.hospitality.reservationservice.controller;
 
 import com.marvel.hospitality.reservationservice.dto.ReservationResponse;
+import com.marvel.hospitality.reservationservice.dto.RoomAvailabilityResponse;
+import com.marvel.hospitality.reservationservice.exception.CreditCardServiceUnavailableException;
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
 import com.marvel.hospitality.reservationservice.exception.ReservationConflictException;
 import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+import com.marvel.hospitality.reservationservice.service.RequestDeadlines;
 import com.marvel.hospitality.reservationservice.service.ReservationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,12 +15,26 @@ import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ReservationController.class)
@@ -27,12 +46,15 @@ class ReservationControllerTest {
     @MockitoBean
     private ReservationService service;
 
+    @MockitoBean
+    private RequestDeadlines deadlines;
+
     @Test
     void should_returnCreated_when_reservationIsSuccessful() throws Exception {
-        when(service.createReservation(any()))
-                .thenReturn(new ReservationResponse("ID123", ReservationStatus.CONFIRMED));
+        when(service.submitReservation(any())).thenReturn(
+                CompletableFuture.completedFuture(new ReservationResponse("ID123", ReservationStatus.CONFIRMED)));
 
-        mockMvc.perform(post("/reservations")
+        performAsync(post("/reservations")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("""
                 {
@@ -67,7 +89,7 @@ class ReservationControllerTest {
 
     @Test
     void should_returnInternalServerError_when_serviceThrowsUnexpectedException() throws Exception {
-        when(service.createReservation(any()))
+        when(service.submitReservation(any()))
                 .thenThrow(new RuntimeException("UnexpectedException"));
 
         mockMvc.perform(post("/reservations")
@@ -89,14 +111,14 @@ class ReservationControllerTest {
     @Test
     void shouldReturn409Conflict_whenAttemptingToBookOverlappingRoom() throws Exception {
 
-        when(service.createReservation(any()))
+        when(service.submitReservation(any()))
                 .thenThrow(new ReservationConflictException("already booked"));
         String payload = """
             {
                 "customerName": "First Guest",
                 "roomNumber": "101",
-                "startDate": "2026-03-01",
-                "endDate": "2026-03-05",
+                "startDate": "2100-03-01",
+                "endDate": "2100-03-05",
                 "segment": "MEDIUM",
                 "paymentMode": "CASH"
             }
@@ -109,4 +131,95 @@ class ReservationControllerTest {
                 .andExpect(jsonPath("$.detail").value(containsString("already booked")));
     }
 
-}
\ No newline at end of file
+    @Test
+    void should_returnGatewayTimeout_when_requestDeadlinePasses() throws Exception {
+        when(service.submitReservation(any())).thenReturn(CompletableFuture.failedFuture(
+                new DeadlineExceededException("Request deadline passed before credit card call")));
+
+        performAsync(post("/reservations")
+                        .header("X-Request-Timeout", "1500")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                {
+                    "customerName":"Seif",
+                    "roomNumber":"101",
+                    "startDate":"2100-02-01",
+                    "endDate":"2100-02-05",
+                    "segment":"MEDIUM",
+                    "paymentMode":"CREDIT_CARD",
+                    "paymentReference":"PAYREF-1"
+                }"""))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.detail").value(containsString("credit card call")));
+
+        verify(deadlines).start(Duration.ofMillis(1500));
+    }
+
+    @Test
+    void should_returnServiceUnavailable_when_cardVerificationExceedsLatencyBudget() throws Exception {
+        when(service.submitReservation(any())).thenReturn(CompletableFuture.failedFuture(
+                new CreditCardServiceUnavailableException("Credit card service did not answer within the latency budget",
+                        new TimeoutException())));
+
+        performAsync(post("/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                {
+                    "customerName":"Seif",
+                    "roomNumber":"101",
+                    "startDate":"2100-02-01",
+                    "endDate":"2100-02-05",
+                    "segment":"MEDIUM",
+                    "paymentMode":"CREDIT_CARD",
+                    "paymentReference":"PAYREF-1"
+                }"""))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.cause").value(containsString("latency budget")));
+    }
+
+    @Test
+    void should_returnFreeRooms_when_availabilityIsRequested() throws Exception {
+        LocalDate from = LocalDate.of(2100, 3, 1);
+        LocalDate to = LocalDate.of(2100, 3, 5);
+        when(service.findAvailableRooms(RoomSegment.MEDIUM, from, to))
+                .thenReturn(new RoomAvailabilityResponse(RoomSegment.MEDIUM, from, to, List.of("101", "204")));
+
+        mockMvc.perform(get("/reservations/availability")
+                        .param("from", "2100-03-01")
+                        .param("to", "2100-03-05")
+                        .param("segment", "MEDIUM"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.segment").value("MEDIUM"))
+                .andExpect(jsonPath("$.availableRooms[0]").value("101"))
+                .andExpect(jsonPath("$.availableRooms[1]").value("204"));
+    }
+
+    @Test
+    void should_returnBadRequest_when_availabilitySegmentIsUnknown() throws Exception {
+        mockMvc.perform(get("/reservations/availability")
+                        .param("from", "2100-03-01")
+                        .param("to", "2100-03-05")
+                        .param("segment", "HUGE"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void should_returnBadRequest_when_availabilityParameterIsMissing() throws Exception {
+        mockMvc.perform(get("/reservations/availability")
+                        .param("from", "2100-03-01")
+                        .param("segment", "MEDIUM"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value(containsString("to")));
+    }
+
+    /** Performs a request whose handler answers asynchronously, then dispatches its result. */
+    private ResultActions performAsync(RequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+}
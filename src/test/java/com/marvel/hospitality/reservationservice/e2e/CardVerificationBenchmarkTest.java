@@ -0,0 +1,211 @@
+package com.marvel.hospitality.reservationservice.e2e;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.marvel.hospitality.reservationservice.dto.ReservationRequest;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.marvel.hospitality.reservationservice.service.RoomAvailabilityService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static com.marvel.hospitality.reservationservice.model.PaymentMode.CREDIT_CARD;
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Card bookings against a payment provider in a brownout, answering in {@value #PROVIDER_DELAY_MS} ms, with the
+ * request thread blocked on the provider versus verification on virtual threads. With 200 Tomcat threads the blocking
+ * setup tops out at 200 / delay requests per second whatever the CPU; on virtual threads the ceiling is the CPU.
+ * Client, service and stub share the machine, so run it on a few cores: on a single core both modes end up CPU-bound.
+ * Skipped by the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = {
+        "app.kafka.enabled=false",
+        "server.tomcat.threads.max=200",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "credit-card-service.http.max-connections=1000",
+        "credit-card-service.http.max-connections-per-route=1000",
+        "credit-card-service.concurrency.enabled=false"
+})
+class CardVerificationBenchmarkTest {
+
+    private static final int PROVIDER_DELAY_MS = 2_000;
+    private static final int CONCURRENCY = 500;
+    private static final int WARM_UP_REQUESTS = 200;
+    private static final int MEASURED_REQUESTS = 2_000;
+
+    private static final Map<String, Result> results = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static WireMockServer provider;
+
+    @BeforeAll
+    static void startProvider() {
+        provider = new WireMockServer(options().port(9090)
+                .containerThreads(2 * CONCURRENCY)
+                .jettyAcceptors(4)
+                .jettyAcceptQueueSize(2 * CONCURRENCY)
+                .disableRequestJournal());
+        provider.start();
+        provider.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .willReturn(aResponse().withStatus(200)
+                        .withFixedDelay(PROVIDER_DELAY_MS)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"status\": \"CONFIRMED\"}")));
+    }
+
+    @AfterAll
+    static void report() {
+        provider.stop();
+        System.out.printf("%nCard verification benchmark - provider delay %d ms, %d concurrent clients, %d requests%n",
+                PROVIDER_DELAY_MS, CONCURRENCY, MEASURED_REQUESTS);
+        System.out.printf("%-16s %12s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "errors");
+        results.forEach((mode, result) -> System.out.printf("%-16s %12.1f %10d %10d %8d%n",
+                mode, result.throughput(), result.p50Millis(), result.p99Millis(), result.errors()));
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"credit-card-service.execution.mode=BLOCKING"})
+    @ActiveProfiles("test")
+    class Blocking extends Scenario {
+
+        Blocking() {
+            super("BLOCKING");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"credit-card-service.execution.mode=VIRTUAL_THREADS",
+                    "spring.threads.virtual.enabled=true"})
+    @ActiveProfiles("test")
+    class VirtualThreads extends Scenario {
+
+        VirtualThreads() {
+            super("VIRTUAL_THREADS");
+        }
+    }
+
+    abstract static class Scenario {
+
+        private final String mode;
+        private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        private final AtomicInteger rooms = new AtomicInteger();
+
+        @LocalServerPort
+        private int port;
+        @Autowired
+        private ReservationRepository repository;
+        @Autowired
+        private RoomAvailabilityService roomAvailability;
+
+        Scenario(String mode) {
+            this.mode = mode;
+        }
+
+        @BeforeEach
+        void setUp() {
+            repository.deleteAll();
+            roomAvailability.reload();
+        }
+
+        @Test
+        void benchmark() throws Exception {
+            try (HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build()) {
+                drive(client, WARM_UP_REQUESTS);
+                long start = System.nanoTime();
+                Result result = drive(client, MEASURED_REQUESTS);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                results.put(mode, result.withThroughput(MEASURED_REQUESTS / seconds));
+                assertThat(result.errors()).isLessThan(MEASURED_REQUESTS / 100);
+            }
+        }
+
+        private Result drive(HttpClient client, int requests) throws Exception {
+            Semaphore inFlight = new Semaphore(CONCURRENCY);
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger errors = new AtomicInteger();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < requests; i++) {
+                    inFlight.acquire();
+                    HttpRequest request = booking("B" + rooms.incrementAndGet());
+                    clients.submit(() -> {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 201) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        } finally {
+                            latencies.add(System.nanoTime() - sent);
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+            return Result.of(latencies, errors.get());
+        }
+
+        private HttpRequest booking(String room) throws Exception {
+            ReservationRequest body = new ReservationRequest("Benchmark Guest", room, LocalDate.of(2100, 8, 1),
+                    LocalDate.of(2100, 8, 3), MEDIUM, CREDIT_CARD, "PAYREF-" + room);
+            return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/reservations"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        }
+    }
+
+    record Result(double throughput, long p50Millis, long p99Millis, int errors) {
+
+        static Result of(List<Long> latencies, int errors) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return new Result(0, percentile(sorted, 0.50), percentile(sorted, 0.99), errors);
+        }
+
+        Result withThroughput(double throughput) {
+            return new Result(throughput, p50Millis, p99Millis, errors);
+        }
+
+        private static long percentile(List<Long> sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+            return Duration.ofNanos(sorted.get(Math.max(index, 0))).toMillis();
+        }
+    }
+}
@@ -2,13 +2,16 @@ package com.marvel.hospitality.reservationservice.e2e;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
+import com.marvel.hospitality.reservationservice.client.PaymentStatusCache;
 import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
 import com.marvel.hospitality.reservationservice.dto.ReservationRequest;
+import com.marvel.hospitality.reservationservice.dto.RoomAvailabilityResponse;
 import com.marvel.hospitality.reservationservice.entity.Reservation;
 import com.marvel.hospitality.reservationservice.model.PaymentMode;
 import com.marvel.hospitality.reservationservice.model.ReservationStatus;
 import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
 import com.marvel.hospitality.reservationservice.scheduler.ReservationScheduler;
+import com.marvel.hospitality.reservationservice.service.RoomAvailabilityService;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
@@ -74,6 +77,12 @@ class FullFlowE2ETest {
     @Autowired
     private CircuitBreakerRegistry circuitBreakerRegistry;
 
+    @Autowired
+    private RoomAvailabilityService roomAvailability;
+
+    @Autowired
+    private PaymentStatusCache paymentStatusCache;
+
 
     @Qualifier("credit-card-payment-server")
     @Autowired
@@ -84,7 +93,9 @@ class FullFlowE2ETest {
         restTemplate.getRestTemplate().setRequestFactory(new SimpleClientHttpRequestFactory());
         wireMockServer.resetAll();
         circuitBreakerRegistry.circuitBreaker("creditCard").reset();
+        paymentStatusCache.invalidateAll();
         repository.deleteAll();
+        roomAvailability.reload();
     }
 
     @Test
@@ -160,7 +171,8 @@ class FullFlowE2ETest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         assertThat(response.getBody()).contains("The card payment was REJECTED");
 
-        assertThat(repository.findAll()).noneMatch(r -> r.getCustomerName().equals("Charlie Reject"));
+        assertThat(repository.findAll()).filteredOn(r -> r.getCustomerName().equals("John Card"))
+                .extracting(Reservation::getStatus).containsExactly(ReservationStatus.CANCELLED);
     }
 
 
@@ -197,6 +209,22 @@ class FullFlowE2ETest {
         assertThat(cancelled.getStatus()).isEqualTo(ReservationStatus.CANCELLED);
     }
 
+    @Test
+    void should_cancelOnNextSweep_when_bankTransferIsBookedAfterItsPaymentDeadline() {
+        var request = new ReservationRequest("Late payer", "404", LocalDate.now().plusDays(1),
+                LocalDate.now().plusDays(3), MEDIUM, BANK_TRANSFER, null);
+
+        var response = restTemplate.postForEntity("/reservations", request, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        scheduler.cancelOverdueBankTransferReservations();
+
+        Reservation late = repository.findAll().getFirst();
+        assertThat(late.getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+        assertThat(roomAvailability.hasOverlap("404", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3)))
+                .isFalse();
+    }
+
     @Test
     void should_returnServiceUnavailable_when_circuitBreakerOpensDueToConsecutiveFailures() throws InterruptedException {
 
@@ -215,7 +243,8 @@ class FullFlowE2ETest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
         assertThat(response.getBody()).contains("Try Later - credit card service temporarily unavailable");
 
-        assertThat(repository.findAll()).noneMatch(r -> r.getCustomerName().equals("John circuit"));
+        assertThat(repository.findAll()).filteredOn(r -> r.getCustomerName().equals("John circuit"))
+                .extracting(Reservation::getStatus).containsOnly(ReservationStatus.CANCELLED);
     }
 
     @Test
@@ -232,7 +261,8 @@ class FullFlowE2ETest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
         assertThat(response.getBody()).contains("Try Later - credit card service temporarily unavailable");
 
-        assertThat(repository.findAll()).noneMatch(r -> r.getCustomerName().equals("John Unavailable"));
+        assertThat(repository.findAll()).filteredOn(r -> r.getCustomerName().equals("John Unavailable"))
+                .extracting(Reservation::getStatus).containsOnly(ReservationStatus.CANCELLED);
     }
 
     @Test
@@ -249,7 +279,8 @@ class FullFlowE2ETest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         assertThat(response.getBody()).contains("Payment Reference was not found or invalid");
 
-        assertThat(repository.findAll()).noneMatch(r -> r.getCustomerName().equals("John NotFound"));
+        assertThat(repository.findAll()).filteredOn(r -> r.getCustomerName().equals("John NotFound"))
+                .extracting(Reservation::getStatus).containsOnly(ReservationStatus.CANCELLED);
     }
 
     @Test
@@ -319,4 +350,22 @@ class FullFlowE2ETest {
 
         assertThat(repository.findAll()).hasSize(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_listOnlyFreeRooms_when_searchingAvailabilityOfSegment() {
+        restTemplate.postForEntity("/reservations", new ReservationRequest("First Guest", "101",
+                LocalDate.of(2100, 3, 1), LocalDate.of(2100, 3, 5), MEDIUM, CASH, null), String.class);
+        restTemplate.postForEntity("/reservations", new ReservationRequest("Second Guest", "102",
+                LocalDate.of(2100, 3, 5), LocalDate.of(2100, 3, 8), MEDIUM, CASH, null), String.class);
+        restTemplate.postForEntity("/reservations", new ReservationRequest("Third Guest", "201",
+                LocalDate.of(2100, 4, 1), LocalDate.of(2100, 4, 2), LARGE, CASH, null), String.class);
+
+        var response = restTemplate.getForEntity(
+                "/reservations/availability?from=2100-03-03&to=2100-03-05&segment=MEDIUM",
+                RoomAvailabilityResponse.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().availableRooms()).containsExactly("102");
+    }
+}
@@ -0,0 +1,203 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumerLagMetricsTest {
+
+    private static final String GROUP = "reservation-group";
+    private static final String TOPIC = "payments";
+    private static final List<String> TOPICS = List.of(TOPIC);
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+    @Mock
+    private Admin admin;
+    @Mock
+    private DescribeTopicsResult topicsResult;
+    @Mock
+    private ListConsumerGroupOffsetsResult committedResult;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConsumerLagMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new ConsumerLagMetrics(() -> admin, GROUP, TOPICS, Duration.ofHours(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        metrics.stop();
+        metrics.shutdown();
+    }
+
+    @Test
+    void should_publishEndMinusCommittedPerPartition_when_refreshed() {
+        partitions();
+        committed(Map.of(P0, new OffsetAndMetadata(40), P1, new OffsetAndMetadata(7)));
+        offsets(Map.of(), Map.of(P0, 100L, P1, 7L));
+
+        metrics.start();
+
+        await().atMost(5, SECONDS).ignoreExceptions().untilAsserted(() -> {
+            assertThat(lag(P0)).isEqualTo(60);
+            assertThat(lag(P1)).isZero();
+        });
+    }
+
+    @Test
+    void should_measureFromEarliestOffset_when_partitionWasNeverCommitted() {
+        partitions();
+        Map<TopicPartition, OffsetAndMetadata> committed = new HashMap<>();
+        committed.put(P1, null);
+        committed(committed);
+        offsets(Map.of(P0, 10L, P1, 0L), Map.of(P0, 12L, P1, 3L));
+
+        metrics.start();
+
+        await().atMost(5, SECONDS).ignoreExceptions().untilAsserted(() -> {
+            assertThat(lag(P0)).isEqualTo(2);
+            assertThat(lag(P1)).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void should_skipPartition_when_itsOffsetsAreUnknown() {
+        partitions();
+        committed(Map.of(P1, new OffsetAndMetadata(3)));
+        offsets(Map.of(), Map.of(P0, 5L));
+
+        metrics.start();
+
+        verify(admin, timeout(5_000).times(2)).listOffsets(anyMap());
+        assertThat(meterRegistry.find("payment-updates.consumer.lag").gauges()).isEmpty();
+    }
+
+    @Test
+    void should_keepPreviousLag_when_brokersDoNotAnswer() {
+        partitions();
+        when(admin.listConsumerGroupOffsets(GROUP)).thenReturn(committedResult);
+        when(committedResult.partitionsToOffsetAndMetadata())
+                .thenReturn(KafkaFuture.completedFuture(Map.of(P0, new OffsetAndMetadata(1), P1, new OffsetAndMetadata(0))))
+                .thenReturn(failed());
+        offsets(Map.of(), Map.of(P0, 5L, P1, 0L));
+        metrics.start();
+        await().atMost(5, SECONDS).ignoreExceptions().until(() -> lag(P0) == 4);
+
+        assertThatCode(metrics::refresh).doesNotThrowAnyException();
+        assertThat(lag(P0)).isEqualTo(4);
+    }
+
+    @Test
+    void should_keepRefreshing_when_aRefreshThrows() {
+        when(admin.describeTopics(TOPICS)).thenThrow(new IllegalStateException("admin closed"));
+
+        metrics.start();
+
+        verify(admin, timeout(5_000)).describeTopics(TOPICS);
+        assertThat(metrics.isRunning()).isTrue();
+    }
+
+    @Test
+    void should_closeAdmin_when_stopped() {
+        when(admin.describeTopics(TOPICS)).thenReturn(topicsResult);
+        when(topicsResult.allTopicNames()).thenReturn(KafkaFuture.completedFuture(Map.of()));
+        committed(Map.of());
+        metrics.start();
+        metrics.start();
+        verify(admin, timeout(5_000)).listConsumerGroupOffsets(GROUP);
+
+        metrics.stop();
+
+        assertThat(metrics.isRunning()).isFalse();
+        verify(admin).close();
+    }
+
+    @Test
+    void should_restoreInterrupt_when_interruptedWhileWaiting() {
+        when(admin.describeTopics(TOPICS)).thenReturn(topicsResult);
+        when(topicsResult.allTopicNames()).thenReturn(new KafkaFutureImpl<>());
+        metrics.start();
+
+        Thread.currentThread().interrupt();
+        metrics.refresh();
+
+        assertThat(Thread.interrupted()).isTrue();
+    }
+
+    private void partitions() {
+        List<TopicPartitionInfo> infos = List.of(
+                new TopicPartitionInfo(0, null, List.of(), List.of()),
+                new TopicPartitionInfo(1, null, List.of(), List.of()));
+        when(admin.describeTopics(TOPICS)).thenReturn(topicsResult);
+        when(topicsResult.allTopicNames())
+                .thenReturn(KafkaFuture.completedFuture(Map.of(TOPIC, new TopicDescription(TOPIC, false, infos))));
+    }
+
+    private void committed(Map<TopicPartition, OffsetAndMetadata> committed) {
+        when(admin.listConsumerGroupOffsets(GROUP)).thenReturn(committedResult);
+        when(committedResult.partitionsToOffsetAndMetadata()).thenReturn(KafkaFuture.completedFuture(committed));
+    }
+
+    /** Answers each requested partition from {@code earliest} or {@code latest}, depending on the asked spec. */
+    private void offsets(Map<TopicPartition, Long> earliest, Map<TopicPartition, Long> latest) {
+        when(admin.listOffsets(anyMap())).thenAnswer(invocation -> {
+            Map<TopicPartition, OffsetSpec> specs = invocation.getArgument(0);
+            Map<TopicPartition, KafkaFuture<ListOffsetsResultInfo>> futures = new HashMap<>();
+            specs.forEach((partition, spec) -> {
+                Long offset = (spec instanceof OffsetSpec.EarliestSpec ? earliest : latest).get(partition);
+                if (offset != null) {
+                    futures.put(partition, KafkaFuture.completedFuture(
+                            new ListOffsetsResultInfo(offset, -1, Optional.empty())));
+                }
+            });
+            return new ListOffsetsResult(futures);
+        });
+    }
+
+    private static <T> KafkaFuture<T> failed() {
+        KafkaFutureImpl<T> future = new KafkaFutureImpl<>();
+        future.completeExceptionally(new IllegalStateException("broker unavailable"));
+        return future;
+    }
+
+    private double lag(TopicPartition partition) {
+        return meterRegistry.get("payment-updates.consumer.lag")
+                .tag("topic", partition.topic())
+                .tag("partition", String.valueOf(partition.partition()))
+                .gauge().value();
+    }
+}
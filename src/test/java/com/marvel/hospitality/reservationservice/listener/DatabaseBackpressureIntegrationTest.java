@@ -0,0 +1,97 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * A zero pause latency makes every probe count as saturation: the consumers pause and the lag builds up.
+ */
+@SpringBootTest(properties = {
+        "spring.kafka.backpressure.enabled=true",
+        "spring.kafka.backpressure.pause-latency=0ms",
+        "spring.kafka.backpressure.check-interval=100ms",
+        "spring.kafka.lag-metrics.interval=200ms"})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = DatabaseBackpressureIntegrationTest.MAIN_TOPIC)
+@DirtiesContext
+class DatabaseBackpressureIntegrationTest {
+
+    static final String MAIN_TOPIC = "bank-transfer-payment-update";
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Autowired
+    private ReservationRepository repository;
+    @Autowired
+    private ProcessedPaymentRepository processedPayments;
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+    @Autowired
+    private DatabaseBackpressure backpressure;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        processedPayments.deleteAll();
+    }
+
+    @Test
+    void saturatedDatabase_pausesConsumersWhileLagBuildsUp() throws Exception {
+        await().atMost(15, SECONDS).until(() -> backpressure.isPaused()
+                && registry.getListenerContainers().stream().allMatch(MessageListenerContainer::isContainerPaused));
+        saveReservation("PRES0001");
+
+        sendEvent("pay-p1", "PRES0001");
+        sendEvent("pay-p2", "PRES0001");
+
+        await().atMost(10, SECONDS).ignoreExceptions().untilAsserted(() ->
+                assertThat(meterRegistry.get("payment-updates.consumer.lag")
+                        .tag("topic", MAIN_TOPIC).tag("partition", "0").gauge().value()).isEqualTo(2));
+        assertThat(repository.findById("PRES0001").get().getStatus()).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+        assertThat(meterRegistry.get("payment-updates.backpressure").tag("action", "pause").counter().count())
+                .isEqualTo(1);
+    }
+
+    private void saveReservation(String id) {
+        repository.save(Reservation.builder()
+                .id(id)
+                .roomNumber("101")
+                .startDate(LocalDate.of(2100, 1, 1))
+                .endDate(LocalDate.of(2100, 1, 5))
+                .status(ReservationStatus.PENDING_PAYMENT)
+                .paymentMode(PaymentMode.BANK_TRANSFER)
+                .build());
+    }
+
+    private void sendEvent(String paymentId, String reservationId) throws Exception {
+        PaymentUpdateEvent event = new PaymentUpdateEvent(paymentId, "ACC-1", BigDecimal.TEN, "E2E1234567 " + reservationId);
+        kafkaTemplate.send(MAIN_TOPIC, reservationId, objectMapper.writeValueAsString(event)).get();
+    }
+}
@@ -0,0 +1,230 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.config.PaymentUpdateRetryContainers;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseBackpressureTest {
+
+    @Mock
+    private HikariDataSource dataSource;
+    @Mock
+    private HikariPoolMXBean pool;
+    @Mock
+    private Connection connection;
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+    @Mock
+    private PaymentUpdateRetryContainers retryContainers;
+    @Mock
+    private MessageListenerContainer mainContainer;
+    @Mock
+    private ConcurrentMessageListenerContainer<String, byte[]> retryContainer;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DatabaseBackpressure backpressure;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        lenient().when(dataSource.unwrap(HikariDataSource.class)).thenReturn(dataSource);
+        lenient().when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        lenient().when(dataSource.getConnection()).thenReturn(connection);
+        lenient().when(connection.isValid(anyInt())).thenReturn(true);
+        lenient().when(registry.getListenerContainers()).thenReturn(List.of(mainContainer));
+        lenient().when(retryContainers.containers()).thenReturn(List.of(retryContainer));
+        backpressure = newBackpressure(dataSource, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backpressure.stop();
+        backpressure.shutdown();
+    }
+
+    @Test
+    void should_pauseWithoutProbing_when_threadsWaitForConnections() throws SQLException {
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5);
+
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isTrue();
+        verify(mainContainer).pause();
+        verify(retryContainer).pause();
+        verify(dataSource, never()).getConnection();
+        assertThat(transitions("pause")).isEqualTo(1);
+        assertThat(meterRegistry.get("payment-updates.backpressure.paused").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void should_pause_when_databaseProbeIsSlow() throws SQLException {
+        when(dataSource.getConnection()).thenAnswer(i -> {
+            Thread.sleep(60);
+            return connection;
+        });
+
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isTrue();
+        assertThat(meterRegistry.get("payment-updates.backpressure.db-probe").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_pause_when_databaseIsUnreachable() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isTrue();
+    }
+
+    @Test
+    void should_pause_when_connectionIsNotValid() throws SQLException {
+        when(connection.isValid(anyInt())).thenReturn(false);
+
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isTrue();
+    }
+
+    @Test
+    void should_keepConsuming_when_databaseIsHealthy() {
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isFalse();
+        verify(mainContainer, never()).pause();
+        assertThat(meterRegistry.get("payment-updates.backpressure.paused").gauge().value()).isZero();
+    }
+
+    @Test
+    void should_stayPaused_until_pressureDropsUnderResumeThresholds() {
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5, 3, 0);
+
+        backpressure.sample();
+        backpressure.sample();
+        assertThat(backpressure.isPaused()).isTrue();
+        verify(mainContainer, never()).resume();
+
+        backpressure.sample();
+        assertThat(backpressure.isPaused()).isFalse();
+        verify(mainContainer).resume();
+        verify(retryContainer).resume();
+        assertThat(transitions("pause")).isEqualTo(1);
+        assertThat(transitions("resume")).isEqualTo(1);
+    }
+
+    @Test
+    void should_stayPaused_when_probeIsOverResumeLatency() throws SQLException {
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5, 0);
+        when(dataSource.getConnection()).thenAnswer(i -> {
+            Thread.sleep(30);
+            return connection;
+        });
+
+        backpressure.sample();
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isTrue();
+        verify(mainContainer, never()).resume();
+    }
+
+    @Test
+    void should_stayPaused_until_minPauseElapsed() {
+        backpressure = newBackpressure(dataSource, Duration.ofHours(1));
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5, 0);
+
+        backpressure.sample();
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isTrue();
+        verify(mainContainer, times(1)).pause();
+    }
+
+    @Test
+    void should_probeOnly_when_dataSourceIsNotHikari() throws SQLException {
+        DataSource plain = mock(DataSource.class);
+        when(plain.getConnection()).thenReturn(connection);
+        backpressure = newBackpressure(plain, Duration.ZERO);
+
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isFalse();
+        verifyNoInteractions(pool);
+    }
+
+    @Test
+    void should_probeOnly_when_dataSourceCannotBeUnwrapped() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.isWrapperFor(HikariDataSource.class)).thenThrow(new SQLException("closed"));
+        when(broken.getConnection()).thenReturn(connection);
+        backpressure = newBackpressure(broken, Duration.ZERO);
+
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isFalse();
+    }
+
+    @Test
+    void should_countWaitingThreadsAsNone_when_poolIsNotStarted() {
+        when(dataSource.getHikariPoolMXBean()).thenReturn(null);
+
+        backpressure.sample();
+
+        assertThat(backpressure.isPaused()).isFalse();
+    }
+
+    @Test
+    void should_sampleOnSchedule_when_started() {
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5);
+
+        backpressure.start();
+        backpressure.start();
+
+        assertThat(backpressure.isRunning()).isTrue();
+        await().atMost(5, SECONDS).until(backpressure::isPaused);
+        backpressure.stop();
+        assertThat(backpressure.isRunning()).isFalse();
+    }
+
+    @Test
+    void should_keepSampling_when_aCheckFails() {
+        when(pool.getThreadsAwaitingConnection()).thenThrow(new IllegalStateException("pool closed")).thenReturn(5);
+
+        backpressure.start();
+
+        await().atMost(5, SECONDS).until(backpressure::isPaused);
+    }
+
+    private DatabaseBackpressure newBackpressure(DataSource source, Duration minPause) {
+        return new DatabaseBackpressure(source, registry, retryContainers, 5, 1, Duration.ofMillis(50),
+                Duration.ofMillis(20), minPause, Duration.ofMillis(10), meterRegistry);
+    }
+
+    private double transitions(String action) {
+        return meterRegistry.get("payment-updates.backpressure").tag("action", action).counter().count();
+    }
+}
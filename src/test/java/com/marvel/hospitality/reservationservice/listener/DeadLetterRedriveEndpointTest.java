@@ -0,0 +1,63 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.Criteria;
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.Progress;
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.State;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterRedriveEndpointTest {
+
+    private static final Criteria CRITERIA = new Criteria("IllegalStateException", Instant.EPOCH, null);
+    private static final Progress RUNNING = new Progress(State.RUNNING, CRITERIA, 10, 0, 0, 0, 0, 0, 0,
+            Instant.EPOCH, null, null);
+
+    @Mock
+    private DeadLetterRedrive redrive;
+    @InjectMocks
+    private DeadLetterRedriveEndpoint endpoint;
+
+    @Test
+    void should_startRedrive_when_noneIsRunning() {
+        when(redrive.start(CRITERIA, 10.0)).thenReturn(RUNNING);
+
+        assertThat(endpoint.redrive("IllegalStateException", Instant.EPOCH, null, 10.0)).isSameAs(RUNNING);
+    }
+
+    @Test
+    void should_rejectRequest_when_redriveIsAlreadyRunning() {
+        when(redrive.isRunning()).thenReturn(true);
+
+        assertThatThrownBy(() -> endpoint.redrive(null, null, null, null))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+        verify(redrive, never()).start(any(), any());
+    }
+
+    @Test
+    void should_rejectRequest_when_rateIsNotPositive() {
+        assertThatThrownBy(() -> endpoint.redrive(null, null, null, -1.0))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+        verify(redrive, never()).start(any(), any());
+    }
+
+    @Test
+    void should_reportAndCancelTheCurrentRun() {
+        when(redrive.progress()).thenReturn(RUNNING);
+        when(redrive.cancel()).thenReturn(RUNNING);
+
+        assertThat(endpoint.progress()).isSameAs(RUNNING);
+        assertThat(endpoint.cancel()).isSameAs(RUNNING);
+    }
+}
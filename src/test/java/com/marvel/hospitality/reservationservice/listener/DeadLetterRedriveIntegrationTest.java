@@ -0,0 +1,89 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.Progress;
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.State;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {DeadLetterRedriveIntegrationTest.MAIN_TOPIC,
+        DeadLetterRedriveIntegrationTest.DLT_TOPIC})
+@DirtiesContext
+class DeadLetterRedriveIntegrationTest {
+
+    static final String MAIN_TOPIC = "bank-transfer-payment-update";
+    static final String DLT_TOPIC = "bank-transfer-payment-update-dlt";
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Autowired
+    private ReservationRepository repository;
+    @Autowired
+    private ProcessedPaymentRepository processedPayments;
+    @Autowired
+    private DeadLetterRedriveEndpoint endpoint;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        processedPayments.deleteAll();
+    }
+
+    @Test
+    void deadLetteredPayments_republishedOnlyForPendingReservations() throws Exception {
+        saveReservation("REDR0001", ReservationStatus.PENDING_PAYMENT);
+        saveReservation("REDR0002", ReservationStatus.CANCELLED);
+        sendToDlt("pay-d1", "REDR0001");
+        sendToDlt("pay-d2", "REDR0002");
+
+        endpoint.redrive(null, null, null, 100.0);
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            assertThat(repository.findById("REDR0001").get().getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+            assertThat(endpoint.progress().state()).isEqualTo(State.COMPLETED);
+        });
+        Progress progress = endpoint.progress();
+        assertThat(progress.republished()).isEqualTo(1);
+        assertThat(progress.notPending()).isEqualTo(1);
+        assertThat(repository.findById("REDR0002").get().getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+    }
+
+    private void saveReservation(String id, ReservationStatus status) {
+        repository.save(Reservation.builder()
+                .id(id)
+                .roomNumber("101")
+                .startDate(LocalDate.of(2100, 1, 1))
+                .endDate(LocalDate.of(2100, 1, 5))
+                .status(status)
+                .paymentMode(PaymentMode.BANK_TRANSFER)
+                .build());
+    }
+
+    private void sendToDlt(String paymentId, String reservationId) throws Exception {
+        PaymentUpdateEvent event = new PaymentUpdateEvent(paymentId, "ACC-1", BigDecimal.TEN, "E2E1234567 " + reservationId);
+        kafkaTemplate.send(DLT_TOPIC, reservationId, objectMapper.writeValueAsString(event)).get();
+    }
+}
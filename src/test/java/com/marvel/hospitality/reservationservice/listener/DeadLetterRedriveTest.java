@@ -0,0 +1,276 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.Criteria;
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.Progress;
+import com.marvel.hospitality.reservationservice.listener.DeadLetterRedrive.State;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterRedriveTest {
+
+    private static final String MAIN = "payments";
+    private static final String DLT = "payments-dlt";
+    private static final TopicPartition PARTITION = new TopicPartition(DLT, 0);
+    private static final Criteria EVERYTHING = new Criteria(null, null, null);
+
+    @Mock
+    private ConsumerFactory<String, byte[]> consumerFactory;
+    @Mock
+    private KafkaTemplate<String, byte[]> template;
+    @Mock
+    private ReservationRepository repository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ConsumerRecord<String, byte[]>> dlt = new ArrayList<>();
+    private final List<String> republished = new CopyOnWriteArrayList<>();
+    private MockConsumer<String, byte[]> consumer;
+    private DeadLetterRedrive redrive;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>("earliest");
+        redrive = new DeadLetterRedrive(consumerFactory, template, repository, MAIN, DLT, 2, 1_000, meterRegistry);
+        lenient().when(template.send(eq(MAIN), any(), any())).thenAnswer(i -> {
+            republished.add(new String(i.<byte[]>getArgument(2), StandardCharsets.UTF_8));
+            return CompletableFuture.completedFuture(null);
+        });
+        lenient().when(repository.findPendingIds(anyCollection())).thenAnswer(i -> i.<List<String>>getArgument(0)
+                .stream().filter(id -> id.startsWith("PEND")).toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        redrive.shutdown();
+    }
+
+    @Test
+    void should_republishOnlyPendingReservations_when_redriving() {
+        addRecord(payload("pay-1", "PEND0001"), 1_000, null);
+        addRecord(payload("pay-2", "PAID0002"), 1_000, null);
+        addRecord("{\"transactionDescription\":\"E2E1234567\"}", 1_000, null);
+        addRecord(payload("pay-4", "PEND0004"), 1_000, null);
+
+        Progress progress = runToEnd(EVERYTHING, null);
+
+        assertThat(progress.state()).isEqualTo(State.COMPLETED);
+        assertThat(republished).hasSize(2).allMatch(p -> p.contains("PEND"));
+        assertThat(progress.total()).isEqualTo(4);
+        assertThat(progress.scanned()).isEqualTo(4);
+        assertThat(progress.republished()).isEqualTo(2);
+        assertThat(progress.notPending()).isEqualTo(1);
+        assertThat(progress.malformed()).isEqualTo(1);
+        assertThat(progress.finishedAt()).isNotNull();
+        assertThat(redriven("republished")).isEqualTo(2);
+        assertThat(redriven("not-pending")).isEqualTo(1);
+        assertThat(redriven("malformed")).isEqualTo(1);
+        verify(consumerFactory).createConsumer(isNull(), eq(DeadLetterRedrive.CLIENT_ID_PREFIX), isNull(), any());
+    }
+
+    @Test
+    void should_skipRecords_when_exceptionOrTimeWindowDoesNotMatch() {
+        addRecord(payload("pay-1", "PEND0001"), 2_000, "java.lang.IllegalStateException");
+        addRecord(payload("pay-2", "PEND0002"), 2_000, "java.lang.IllegalArgumentException");
+        addRecord(payload("pay-3", "PEND0003"), 9_000, "java.lang.IllegalStateException");
+        addRecord(payload("pay-4", "PEND0004"), 2_000, null);
+
+        Progress progress = runToEnd(new Criteria("IllegalStateException", null, Instant.ofEpochMilli(5_000)), null);
+
+        assertThat(republished).singleElement().asString().contains("PEND0001");
+        assertThat(progress.filtered()).isEqualTo(3);
+        assertThat(redriven("filtered")).isEqualTo(3);
+    }
+
+    @Test
+    void should_matchCauseClassName_when_exceptionIsAWrapper() {
+        ConsumerRecord<String, byte[]> wrapped = addRecord(payload("pay-1", "PEND0001"), 1_000,
+                "org.springframework.kafka.listener.ListenerExecutionFailedException");
+        wrapped.headers().add(KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN,
+                "java.lang.IllegalStateException".getBytes(StandardCharsets.UTF_8));
+
+        runToEnd(new Criteria("java.lang.IllegalStateException", null, null), null);
+
+        assertThat(republished).hasSize(1);
+    }
+
+    @Test
+    void should_startFromFirstRecordOfWindow_when_fromIsGiven() {
+        consumer = new MockConsumer<>("earliest") {
+            @Override
+            public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> times) {
+                assertThat(times).containsEntry(PARTITION, 3_000L);
+                return Map.of(PARTITION, new OffsetAndTimestamp(1, 3_000));
+            }
+        };
+        addRecord(payload("pay-1", "PEND0001"), 1_000, null);
+        addRecord(payload("pay-2", "PEND0002"), 3_000, null);
+        addRecord(payload("pay-3", "PEND0003"), 4_000, null);
+
+        Progress progress = runToEnd(new Criteria(null, Instant.ofEpochMilli(3_000), null), null);
+
+        assertThat(progress.total()).isEqualTo(2);
+        assertThat(republished).hasSize(2).noneMatch(p -> p.contains("PEND0001"));
+    }
+
+    @Test
+    void should_readNothing_when_noRecordIsAfterFrom() {
+        consumer = new MockConsumer<>("earliest") {
+            @Override
+            public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> times) {
+                return Map.of();
+            }
+        };
+        addRecord(payload("pay-1", "PEND0001"), 1_000, null);
+
+        Progress progress = runToEnd(new Criteria(null, Instant.ofEpochMilli(3_000), null), null);
+
+        assertThat(progress.state()).isEqualTo(State.COMPLETED);
+        assertThat(progress.total()).isZero();
+        assertThat(republished).isEmpty();
+    }
+
+    @Test
+    void should_leaveRecordsDeadLetteredDuringTheRun_forTheNextRun() {
+        addRecord(payload("pay-1", "PEND0001"), 1_000, null);
+        addRecord(payload("pay-2", "PEND0002"), 1_000, null);
+        // in the DLT by the first poll, but not when the run started
+        dlt.add(record(2, payload("pay-3", "PEND0003"), 1_000, null));
+
+        Progress progress = runToEnd(EVERYTHING, null);
+
+        assertThat(progress.scanned()).isEqualTo(2);
+        assertThat(republished).noneMatch(p -> p.contains("PEND0003"));
+    }
+
+    @Test
+    void should_spaceSendsByTheRate_when_redriving() {
+        for (int i = 0; i < 5; i++) {
+            addRecord(payload("pay-" + i, "PEND000" + i), 1_000, null);
+        }
+
+        Progress progress = runToEnd(EVERYTHING, 20.0);
+
+        assertThat(progress.ratePerSecond()).isEqualTo(20.0);
+        assertThat(Duration.between(progress.startedAt(), progress.finishedAt())).isGreaterThanOrEqualTo(
+                Duration.ofMillis(190));
+        assertThat(republished).hasSize(5);
+    }
+
+    @Test
+    void should_fail_when_republishingFails() {
+        addRecord(payload("pay-1", "PEND0001"), 1_000, null);
+        when(template.send(eq(MAIN), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        Progress progress = runToEnd(EVERYTHING, null);
+
+        assertThat(progress.state()).isEqualTo(State.FAILED);
+        assertThat(progress.error()).contains("broker down");
+        assertThat(progress.republished()).isZero();
+    }
+
+    @Test
+    void should_refuseSecondRunAndStop_when_cancelled() {
+        for (int i = 0; i < 4; i++) {
+            addRecord(payload("pay-" + i, "PEND000" + i), 1_000, null);
+        }
+        when(consumerFactory.createConsumer(isNull(), anyString(), isNull(), any())).thenReturn(consumer);
+
+        redrive.start(EVERYTHING, 1.0);
+        await().atMost(5, SECONDS).until(() -> !republished.isEmpty());
+
+        assertThat(redrive.isRunning()).isTrue();
+        assertThatThrownBy(() -> redrive.start(EVERYTHING, null)).isInstanceOf(IllegalStateException.class);
+        assertThat(redrive.cancel().state()).isEqualTo(State.RUNNING);
+        await().atMost(5, SECONDS).until(() -> !redrive.isRunning());
+        assertThat(redrive.progress().state()).isEqualTo(State.CANCELLED);
+        assertThat(republished).hasSizeLessThan(4);
+    }
+
+    @Test
+    void should_rejectNonPositiveRate() {
+        assertThatThrownBy(() -> redrive.start(EVERYTHING, 0.0)).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(consumerFactory);
+    }
+
+    @Test
+    void should_reportNothing_when_neverRun() {
+        assertThat(redrive.progress()).isNull();
+        assertThat(redrive.cancel()).isNull();
+        assertThat(redrive.isRunning()).isFalse();
+    }
+
+    private Progress runToEnd(Criteria criteria, Double rate) {
+        when(consumerFactory.createConsumer(isNull(), anyString(), isNull(), any())).thenReturn(consumer);
+        redrive.start(criteria, rate);
+        await().atMost(10, SECONDS).until(() -> !redrive.isRunning());
+        return redrive.progress();
+    }
+
+    private ConsumerRecord<String, byte[]> addRecord(String payload, long timestamp, String exception) {
+        if (dlt.isEmpty()) {
+            consumer.updatePartitions(DLT, List.of(new PartitionInfo(DLT, 0, null, null, null)));
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            consumer.schedulePollTask(() -> dlt.forEach(consumer::addRecord));
+        }
+        ConsumerRecord<String, byte[]> consumerRecord = record(dlt.size(), payload, timestamp, exception);
+        dlt.add(consumerRecord);
+        consumer.updateEndOffsets(Map.of(PARTITION, (long) dlt.size()));
+        return consumerRecord;
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, String payload, long timestamp, String exception) {
+        RecordHeaders headers = new RecordHeaders();
+        if (exception != null) {
+            headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, exception.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ConsumerRecord<>(DLT, 0, offset, timestamp, TimestampType.CREATE_TIME, 0, 0, null,
+                payload.getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+    }
+
+    private static String payload(String paymentId, String reservationId) {
+        return "{\"paymentId\":\"" + paymentId + "\",\"transactionDescription\":\"E2E1234567 " + reservationId + "\"}";
+    }
+
+    private double redriven(String outcome) {
+        return meterRegistry.get("payment-updates.dlt.redrive").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,145 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.marvel.hospitality.reservationservice.service.ReservationService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Payment-update throughput of one partition on embedded Kafka, confirmed on the consumer thread and on four
+ * key-ordered lanes. Each confirmation costs {@value #MICROS_PER_RECORD} µs per record on top of H2, standing in
+ * for the round trips to a remote database. Skipped by the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class KeyOrderedDispatcherBenchmarkTest {
+
+    static final String TOPIC = "bank-transfer-payment-update";
+    private static final int MESSAGES = 5_000;
+    private static final long MICROS_PER_RECORD = 500;
+
+    private static final Map<String, Duration> results = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @AfterAll
+    static void report() {
+        System.out.printf("%nKey-ordered lanes benchmark - %d payment updates on one partition, %d µs per record%n",
+                MESSAGES, MICROS_PER_RECORD);
+        System.out.printf("%-8s %10s %12s%n", "lanes", "total ms", "records/s");
+        results.forEach((lanes, elapsed) -> System.out.printf("%-8s %10d %12.0f%n",
+                lanes, elapsed.toMillis(), MESSAGES / (elapsed.toNanos() / 1e9)));
+    }
+
+    @Nested
+    @SpringBootTest(properties = {"spring.kafka.key-ordered.lanes=1", "spring.kafka.concurrency=1"})
+    @EmbeddedKafka(partitions = 1, topics = TOPIC)
+    @ActiveProfiles("test")
+    @DirtiesContext
+    class Serial extends Scenario {
+
+        Serial() {
+            super("1", "SE");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = {"spring.kafka.key-ordered.lanes=4", "spring.kafka.concurrency=1"})
+    @EmbeddedKafka(partitions = 1, topics = TOPIC)
+    @ActiveProfiles("test")
+    @DirtiesContext
+    class KeyOrdered extends Scenario {
+
+        KeyOrdered() {
+            super("4", "KO");
+        }
+    }
+
+    abstract static class Scenario {
+
+        private final String lanes;
+        private final String idPrefix;
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final AtomicInteger confirmed = new AtomicInteger();
+
+        @Autowired
+        private KafkaTemplate<String, String> kafkaTemplate;
+        @Autowired
+        private ReservationRepository repository;
+        @MockitoSpyBean
+        private ReservationService service;
+
+        Scenario(String lanes, String idPrefix) {
+            this.lanes = lanes;
+            this.idPrefix = idPrefix;
+        }
+
+        @Test
+        void benchmark() throws Exception {
+            doAnswer(invocation -> {
+                Collection<String> ids = invocation.getArgument(0);
+                Thread.sleep(Duration.ofNanos(ids.size() * MICROS_PER_RECORD * 1_000));
+                int count = (int) invocation.callRealMethod();
+                confirmed.addAndGet(count);
+                return count;
+            }).when(service).confirmBankTransferPayments(any());
+            List<String> ids = seedPendingReservations();
+
+            long start = System.nanoTime();
+            for (String id : ids) {
+                kafkaTemplate.send(TOPIC, id, objectMapper.writeValueAsString(
+                        new PaymentUpdateEvent("pay-" + id, "ACC-1", BigDecimal.TEN, "E2E1234567 " + id)));
+            }
+            kafkaTemplate.flush();
+            await().atMost(120, SECONDS).until(() -> confirmed.get() >= MESSAGES);
+            results.put(lanes, Duration.ofNanos(System.nanoTime() - start));
+
+            assertThat(repository.findAllById(ids)).allMatch(res -> res.getStatus() == ReservationStatus.CONFIRMED);
+        }
+
+        private List<String> seedPendingReservations() {
+            repository.deleteAll();
+            List<Reservation> reservations = new ArrayList<>(MESSAGES);
+            for (int i = 0; i < MESSAGES; i++) {
+                reservations.add(Reservation.builder()
+                        .id(idPrefix + String.format("%06d", i))
+                        .roomNumber("R" + i)
+                        .startDate(LocalDate.of(2100, 1, 1))
+                        .endDate(LocalDate.of(2100, 1, 5))
+                        .status(ReservationStatus.PENDING_PAYMENT)
+                        .paymentMode(PaymentMode.BANK_TRANSFER)
+                        .build());
+            }
+            repository.saveAll(reservations);
+            return reservations.stream().map(Reservation::getId).toList();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyOrderedDispatcherTest {
+
+    private final KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher(4);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void should_keepOrderPerKeyAndHandleEveryKey_when_pollIsSplitOverLanes() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add("KEY" + (i % 10));
+        }
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Integer> occurrence = new ConcurrentHashMap<>();
+
+        dispatcher.dispatch(keys, key -> key, lane -> lane.forEach(key -> {
+            handled.add(key);
+            seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(occurrence.merge(key, 1, Integer::sum));
+        }));
+
+        assertThat(handled).containsExactlyInAnyOrderElementsOf(keys);
+        seen.values().forEach(order -> assertThat(order).isSorted().hasSize(10));
+    }
+
+    @Test
+    void should_reportIndexOfFailingItem_when_itIsNotFirstOfItsLane() {
+        // keys one apart hash one apart: AAAA0001 and AAAA0005 share a lane, AAAA0005 coming second
+        List<String> keys = List.of("AAAA0001", "AAAA0002", "AAAA0003", "AAAA0004", "AAAA0005", "AAAA0006");
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        assertThatThrownBy(() -> dispatcher.dispatch(keys, key -> key, lane -> {
+            if (lane.contains("AAAA0005")) {
+                throw new IllegalStateException("database hiccup");
+            }
+            applied.addAll(lane);
+        }))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(keys.indexOf("AAAA0005")))
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(applied).containsExactlyInAnyOrder("AAAA0001", "AAAA0002", "AAAA0003", "AAAA0004", "AAAA0006");
+    }
+
+    @Test
+    void should_reportLowestFailingIndex_when_severalLanesFail() {
+        List<String> keys = List.of("AAAA0001", "AAAA0002", "AAAA0003", "AAAA0004", "AAAA0005", "AAAA0006");
+
+        assertThatThrownBy(() -> dispatcher.dispatch(keys, key -> key, lane -> {
+            if (lane.contains("AAAA0005") || lane.contains("AAAA0006")) {
+                throw new IllegalStateException("database hiccup");
+            }
+        }))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(keys.indexOf("AAAA0005")));
+    }
+
+    @Test
+    void should_completeLaneItemByItem_when_laneFailsOnlyAsAWhole() {
+        List<String> keys = List.of("AAAA0001", "AAAA0002", "AAAA0005", "AAAA0006");
+        Set<List<String>> failedOnce = ConcurrentHashMap.newKeySet();
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        dispatcher.dispatch(keys, key -> key, lane -> {
+            if (lane.size() > 1 && failedOnce.add(lane)) {
+                throw new IllegalStateException("deadlock victim");
+            }
+            applied.addAll(lane);
+        });
+
+        assertThat(applied).containsExactlyInAnyOrderElementsOf(keys);
+    }
+
+    @Test
+    void should_reportIndexOfFailingItem_when_singleLaneFails() {
+        KeyOrderedDispatcher serial = new KeyOrderedDispatcher(1);
+        List<String> keys = List.of("AAAA0001", "AAAA0002", "AAAA0003");
+        List<String> applied = new ArrayList<>();
+
+        assertThatThrownBy(() -> serial.dispatch(keys, key -> key, lane -> {
+            if (lane.contains("AAAA0002")) {
+                throw new IllegalStateException("database hiccup");
+            }
+            applied.addAll(lane);
+        }))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isEqualTo(1));
+
+        assertThat(applied).containsExactly("AAAA0001");
+    }
+
+    @Test
+    void should_runOnCallingThread_when_singleLane() {
+        KeyOrderedDispatcher serial = new KeyOrderedDispatcher(1);
+        List<Thread> threads = new ArrayList<>();
+
+        serial.dispatch(List.of("AAAA0001", "AAAA0002"), key -> key, lane -> threads.add(Thread.currentThread()));
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+    }
+}
@@ -0,0 +1,183 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdate;
+import com.marvel.hospitality.reservationservice.entity.ProcessedPayment;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentDeduplicatorTest {
+
+    @Mock
+    private ProcessedPaymentRepository repository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<String>> confirmed = new ArrayList<>();
+    private PaymentDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(i -> {
+            i.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        deduplicator = newDeduplicator(true);
+    }
+
+    @Test
+    void should_confirmAndRecordInOneTransaction_when_paymentsAreNew() {
+        when(repository.findProcessedIds(anyCollection())).thenReturn(List.of());
+
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001"), update("pay-2", "BBBB0002")), confirmed::add);
+
+        assertThat(confirmed).containsExactly(List.of("AAAA0001", "BBBB0002"));
+        assertThat(recorded()).extracting(ProcessedPayment::getPaymentId).containsExactly("pay-1", "pay-2");
+        verify(transactionTemplate).executeWithoutResult(any());
+        assertThat(tableLookupsNew()).isEqualTo(2);
+    }
+
+    @Test
+    void should_dropFromMemoryWithoutQuery_when_paymentWasAppliedBefore() {
+        when(repository.findProcessedIds(anyCollection())).thenReturn(List.of());
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001")), confirmed::add);
+        clearInvocations(repository);
+
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001")), confirmed::add);
+
+        assertThat(confirmed).hasSize(1);
+        verifyNoInteractions(repository);
+        assertThat(duplicates("memory")).isEqualTo(1);
+    }
+
+    @Test
+    void should_dropRepeatWithinBatch_when_paymentIdAppearsTwice() {
+        when(repository.findProcessedIds(anyCollection())).thenReturn(List.of());
+
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001"), update("pay-1", "AAAA0001")), confirmed::add);
+
+        assertThat(confirmed).containsExactly(List.of("AAAA0001"));
+        assertThat(duplicates("memory")).isEqualTo(1);
+    }
+
+    @Test
+    void should_dropFromTableAndRemember_when_paymentIsNotInMemory() {
+        when(repository.findProcessedIds(anyCollection())).thenReturn(List.of("pay-1"));
+
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001"), update("pay-2", "BBBB0002")), confirmed::add);
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001")), confirmed::add);
+
+        assertThat(confirmed).containsExactly(List.of("BBBB0002"));
+        assertThat(duplicates("table")).isEqualTo(1);
+        assertThat(duplicates("memory")).isEqualTo(1);
+        assertThat(tableLookupsNew()).isEqualTo(1);
+    }
+
+    @Test
+    void should_notOpenTransaction_when_everyPaymentIsADuplicate() {
+        when(repository.findProcessedIds(anyCollection())).thenReturn(List.of("pay-1"));
+
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001")), confirmed::add);
+
+        assertThat(confirmed).isEmpty();
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void should_alwaysConfirmWithoutRecording_when_paymentIdIsMissing() {
+        deduplicator.confirmOnce(List.of(update(null, "AAAA0001")), confirmed::add);
+        deduplicator.confirmOnce(List.of(update(null, "AAAA0001")), confirmed::add);
+
+        assertThat(confirmed).containsExactly(List.of("AAAA0001"), List.of("AAAA0001"));
+        verify(repository, never()).findProcessedIds(anyCollection());
+        assertThat(recorded()).isEmpty();
+    }
+
+    @Test
+    void should_notRemember_when_confirmationFails() {
+        when(repository.findProcessedIds(anyCollection())).thenReturn(List.of());
+
+        assertThatThrownBy(() -> deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001")), ids -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+        deduplicator.confirmOnce(List.of(update("pay-1", "AAAA0001")), confirmed::add);
+
+        assertThat(confirmed).containsExactly(List.of("AAAA0001"));
+        verify(repository, times(2)).findProcessedIds(anyCollection());
+    }
+
+    @Test
+    void should_passEverythingThrough_when_disabled() {
+        PaymentDeduplicator disabled = newDeduplicator(false);
+
+        disabled.confirmOnce(List.of(update("pay-1", "AAAA0001"), update("pay-1", "AAAA0001")), confirmed::add);
+
+        assertThat(confirmed).containsExactly(List.of("AAAA0001", "AAAA0001"));
+        verifyNoInteractions(repository, transactionTemplate);
+    }
+
+    @Test
+    void should_deleteRecordsOlderThanTtl_when_purging() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(repository.deleteProcessedBefore(any())).thenReturn(3);
+        LocalDateTime before = LocalDateTime.now().minusDays(7);
+
+        assertThat(deduplicator.purgeExpired()).isEqualTo(3);
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).deleteProcessedBefore(cutoff.capture());
+        assertThat(cutoff.getValue()).isBetween(before, LocalDateTime.now().minusDays(7));
+    }
+
+    @Test
+    void should_reportNothingPurged_when_transactionReturnsNoCount() {
+        assertThat(deduplicator.purgeExpired()).isZero();
+    }
+
+    private PaymentDeduplicator newDeduplicator(boolean enabled) {
+        return new PaymentDeduplicator(repository, transactionTemplate, enabled, 100, Duration.ofDays(7), meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ProcessedPayment> recorded() {
+        ArgumentCaptor<List<ProcessedPayment>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeast(0)).saveAll(saved.capture());
+        return saved.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private double duplicates(String source) {
+        return meterRegistry.get("payment-updates.duplicates").tag("source", source).counter().count();
+    }
+
+    private double tableLookupsNew() {
+        return meterRegistry.get("payment-updates.dedup.table-lookups").tag("outcome", "new").counter().count();
+    }
+
+    private static PaymentUpdate update(String paymentId, String reservationId) {
+        return new PaymentUpdate(paymentId, reservationId);
+    }
+}
@@ -5,7 +5,9 @@ import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
 import com.marvel.hospitality.reservationservice.entity.Reservation;
 import com.marvel.hospitality.reservationservice.model.PaymentMode;
 import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
 import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +28,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -50,6 +53,8 @@ class PaymentUpdateListenerIntegrationTest {
     @Autowired
     private ReservationRepository repository;
     @Autowired
+    private ProcessedPaymentRepository processedPayments;
+    @Autowired
     private EmbeddedKafkaBroker embeddedKafka;
 
 
@@ -60,9 +65,12 @@ class PaymentUpdateListenerIntegrationTest {
     @BeforeEach
     void setUp() {
         repository.deleteAll();
+        processedPayments.deleteAll();
         dlqRecords = new LinkedBlockingQueue<>();
 
         var consumerProps = KafkaTestUtils.consumerProps(embeddedKafka, "test-group-" + System.currentTimeMillis(), false);
+        // only what this test sends to the DLT, not the records left there by earlier tests
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
         var cf = new DefaultKafkaConsumerFactory<String, String>(consumerProps);
         var containerProps = new ContainerProperties(DLT_TOPIC);
 
@@ -132,9 +140,53 @@ class PaymentUpdateListenerIntegrationTest {
         assertThat(repository.findById(nonExisting)).isEmpty();
     }
 
+    @Test
+    void malformedMessageInBatch_sentToDLQAlone() throws Exception {
+        saveReservation("BTCH0001", ReservationStatus.PENDING_PAYMENT);
+        saveReservation("BTCH0002", ReservationStatus.PENDING_PAYMENT);
+
+        sendEvent(new PaymentUpdateEvent("pay-006", "ACC-333", BigDecimal.ONE, "E2E1234567 BTCH0001"));
+        sendEvent(new PaymentUpdateEvent("pay-007", "ACC-333", BigDecimal.ONE, "E2E1234567"));
+        sendEvent(new PaymentUpdateEvent("pay-008", "ACC-333", BigDecimal.ONE, "E2E1234567 BTCH0002"));
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            assertThat(repository.findById("BTCH0001").get().getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+            assertThat(repository.findById("BTCH0002").get().getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        });
+        ConsumerRecord<String, String> consumerRecord = dlqRecords.poll(15, SECONDS);
+        assertThat(consumerRecord).isNotNull();
+        assertThat(consumerRecord.value()).contains("pay-007");
+        assertThat(dlqRecords.poll(2, SECONDS)).isNull();
+    }
+
+    @Test
+    void redeliveredPayment_droppedBeforeReservationIsLoaded() throws Exception {
+        String validId = "DUPL0001";
+        saveReservation(validId, ReservationStatus.PENDING_PAYMENT);
+        PaymentUpdateEvent event = new PaymentUpdateEvent("pay-009", "ACC-444", BigDecimal.TEN, "E2E1234567 " + validId);
+
+        sendEvent(event);
+        await().atMost(10, SECONDS).untilAsserted(() ->
+                assertThat(repository.findById(validId).get().getStatus()).isEqualTo(ReservationStatus.CONFIRMED));
+        assertThat(processedPayments.existsById("pay-009")).isTrue();
+
+        // a redelivered update would confirm the reservation again if it were not dropped
+        Reservation reservation = repository.findById(validId).get();
+        reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+        repository.save(reservation);
+        sendEvent(event);
+
+        Thread.sleep(2000);
+        assertThat(repository.findById(validId).get().getStatus()).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+        assertThat(dlqRecords).isEmpty();
+    }
+
     private void saveReservation(String id, ReservationStatus status) {
         repository.save(Reservation.builder()
                 .id(id)
+                .roomNumber("101")
+                .startDate(LocalDate.of(2100, 1, 1))
+                .endDate(LocalDate.of(2100, 1, 5))
                 .status(status)
                 .paymentMode(PaymentMode.BANK_TRANSFER)
                 .build());
@@ -3,7 +3,9 @@ package com.marvel.hospitality.reservationservice.listener;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
 import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
 import com.marvel.hospitality.reservationservice.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,10 +14,16 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
@@ -26,22 +34,29 @@ class PaymentUpdateListenerTest {
     private ReservationService reservationService;
     @Mock
     private Acknowledgment acknowledgment;
+    @Mock
+    private ProcessedPaymentRepository processedPayments;
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     private PaymentUpdateListener listener;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     void setUp() {
-        listener = new PaymentUpdateListener(reservationService);
+        PaymentDeduplicator deduplicator = new PaymentDeduplicator(processedPayments, transactionTemplate, false, 10,
+                Duration.ofDays(7), new SimpleMeterRegistry());
+        listener = new PaymentUpdateListener(reservationService, new KeyOrderedDispatcher(1), deduplicator);
     }
 
     @Test
     void should_throwException_when_payloadIsNotAValidJson() {
         String malformedJson = "{ \"invalid\": \"json\" ";
-        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>("topic", 0, 0, null, malformedJson);
+        ConsumerRecord<String, byte[]> consumerRecord = new ConsumerRecord<>("topic", 0, 0, null, malformedJson.getBytes(StandardCharsets.UTF_8));
 
-        assertThatThrownBy(() -> listener.onMessage(consumerRecord, acknowledgment))
-                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+        assertThatThrownBy(() -> listener.onMessages(List.of(consumerRecord), acknowledgment))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .hasCauseInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
                 .hasMessageContaining("Unable to parse payment update message");
 
         verifyNoInteractions(reservationService);
@@ -51,15 +66,59 @@ class PaymentUpdateListenerTest {
     @Test
     void should_confirmPaymentAndAcknowledge_when_messageIsValid() throws Exception {
         String validId = "CONF1234";
-        String payload = createPayload("E2E-REF " + validId);
-        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>("topic", 0, 0, null, payload);
+        byte[] payload = createPayload("E2E-REF " + validId);
+        ConsumerRecord<String, byte[]> consumerRecord = new ConsumerRecord<>("topic", 0, 0, null, payload);
 
-        listener.onMessage(consumerRecord, acknowledgment);
+        listener.onMessages(List.of(consumerRecord), acknowledgment);
 
-        verify(reservationService).confirmBankTransferPayment(validId);
+        verify(reservationService).confirmBankTransferPayments(List.of(validId));
         verify(acknowledgment).acknowledge();
     }
 
+    @Test
+    void should_confirmWholePollAndAcknowledgeOnce_when_allMessagesAreValid() throws Exception {
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+                new ConsumerRecord<>("topic", 0, 0, null, createPayload("E2E-REF AAAA1111")),
+                new ConsumerRecord<>("topic", 0, 1, null, createPayload("E2E-REF BBBB2222")),
+                new ConsumerRecord<>("topic", 0, 2, null, createPayload("E2E-REF CCCC3333")));
+
+        listener.onMessages(records, acknowledgment);
+
+        verify(reservationService).confirmBankTransferPayments(List.of("AAAA1111", "BBBB2222", "CCCC3333"));
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void should_confirmRecordsBeforeAndReportIndex_when_oneMessageIsMalformed() throws Exception {
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+                new ConsumerRecord<>("topic", 0, 0, null, createPayload("E2E-REF AAAA1111")),
+                new ConsumerRecord<>("topic", 0, 1, null, createPayload("OnlyOnePart")),
+                new ConsumerRecord<>("topic", 0, 2, null, createPayload("E2E-REF CCCC3333")));
+
+        assertThatThrownBy(() -> listener.onMessages(records, acknowledgment))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(1));
+
+        verify(reservationService).confirmBankTransferPayments(List.of("AAAA1111"));
+        verifyNoMoreInteractions(reservationService);
+        verifyNoInteractions(acknowledgment);
+    }
+
+    @Test
+    void should_sendToDltWithoutConfirming_when_amountIsNotNumeric() {
+        byte[] payload = """
+                {"paymentId":"TXN123","debtorAccountnumber":"ACC1","amountReceived":"abc",
+                 "transactionDescription":"E2E-REF CONF1234"}""".getBytes(StandardCharsets.UTF_8);
+        ConsumerRecord<String, byte[]> consumerRecord = new ConsumerRecord<>("topic", 0, 0, null, payload);
+
+        assertThatThrownBy(() -> listener.onMessages(List.of(consumerRecord), acknowledgment))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isZero())
+                .hasCauseInstanceOf(IllegalPaymentUpdateMessageFormatException.class);
+
+        verifyNoInteractions(reservationService);
+        verifyNoInteractions(acknowledgment);
+    }
+
     @ParameterizedTest
     @CsvSource(value = {
             "E2E-REF conf1234 | Invalid reservationId (must be exactly 8 uppercase alphanumeric): conf1234",
@@ -70,20 +129,20 @@ class PaymentUpdateListenerTest {
     void should_throwException_when_payloadIsInvalid(String description, String expectedErrorMessage) throws Exception {
 
         String finalDescription = "NULL".equals(description) ? null : description;
-        String payload = createPayload(finalDescription);
-        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>("topic", 0, 0, null, payload);
+        byte[] payload = createPayload(finalDescription);
+        ConsumerRecord<String, byte[]> consumerRecord = new ConsumerRecord<>("topic", 0, 0, null, payload);
 
-        assertThatThrownBy(() -> listener.onMessage(consumerRecord, acknowledgment))
-                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+        assertThatThrownBy(() -> listener.onMessages(List.of(consumerRecord), acknowledgment))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .hasCauseInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
                 .hasMessageContaining(expectedErrorMessage);
 
         verifyNoInteractions(reservationService);
         verifyNoInteractions(acknowledgment);
     }
 
-    private String createPayload(String desc) throws Exception {
+    private byte[] createPayload(String desc) throws Exception {
         PaymentUpdateEvent event = new PaymentUpdateEvent("TXN123", "ACC1", BigDecimal.TEN, desc);
-        return objectMapper.writeValueAsString(event);
+        return objectMapper.writeValueAsBytes(event);
     }
 }
-
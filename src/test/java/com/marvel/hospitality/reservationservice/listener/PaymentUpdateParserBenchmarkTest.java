@@ -0,0 +1,73 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost of turning one payment-update record into a reservation ID: the former String, ObjectMapper, split and regex
+ * path against {@link PaymentUpdateParser} on the raw bytes, with the GC profiler reporting allocations per record.
+ * Skipped by the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentUpdateParserBenchmarkTest {
+
+    private static final Pattern RESERVATION_ID_PATTERN = Pattern.compile("^[A-Z0-9]{8}$");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PaymentUpdateParser parser = new PaymentUpdateParser();
+    private final byte[] payload = ("{\"paymentId\":\"pay-7f3c2a91\",\"debtorAccountnumber\":\"NL91ABNA0417164300\","
+            + "\"amountReceived\":499.99,\"transactionDescription\":\"E2E1234567 ABCD1234\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public String stringObjectMapperAndRegex() throws Exception {
+        PaymentUpdateEvent event = objectMapper.readValue(new String(payload, StandardCharsets.UTF_8),
+                PaymentUpdateEvent.class);
+        String reservationId = event.transactionDescription().trim().split(" ")[1].trim();
+        if (!RESERVATION_ID_PATTERN.matcher(reservationId).matches()) {
+            throw new IllegalStateException(reservationId);
+        }
+        return reservationId;
+    }
+
+    @Benchmark
+    public String byteParser() {
+        return parser.parse(payload).reservationId();
+    }
+
+    @Test
+    void benchmark() throws Exception {
+        assertThat(byteParser()).isEqualTo(stringObjectMapperAndRegex());
+
+        new Runner(new OptionsBuilder()
+                .include(PaymentUpdateParserBenchmarkTest.class.getName() + "\\.")
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
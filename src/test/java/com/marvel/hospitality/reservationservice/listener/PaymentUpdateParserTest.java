@@ -0,0 +1,123 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdate;
+import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentUpdateParserTest {
+
+    private final PaymentUpdateParser parser = new PaymentUpdateParser();
+
+    @Test
+    void should_readPaymentIdAndReservationId_when_payloadIsValid() {
+        PaymentUpdate update = parse("""
+                {"paymentId":"pay-001","debtorAccountnumber":"ACC-987","amountReceived":499.99,
+                 "transactionDescription":"E2E1234567 ABCD1234"}""");
+
+        assertThat(update).isEqualTo(new PaymentUpdate("pay-001", "ABCD1234"));
+    }
+
+    @Test
+    void should_readNullPaymentId_when_itIsNull() {
+        PaymentUpdate update = parse("""
+                {"transactionDescription":"E2E1234567 ABCD1234","paymentId":null}""");
+
+        assertThat(update).isEqualTo(new PaymentUpdate(null, "ABCD1234"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"meta\":\"bank\",\"transactionDescription\":\"E2E1234567 ABCD1234\"}",
+            "{\"transactionDescription\":\"E2E1234567 ABCD1234\",\"meta\":{\"tags\":[\"a\"]}}",
+            "{\"paymentId\":{\"id\":\"pay-001\"},\"transactionDescription\":\"E2E1234567 ABCD1234\"}",
+            "{\"amountReceived\":[1],\"transactionDescription\":\"E2E1234567 ABCD1234\"}"
+    })
+    void should_throwException_when_fieldIsUnknownOrNotAScalar(String json) {
+        assertThatThrownBy(() -> parse(json))
+                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+                .hasMessage("Unable to parse payment update message");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"499.99", "-1.5E3", "12", "null", "\"499.99\"", "\" 12 \"", "\".5\"", "\"1e+2\"", "\"\""})
+    void should_acceptAmount_when_itIsANumberOrNumericString(String amount) {
+        String json = "{\"amountReceived\":" + amount + ",\"transactionDescription\":\"E2E1234567 ABCD1234\"}";
+
+        assertThat(parse(json).reservationId()).isEqualTo("ABCD1234");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\"abc\"", "\"12abc\"", "\"1e\"", "\"-\"", "\"1.2.3\"", "true"})
+    void should_throwException_when_amountIsNotNumeric(String amount) {
+        String json = "{\"amountReceived\":" + amount + ",\"transactionDescription\":\"E2E1234567 ABCD1234\"}";
+
+        assertThatThrownBy(() -> parse(json))
+                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+                .hasMessage("Unable to parse payment update message");
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "'  E2E1234567 ABCD1234  '    | ABCD1234",
+            "'E2E-REF ABCD1234 trailing'  | ABCD1234",
+            "'E2E1234567 ABCD1234\\t'     | ABCD1234"
+    }, delimiter = '|')
+    void should_acceptDescription_when_secondWordIsAReservationId(String description, String expectedId) {
+        String json = "{\"transactionDescription\":\"" + description + "\"}";
+
+        assertThat(parse(json).reservationId()).isEqualTo(expectedId);
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "'\"E2E-REF conf1234\"'     | Invalid reservationId (must be exactly 8 uppercase alphanumeric): conf1234",
+            "'\"E2E-REF ABCD12345\"'    | Invalid reservationId (must be exactly 8 uppercase alphanumeric): ABCD12345",
+            "'\"E2E-REF  ABCD1234\"'    | 'Invalid reservationId (must be exactly 8 uppercase alphanumeric): '",
+            "'\"OnlyOnePart\"'          | Invalid transactionDescription format - expected E2E<10chars> <reservationId>",
+            "12345678                   | Invalid transactionDescription format - expected E2E<10chars> <reservationId>",
+            "'\"   \"'                  | Missing transactionDescription",
+            "null                       | Missing transactionDescription",
+            "{}                         | Unable to parse payment update message"
+    }, delimiter = '|')
+    void should_throwException_when_descriptionIsInvalid(String descriptionJson, String expectedMessage) {
+        String json = "{\"paymentId\":\"pay-1\",\"transactionDescription\":" + descriptionJson + "}";
+
+        assertThatThrownBy(() -> parse(json))
+                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+                .hasMessage(expectedMessage);
+    }
+
+    @Test
+    void should_throwException_when_descriptionIsMissing() {
+        assertThatThrownBy(() -> parse("{\"paymentId\":\"pay-1\"}"))
+                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+                .hasMessage("Missing transactionDescription");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{ \"invalid\": \"json\" ", "[]", "", "\"text\"", "{\"paymentId\":}"})
+    void should_throwException_when_payloadIsNotAJsonObject(String payload) {
+        assertThatThrownBy(() -> parse(payload))
+                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+                .hasMessage("Unable to parse payment update message");
+    }
+
+    @Test
+    void should_throwException_when_payloadIsNull() {
+        assertThatThrownBy(() -> parser.parse(null))
+                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class)
+                .hasMessage("Unable to parse payment update message");
+    }
+
+    private PaymentUpdate parse(String json) {
+        return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,93 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
+import com.marvel.hospitality.reservationservice.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentUpdateRetryListenerTest {
+
+    private static final String TIER = "bank-transfer-payment-update-retry-1000";
+    private static final String PAYLOAD = "{\"paymentId\":\"pay-1\",\"transactionDescription\":\"E2E1234567 RTRY0001\"}";
+
+    @Mock
+    private ReservationService reservationService;
+    @Mock
+    private Acknowledgment acknowledgment;
+    @Mock
+    private ProcessedPaymentRepository processedPayments;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PaymentUpdateRetryListener listener;
+
+    @BeforeEach
+    void setUp() {
+        PaymentDeduplicator deduplicator = new PaymentDeduplicator(processedPayments, transactionTemplate, false, 10,
+                Duration.ofDays(7), new SimpleMeterRegistry());
+        listener = new PaymentUpdateRetryListener(reservationService, deduplicator);
+    }
+
+    @Test
+    void should_nackForRemainingDelay_when_recordIsNotDueYet() {
+        long due = System.currentTimeMillis() + 5_000;
+
+        listener.onMessage(record(PAYLOAD, due), acknowledgment);
+
+        ArgumentCaptor<Duration> sleep = ArgumentCaptor.forClass(Duration.class);
+        verify(acknowledgment).nack(sleep.capture());
+        assertThat(sleep.getValue()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(5));
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void should_confirmAndAcknowledge_when_recordIsDue() {
+        listener.onMessage(record(PAYLOAD, System.currentTimeMillis() - 1), acknowledgment);
+
+        verify(reservationService).confirmBankTransferPayments(List.of("RTRY0001"));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void should_processAtOnce_when_recordHasNoDueHeader() {
+        listener.onMessage(new ConsumerRecord<>(TIER, 0, 0, null, PAYLOAD.getBytes(StandardCharsets.UTF_8)),
+                acknowledgment);
+
+        verify(reservationService).confirmBankTransferPayments(List.of("RTRY0001"));
+    }
+
+    @Test
+    void should_throwWithoutAcknowledging_when_recordIsMalformed() {
+        assertThatThrownBy(() -> listener.onMessage(record("{}", 0), acknowledgment))
+                .isInstanceOf(IllegalPaymentUpdateMessageFormatException.class);
+
+        verifyNoInteractions(reservationService, acknowledgment);
+    }
+
+    private static ConsumerRecord<String, byte[]> record(String payload, long due) {
+        ConsumerRecord<String, byte[]> consumerRecord =
+                new ConsumerRecord<>(TIER, 0, 0, null, payload.getBytes(StandardCharsets.UTF_8));
+        consumerRecord.headers().add(PaymentUpdateRetryTopology.DUE_HEADER,
+                ByteBuffer.allocate(Long.BYTES).putLong(due).array());
+        return consumerRecord;
+    }
+}
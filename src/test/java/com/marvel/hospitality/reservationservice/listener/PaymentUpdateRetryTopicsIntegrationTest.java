@@ -0,0 +1,213 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marvel.hospitality.reservationservice.dto.PaymentUpdateEvent;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ProcessedPaymentRepository;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.marvel.hospitality.reservationservice.service.ReservationService;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = {"spring.kafka.retry.delays=2s,4s", "spring.kafka.key-ordered.lanes=2"})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {PaymentUpdateRetryTopicsIntegrationTest.MAIN_TOPIC,
+        PaymentUpdateRetryTopicsIntegrationTest.DLT_TOPIC})
+@DirtiesContext
+class PaymentUpdateRetryTopicsIntegrationTest {
+
+    static final String MAIN_TOPIC = "bank-transfer-payment-update";
+    static final String DLT_TOPIC = "bank-transfer-payment-update-dlt";
+    static final String FIRST_RETRY_TOPIC = MAIN_TOPIC + "-retry-2000";
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Autowired
+    private ReservationRepository repository;
+    @Autowired
+    private ProcessedPaymentRepository processedPayments;
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+    @MockitoSpyBean
+    private ReservationService service;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<String> failOnce = ConcurrentHashMap.newKeySet();
+    private final Set<String> failAlways = ConcurrentHashMap.newKeySet();
+    private final AtomicLong firstFailureAt = new AtomicLong();
+    private BlockingQueue<ConsumerRecord<String, String>> dlqRecords;
+    private BlockingQueue<ConsumerRecord<String, String>> firstRetryRecords;
+    private final List<KafkaMessageListenerContainer<String, String>> containers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        processedPayments.deleteAll();
+        doAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            if (ids.stream().anyMatch(failAlways::contains) || ids.stream().anyMatch(failOnce::remove)) {
+                firstFailureAt.compareAndSet(0, System.currentTimeMillis());
+                throw new IllegalStateException("database hiccup");
+            }
+            return invocation.callRealMethod();
+        }).when(service).confirmBankTransferPayments(any());
+
+        dlqRecords = listen(DLT_TOPIC);
+        firstRetryRecords = listen(FIRST_RETRY_TOPIC);
+    }
+
+    @AfterEach
+    void tearDown() {
+        containers.forEach(KafkaMessageListenerContainer::stop);
+        registry.getListenerContainers().forEach(MessageListenerContainer::resume);
+    }
+
+    private BlockingQueue<ConsumerRecord<String, String>> listen(String topic) {
+        BlockingQueue<ConsumerRecord<String, String>> received = new LinkedBlockingQueue<>();
+        var consumerProps = KafkaTestUtils.consumerProps(embeddedKafka, topic + "-" + System.currentTimeMillis(), false);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        var container = new KafkaMessageListenerContainer<>(new DefaultKafkaConsumerFactory<String, String>(consumerProps),
+                new ContainerProperties(topic));
+        container.setupMessageListener((MessageListener<String, String>) received::add);
+        container.start();
+        containers.add(container);
+        ContainerTestUtils.waitForAssignment(container, embeddedKafka.getPartitionsPerTopic());
+        return received;
+    }
+
+    @Test
+    void transientFailure_retriedFromDelayTierWhileMainTopicKeepsFlowing() throws Exception {
+        saveReservation("RTRY0001");
+        saveReservation("RTRY0002");
+        failOnce.add("RTRY0001");
+
+        sendEvent("pay-r1", "RTRY0001");
+        await().atMost(10, SECONDS).until(() -> firstFailureAt.get() > 0);
+        sendEvent("pay-r2", "RTRY0002");
+
+        await().atMost(2, SECONDS).untilAsserted(() ->
+                assertThat(status("RTRY0002")).isEqualTo(ReservationStatus.CONFIRMED));
+        assertThat(status("RTRY0001")).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+
+        await().atMost(10, SECONDS).untilAsserted(() ->
+                assertThat(status("RTRY0001")).isEqualTo(ReservationStatus.CONFIRMED));
+        assertThat(System.currentTimeMillis() - firstFailureAt.get()).isGreaterThanOrEqualTo(2_000);
+        assertThat(dlqRecords.poll(1, SECONDS)).isNull();
+    }
+
+    @Test
+    void persistentFailure_sentToDltAfterLastTier() throws Exception {
+        saveReservation("RTRY0003");
+        failAlways.add("RTRY0003");
+
+        sendEvent("pay-r3", "RTRY0003");
+
+        ConsumerRecord<String, String> consumerRecord = dlqRecords.poll(20, SECONDS);
+        assertThat(consumerRecord).isNotNull();
+        assertThat(consumerRecord.value()).contains("RTRY0003");
+        assertThat(originalTopic(consumerRecord)).isEqualTo(MAIN_TOPIC + "-retry-4000");
+        assertThat(System.currentTimeMillis() - firstFailureAt.get()).isGreaterThanOrEqualTo(6_000);
+    }
+
+    @Test
+    void failureInsideLane_forwardsOnlyTheFailingRecord() throws Exception {
+        saveReservation("RTRY0005");
+        saveReservation("RTRY0006");
+        saveReservation("RTRY0007");
+        // with two lanes RTRY0005 and RTRY0007 share one, RTRY0007 coming second
+        failAlways.add("RTRY0007");
+
+        registry.getListenerContainers().forEach(MessageListenerContainer::pause);
+        await().atMost(10, SECONDS).until(() ->
+                registry.getListenerContainers().stream().allMatch(MessageListenerContainer::isContainerPaused));
+        sendEvent("pay-r5", "RTRY0005");
+        sendEvent("pay-r6", "RTRY0006");
+        sendEvent("pay-r7", "RTRY0007");
+        registry.getListenerContainers().forEach(MessageListenerContainer::resume);
+
+        ConsumerRecord<String, String> forwarded = firstRetryRecords.poll(10, SECONDS);
+        assertThat(forwarded).isNotNull();
+        assertThat(forwarded.key()).isEqualTo("RTRY0007");
+        assertThat(status("RTRY0005")).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(status("RTRY0006")).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(firstRetryRecords.poll(1, SECONDS)).isNull();
+    }
+
+    @Test
+    void malformedMessage_sentStraightToDlt() throws Exception {
+        sendEvent("pay-r4", "not-an-id");
+
+        ConsumerRecord<String, String> consumerRecord = dlqRecords.poll(15, SECONDS);
+        assertThat(consumerRecord).isNotNull();
+        assertThat(originalTopic(consumerRecord)).isEqualTo(MAIN_TOPIC);
+    }
+
+    private ReservationStatus status(String id) {
+        return repository.findById(id).orElseThrow().getStatus();
+    }
+
+    private static String originalTopic(ConsumerRecord<String, String> consumerRecord) {
+        return new String(consumerRecord.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value(),
+                StandardCharsets.UTF_8);
+    }
+
+    private void saveReservation(String id) {
+        repository.save(Reservation.builder()
+                .id(id)
+                .roomNumber("101")
+                .startDate(LocalDate.of(2100, 1, 1))
+                .endDate(LocalDate.of(2100, 1, 5))
+                .status(ReservationStatus.PENDING_PAYMENT)
+                .paymentMode(PaymentMode.BANK_TRANSFER)
+                .build());
+    }
+
+    private void sendEvent(String paymentId, String reservationId) throws Exception {
+        PaymentUpdateEvent event = new PaymentUpdateEvent(paymentId, "ACC-1", BigDecimal.TEN, "E2E1234567 " + reservationId);
+        kafkaTemplate.send(MAIN_TOPIC, reservationId, objectMapper.writeValueAsString(event)).get();
+    }
+}
@@ -0,0 +1,73 @@
+package com.marvel.hospitality.reservationservice.listener;
+
+import com.marvel.hospitality.reservationservice.exception.IllegalPaymentUpdateMessageFormatException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentUpdateRetryTopologyTest {
+
+    private static final String MAIN = "payments";
+    private static final String DLT = "payments-dlt";
+    private static final RuntimeException TRANSIENT = new IllegalStateException("database down");
+
+    private final PaymentUpdateRetryTopology topology = new PaymentUpdateRetryTopology(MAIN, DLT,
+            List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1)));
+
+    @Test
+    void should_nameTiersAfterMainTopicAndDelay() {
+        assertThat(topology.tiers()).extracting(PaymentUpdateRetryTopology.RetryTier::topic)
+                .containsExactly("payments-retry-1000", "payments-retry-10000", "payments-retry-60000");
+        assertThat(topology.dltTopic()).isEqualTo(DLT);
+    }
+
+    @Test
+    void should_forwardToNextTier_when_failureIsTransient() {
+        assertThat(topology.destination(failedOn(MAIN), TRANSIENT))
+                .isEqualTo(new TopicPartition("payments-retry-1000", -1));
+        assertThat(topology.destination(failedOn("payments-retry-1000"), TRANSIENT))
+                .isEqualTo(new TopicPartition("payments-retry-10000", -1));
+        assertThat(topology.destination(failedOn("payments-retry-60000"), TRANSIENT))
+                .isEqualTo(new TopicPartition(DLT, -1));
+    }
+
+    @Test
+    void should_goStraightToDlt_when_recordIsMalformed() {
+        Exception wrapped = new ListenerExecutionFailedException("listener failed",
+                new IllegalPaymentUpdateMessageFormatException("Missing transactionDescription"));
+
+        assertThat(topology.destination(failedOn(MAIN), wrapped)).isEqualTo(new TopicPartition(DLT, -1));
+        assertThat(topology.headers(failedOn(MAIN), wrapped)).isEmpty();
+    }
+
+    @Test
+    void should_goToDlt_when_thereAreNoTiers() {
+        PaymentUpdateRetryTopology noTiers = new PaymentUpdateRetryTopology(MAIN, DLT, List.of());
+
+        assertThat(noTiers.destination(failedOn(MAIN), TRANSIENT)).isEqualTo(new TopicPartition(DLT, -1));
+    }
+
+    @Test
+    void should_stampDueTime_when_forwardingToTier() {
+        long before = System.currentTimeMillis();
+
+        Header due = topology.headers(failedOn("payments-retry-1000"), TRANSIENT)
+                .lastHeader(PaymentUpdateRetryTopology.DUE_HEADER);
+
+        assertThat(ByteBuffer.wrap(due.value()).getLong())
+                .isBetween(before + 10_000, System.currentTimeMillis() + 10_000);
+        assertThat(topology.headers(failedOn("payments-retry-60000"), TRANSIENT)).isEmpty();
+    }
+
+    private static ConsumerRecord<String, byte[]> failedOn(String topic) {
+        return new ConsumerRecord<>(topic, 0, 0, "key", new byte[0]);
+    }
+}
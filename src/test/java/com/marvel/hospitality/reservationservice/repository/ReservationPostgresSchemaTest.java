@@ -0,0 +1,101 @@
+package com.marvel.hospitality.reservationservice.repository;
+
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ReservationPostgresSchemaTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine");
+
+    @Autowired
+    private ReservationRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void shouldRejectOverlappingActiveStay() {
+        repository.saveAndFlush(stay("FIRST001", ReservationStatus.CONFIRMED, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 10)));
+
+        assertThatThrownBy(() -> repository.saveAndFlush(
+                stay("SECOND01", ReservationStatus.PENDING_PAYMENT, LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 12))))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .rootCause()
+                .isInstanceOfSatisfying(SQLException.class, e -> assertThat(e.getSQLState()).isEqualTo("23P01"));
+    }
+
+    @Test
+    void shouldAcceptBackToBackAndCancelledStays() {
+        repository.saveAndFlush(stay("FIRST001", ReservationStatus.CONFIRMED, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 10)));
+        repository.saveAndFlush(stay("NEXT0001", ReservationStatus.CONFIRMED, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 12)));
+        repository.saveAndFlush(stay("CANCEL01", ReservationStatus.CANCELLED, LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 4)));
+
+        assertThat(repository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldUsePartialIndex_whenSearchingOverlaps() {
+        entityManager.getEntityManager().createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        List<?> plan = entityManager.getEntityManager().createNativeQuery("""
+                EXPLAIN SELECT id FROM reservations
+                WHERE room_number = '101' AND status IN ('PENDING_PAYMENT', 'CONFIRMED')
+                  AND start_date < DATE '2026-03-07' AND end_date > DATE '2026-03-03'
+                """).getResultList();
+
+        assertThat(plan.toString()).contains("idx_reservations_room_period_active");
+    }
+
+    @Test
+    void shouldUsePartialKeysetIndex_whenPagingOverdueKeys() {
+        entityManager.getEntityManager().createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        List<?> plan = entityManager.getEntityManager().createNativeQuery("""
+                EXPLAIN SELECT start_date, id FROM reservations
+                WHERE status = 'PENDING_PAYMENT' AND payment_mode = 'BANK_TRANSFER'
+                  AND start_date <= DATE '2026-03-07' AND start_date >= DATE '2026-03-01'
+                  AND (start_date > DATE '2026-03-01' OR id > 'A0000001')
+                ORDER BY start_date, id
+                LIMIT 500
+                """).getResultList();
+
+        assertThat(plan.toString()).contains("idx_reservations_overdue_keyset");
+    }
+
+    private static Reservation stay(String id, ReservationStatus status, LocalDate start, LocalDate end) {
+        return Reservation.builder()
+                .id(id)
+                .customerName("Guest " + id)
+                .roomNumber("101")
+                .segment(RoomSegment.SMALL)
+                .startDate(start)
+                .endDate(end)
+                .status(status)
+                .paymentMode(PaymentMode.CASH)
+                .build();
+    }
+}
@@ -1,14 +1,22 @@
 package com.marvel.hospitality.reservationservice.repository;
 
+import com.marvel.hospitality.reservationservice.dto.DeferredCardHold;
+import com.marvel.hospitality.reservationservice.dto.ReservationKey;
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
 import com.marvel.hospitality.reservationservice.entity.Reservation;
 import com.marvel.hospitality.reservationservice.model.PaymentMode;
 import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.model.RoomSegment;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -19,6 +27,9 @@ class ReservationRepositoryTest {
     @Autowired
     private ReservationRepository repository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     @DisplayName("Should find reservations matching status, payment mode, and date (inclusive)")
     void shouldFindReservationsByCriteria() {
@@ -163,4 +174,230 @@ class ReservationRepositoryTest {
 
         assertThat(overlaps).isEmpty();
     }
+
+    @Test
+    void shouldTellOverlappingActiveStayExists_withoutMatchingCancelledOrAdjacentStays() {
+        repository.saveAll(List.of(
+                Reservation.builder().id("ACTIVE01").roomNumber("101").segment(RoomSegment.SMALL)
+                        .startDate(LocalDate.of(2026, 3, 1)).endDate(LocalDate.of(2026, 3, 5))
+                        .status(ReservationStatus.PENDING_PAYMENT).paymentMode(PaymentMode.BANK_TRANSFER).build(),
+                Reservation.builder().id("CANCEL01").roomNumber("101").segment(RoomSegment.SMALL)
+                        .startDate(LocalDate.of(2026, 3, 10)).endDate(LocalDate.of(2026, 3, 15))
+                        .status(ReservationStatus.CANCELLED).paymentMode(PaymentMode.CASH).build()));
+
+        assertThat(repository.existsOverlappingStay("101", LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 6))).isTrue();
+        assertThat(repository.existsOverlappingStay("101", LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 8))).isFalse();
+        assertThat(repository.existsOverlappingStay("101", LocalDate.of(2026, 3, 11), LocalDate.of(2026, 3, 12))).isFalse();
+        assertThat(repository.existsOverlappingStay("102", LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 5))).isFalse();
+    }
+
+    @Test
+    void shouldFindStaysChangedSince_withTheirStatus() {
+        repository.saveAllAndFlush(List.of(
+                Reservation.builder().id("CANCEL01").roomNumber("103").segment(RoomSegment.LARGE)
+                        .startDate(LocalDate.of(2026, 6, 1)).endDate(LocalDate.of(2026, 6, 3))
+                        .status(ReservationStatus.PENDING_PAYMENT).paymentMode(PaymentMode.BANK_TRANSFER).build()));
+        LocalDateTime cancelledAt = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MICROS);
+        repository.cancelPending(List.of("CANCEL01"), cancelledAt);
+
+        assertThat(repository.findStaysChangedSince(cancelledAt)).singleElement().satisfies(change -> {
+            assertThat(change.reservationId()).isEqualTo("CANCEL01");
+            assertThat(change.status()).isEqualTo(ReservationStatus.CANCELLED);
+            assertThat(change.isActive()).isFalse();
+        });
+        assertThat(repository.findStaysChangedSince(cancelledAt.plusSeconds(1))).isEmpty();
+    }
+
+    @Test
+    void shouldLoadOnlyActiveStays() {
+        repository.saveAll(List.of(
+                Reservation.builder().id("PENDING1").roomNumber("101").segment(RoomSegment.SMALL)
+                        .startDate(LocalDate.of(2026, 6, 1)).endDate(LocalDate.of(2026, 6, 3))
+                        .status(ReservationStatus.PENDING_PAYMENT).paymentMode(PaymentMode.BANK_TRANSFER).build(),
+                Reservation.builder().id("CONFIRM1").roomNumber("102").segment(RoomSegment.LARGE)
+                        .startDate(LocalDate.of(2026, 6, 1)).endDate(LocalDate.of(2026, 6, 3))
+                        .status(ReservationStatus.CONFIRMED).paymentMode(PaymentMode.CASH).build(),
+                Reservation.builder().id("CANCEL01").roomNumber("103").segment(RoomSegment.LARGE)
+                        .startDate(LocalDate.of(2026, 6, 1)).endDate(LocalDate.of(2026, 6, 3))
+                        .status(ReservationStatus.CANCELLED).paymentMode(PaymentMode.CASH).build()));
+
+        List<ReservationStay> stays = repository.findActiveStays();
+
+        assertThat(stays).extracting(ReservationStay::reservationId)
+                .containsExactlyInAnyOrder("PENDING1", "CONFIRM1");
+        assertThat(stays).filteredOn(s -> s.reservationId().equals("CONFIRM1")).singleElement()
+                .satisfies(s -> {
+                    assertThat(s.roomNumber()).isEqualTo("102");
+                    assertThat(s.segment()).isEqualTo(RoomSegment.LARGE);
+                });
+    }
+
+    @Test
+    void shouldUseRoomPeriodIndex_whenSearchingOverlaps() {
+        String plan = explain("""
+                SELECT id FROM reservations
+                WHERE room_number = '101' AND status IN ('PENDING_PAYMENT', 'CONFIRMED')
+                  AND start_date < DATE '2026-03-07' AND end_date > DATE '2026-03-03'
+                """);
+
+        assertThat(plan).containsIgnoringCase("IDX_RESERVATIONS_ROOM_PERIOD");
+    }
+
+    @Test
+    void shouldUseUpdatedAtIndex_whenRefreshingAvailability() {
+        String plan = explain("""
+                SELECT id, room_number, segment, start_date, end_date, status FROM reservations
+                WHERE updated_at >= TIMESTAMP '2026-03-01 00:00:00'
+                """);
+
+        assertThat(plan).containsIgnoringCase("IDX_RESERVATIONS_UPDATED_AT");
+    }
+
+    @Test
+    void shouldUseStatusModeStartIndex_whenSearchingOverduePayments() {
+        String plan = explain("""
+                SELECT id FROM reservations
+                WHERE status = 'PENDING_PAYMENT' AND payment_mode = 'BANK_TRANSFER'
+                  AND start_date <= DATE '2026-03-07'
+                """);
+
+        assertThat(plan).containsIgnoringCase("IDX_RESERVATIONS_STATUS_MODE_START");
+    }
+
+    @Test
+    void shouldUseStatusModeStartIndex_whenPagingOverdueKeys() {
+        String plan = explain("""
+                SELECT start_date, id FROM reservations
+                WHERE status = 'PENDING_PAYMENT' AND payment_mode = 'BANK_TRANSFER'
+                  AND start_date <= DATE '2026-03-07' AND start_date >= DATE '2026-03-01'
+                  AND (start_date > DATE '2026-03-01' OR id > 'A0000001')
+                ORDER BY start_date, id
+                FETCH FIRST 500 ROWS ONLY
+                """);
+
+        assertThat(plan).containsIgnoringCase("IDX_RESERVATIONS_STATUS_MODE_START");
+    }
+
+    @Test
+    void shouldSelectOverdueBankTransferIdsInStartDateOrder() {
+        repository.saveAll(List.of(
+                overdue("LATE0001", LocalDate.of(2026, 3, 3), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("EARLY001", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("FUTURE01", LocalDate.of(2026, 3, 4), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("CARD0001", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.CREDIT_CARD),
+                overdue("PAID0001", LocalDate.of(2026, 3, 1), ReservationStatus.CONFIRMED, PaymentMode.BANK_TRANSFER)));
+
+        assertThat(repository.findOverdueBankTransferIds(LocalDate.of(2026, 3, 3), Limit.unlimited()))
+                .containsExactly("EARLY001", "LATE0001");
+        assertThat(repository.findOverdueBankTransferIds(LocalDate.of(2026, 3, 3), Limit.of(1)))
+                .containsExactly("EARLY001");
+    }
+
+    @Test
+    void shouldPageOverdueBankTransferKeysByStartDateThenId() {
+        repository.saveAll(List.of(
+                overdue("B0000001", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("A0000001", LocalDate.of(2026, 3, 2), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("C0000001", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("A0000002", LocalDate.of(2026, 3, 3), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("PAID0001", LocalDate.of(2026, 3, 1), ReservationStatus.CONFIRMED, PaymentMode.BANK_TRANSFER)));
+        LocalDate threshold = LocalDate.of(2026, 3, 3);
+
+        List<ReservationKey> first = repository.findOverdueBankTransferKeys(threshold, Limit.of(2));
+        ReservationKey last = first.getLast();
+        List<ReservationKey> rest = repository.findOverdueBankTransferKeysAfter(
+                threshold, last.startDate(), last.id(), Limit.of(10));
+
+        assertThat(first).extracting(ReservationKey::id).containsExactly("B0000001", "C0000001");
+        assertThat(rest).extracting(ReservationKey::id).containsExactly("A0000001", "A0000002");
+    }
+
+    @Test
+    void shouldCancelOnlyPendingRows_andFindThemByCancellationTime() {
+        repository.saveAll(List.of(
+                overdue("PENDING1", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("PAID0001", LocalDate.of(2026, 3, 1), ReservationStatus.CONFIRMED, PaymentMode.BANK_TRANSFER)));
+        repository.flush();
+        LocalDateTime now = LocalDateTime.of(2026, 2, 27, 0, 0, 0, 123_456_000);
+
+        int updated = repository.cancelPending(List.of("PENDING1", "PAID0001"), now);
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(repository.findCancelledAt(List.of("PENDING1", "PAID0001"), now)).containsExactly("PENDING1");
+        assertThat(repository.findById("PENDING1")).get()
+                .satisfies(r -> {
+                    assertThat(r.getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+                    assertThat(r.getUpdatedAt()).isEqualTo(now);
+                });
+        assertThat(repository.findById("PAID0001")).get()
+                .extracting(Reservation::getStatus).isEqualTo(ReservationStatus.CONFIRMED);
+    }
+
+    @Test
+    void shouldFindOnlyPendingIds_amongThoseAskedFor() {
+        repository.saveAllAndFlush(List.of(
+                overdue("PENDING1", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("PENDING2", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER),
+                overdue("PAID0001", LocalDate.of(2026, 3, 1), ReservationStatus.CONFIRMED, PaymentMode.BANK_TRANSFER)));
+
+        assertThat(repository.findPendingIds(List.of("PENDING1", "PAID0001", "MISSING1")))
+                .containsExactly("PENDING1");
+    }
+
+    @Test
+    void shouldFindOnlyUnsettledCardHolds_placedBeforeTheCutOff() {
+        repository.saveAllAndFlush(List.of(
+                overdue("CARD0001", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.CREDIT_CARD),
+                overdue("CARD0002", LocalDate.of(2026, 3, 1), ReservationStatus.CONFIRMED, PaymentMode.CREDIT_CARD),
+                overdue("BANK0001", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.BANK_TRANSFER)));
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(repository.findStaleCardHoldIds(now.plusMinutes(1), now, Limit.unlimited())).containsExactly("CARD0001");
+        assertThat(repository.findStaleCardHoldIds(now.minusMinutes(5), now, Limit.unlimited())).isEmpty();
+    }
+
+    @Test
+    void shouldKeepDeferredCardHoldsOutOfTheStaleSweep_untilTheirDeferralExpires() {
+        repository.saveAllAndFlush(List.of(
+                overdue("CARD0001", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.CREDIT_CARD),
+                overdue("CARD0002", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.CREDIT_CARD)));
+        LocalDateTime deferredAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        assertThat(repository.deferVerification("CARD0002", deferredAt)).isEqualTo(1);
+        LocalDateTime createdBefore = deferredAt.plusMinutes(1);
+
+        assertThat(repository.findStaleCardHoldIds(createdBefore, deferredAt, Limit.unlimited())).containsExactly("CARD0001");
+        assertThat(repository.findStaleCardHoldIds(createdBefore, deferredAt.plusSeconds(1), Limit.unlimited()))
+                .containsExactly("CARD0001", "CARD0002");
+        assertThat(repository.findDeferredCardHolds(Limit.unlimited()))
+                .containsExactly(new DeferredCardHold("CARD0002", null));
+        assertThat(repository.countDeferredCardHolds()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFlagOnlyCancelledRows_forRefund() {
+        repository.saveAllAndFlush(List.of(
+                overdue("CARD0001", LocalDate.of(2026, 3, 1), ReservationStatus.CANCELLED, PaymentMode.CREDIT_CARD),
+                overdue("CARD0002", LocalDate.of(2026, 3, 1), ReservationStatus.PENDING_PAYMENT, PaymentMode.CREDIT_CARD)));
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        assertThat(repository.flagRefund("CARD0001", now)).isEqualTo(1);
+        assertThat(repository.flagRefund("CARD0002", now)).isZero();
+
+        assertThat(repository.findById("CARD0001")).get()
+                .extracting(Reservation::getRefundRequiredAt).isEqualTo(now);
+        assertThat(repository.findById("CARD0002")).get()
+                .extracting(Reservation::getRefundRequiredAt).isNull();
+    }
+
+    private String explain(String sql) {
+        return entityManager.getEntityManager()
+                .createNativeQuery("EXPLAIN " + sql)
+                .getSingleResult()
+                .toString();
+    }
+
+    private static Reservation overdue(String id, LocalDate start, ReservationStatus status, PaymentMode mode) {
+        return Reservation.builder().id(id).roomNumber("101").segment(RoomSegment.SMALL)
+                .startDate(start).endDate(start.plusDays(2)).status(status).paymentMode(mode).build();
+    }
 }
@@ -0,0 +1,168 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+import com.marvel.hospitality.reservationservice.entity.JobCheckpoint;
+import com.marvel.hospitality.reservationservice.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.kafka.enabled=false",
+        "cancel.mode=CHUNKED",
+        "cancel.chunk-size=1000",
+        "cancel.workers=4",
+        "cancel.resume-check-interval=1h"
+})
+@ActiveProfiles("test")
+class ChunkedOverdueCancellationIntegrationTest {
+
+    private static final int OVERDUE_ROWS = 100_000;
+    private static final LocalDate THRESHOLD = LocalDate.of(2100, 1, 31);
+    private static final String INSERT = """
+            INSERT INTO reservations (id, customer_name, room_number, start_date, end_date, segment,
+                                      payment_mode, status, created_at, updated_at)
+            VALUES (?, 'Guest', ?, ?, ?, 'SMALL', ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private ChunkedOverdueCancellation cancellation;
+    @Autowired
+    private JobCheckpointRepository checkpoints;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("TRUNCATE TABLE reservations");
+        checkpoints.deleteAll();
+    }
+
+    @Test
+    void should_cancelEveryOverdueRow_when_runningChunksInParallel() {
+        seedOverdueRows();
+        double cancelledBefore = meterRegistry.get("reservation.cancellation.cancelled").counter().count();
+
+        int cancelled = cancellation.run(THRESHOLD, () -> true);
+
+        assertThat(cancelled).isEqualTo(OVERDUE_ROWS);
+        assertThat(countByStatus("CANCELLED")).isEqualTo(OVERDUE_ROWS);
+        assertThat(statusOf("NOT-DUE1")).isEqualTo("PENDING_PAYMENT");
+        assertThat(statusOf("PAID0001")).isEqualTo("CONFIRMED");
+        assertThat(checkpoints.findById(ChunkedOverdueCancellation.JOB_NAME)).isEmpty();
+        assertThat(meterRegistry.get("reservation.cancellation.cancelled").counter().count() - cancelledBefore)
+                .isEqualTo(OVERDUE_ROWS);
+        assertThat(meterRegistry.get("reservation.cancellation.chunk").timer().count()).isGreaterThanOrEqualTo(100);
+        assertThat(meterRegistry.get("reservation.cancellation.run").timer().count()).isPositive();
+    }
+
+    @Test
+    void should_resumeAfterCheckpoint_when_previousRunWasInterrupted() {
+        seedOverdueRows();
+        String checkpointId = jdbcTemplate.queryForObject("""
+                SELECT id FROM reservations WHERE start_date = DATE '2100-01-15' ORDER BY id LIMIT 1 OFFSET 100
+                """, String.class);
+        checkpoints.save(JobCheckpoint.builder()
+                .jobName(ChunkedOverdueCancellation.JOB_NAME)
+                .runThreshold(THRESHOLD)
+                .lastStartDate(LocalDate.of(2100, 1, 15))
+                .lastId(checkpointId)
+                .updatedAt(LocalDateTime.now())
+                .build());
+        Integer alreadyProcessed = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM reservations
+                WHERE status = 'PENDING_PAYMENT' AND start_date <= ?
+                  AND (start_date < DATE '2100-01-15' OR (start_date = DATE '2100-01-15' AND id <= ?))
+                """, Integer.class, Date.valueOf(THRESHOLD), checkpointId);
+
+        int cancelled = cancellation.run(THRESHOLD, () -> true);
+
+        assertThat(cancelled).isEqualTo(OVERDUE_ROWS - alreadyProcessed);
+        assertThat(countByStatus("PENDING_PAYMENT")).isEqualTo(alreadyProcessed + 1);
+        assertThat(statusOf(checkpointId)).isEqualTo("PENDING_PAYMENT");
+        assertThat(checkpoints.findById(ChunkedOverdueCancellation.JOB_NAME)).isEmpty();
+    }
+
+    @Test
+    void should_keepCheckpoint_when_toldToStopMidRun() {
+        seedOverdueRows();
+        AtomicInteger pages = new AtomicInteger();
+
+        assertThatThrownBy(() -> cancellation.run(THRESHOLD, () -> pages.incrementAndGet() <= 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("resume from the last checkpoint");
+
+        assertThat(cancellation.wasInterrupted()).isTrue();
+        assertThat(countByStatus("CANCELLED")).isEqualTo(10 * 1000);
+        assertThat(checkpoints.findById(ChunkedOverdueCancellation.JOB_NAME)).get()
+                .satisfies(c -> assertThat(c.getRunThreshold()).isEqualTo(THRESHOLD));
+
+        assertThat(cancellation.run(THRESHOLD, () -> true)).isEqualTo(OVERDUE_ROWS - 10 * 1000);
+        assertThat(cancellation.wasInterrupted()).isFalse();
+    }
+
+    @Test
+    void should_startFromTheBeginning_when_checkpointBelongsToAnotherThreshold() {
+        jdbcTemplate.batchUpdate(INSERT, List.<Object[]>of(row("O0000001", THRESHOLD, "PENDING_PAYMENT", "BANK_TRANSFER")));
+        checkpoints.save(JobCheckpoint.builder()
+                .jobName(ChunkedOverdueCancellation.JOB_NAME)
+                .runThreshold(THRESHOLD.minusDays(1))
+                .lastStartDate(THRESHOLD)
+                .lastId("O0000001")
+                .updatedAt(LocalDateTime.now())
+                .build());
+
+        assertThat(cancellation.run(THRESHOLD, () -> true)).isEqualTo(1);
+        assertThat(cancellation.wasInterrupted()).isFalse();
+    }
+
+    /** 100k overdue rows spread over 30 start dates, plus one not yet due and one already paid. */
+    private void seedOverdueRows() {
+        jdbcTemplate.update("""
+                INSERT INTO reservations (id, customer_name, room_number, start_date, end_date, segment,
+                                          payment_mode, status, created_at, updated_at)
+                SELECT 'O' || LPAD(CAST(X - 1 AS VARCHAR), 7, '0'), 'Guest', 'R' || MOD(X, 1024),
+                       DATEADD(DAY, MOD(X - 1, 30), DATE '2100-01-01'), DATEADD(DAY, MOD(X - 1, 30) + 2, DATE '2100-01-01'),
+                       'SMALL', 'BANK_TRANSFER', 'PENDING_PAYMENT', TIMESTAMP '2099-12-01 00:00:00', TIMESTAMP '2099-12-01 00:00:00'
+                FROM SYSTEM_RANGE(1, ?)
+                """, OVERDUE_ROWS);
+        jdbcTemplate.batchUpdate(INSERT, List.of(
+                row("NOT-DUE1", THRESHOLD.plusDays(1), "PENDING_PAYMENT", "BANK_TRANSFER"),
+                row("PAID0001", LocalDate.of(2100, 1, 1), "CONFIRMED", "BANK_TRANSFER")));
+    }
+
+    private static Object[] row(String id, LocalDate start, String status, String paymentMode) {
+        Timestamp created = Timestamp.valueOf(LocalDateTime.of(2099, 12, 1, 0, 0));
+        return new Object[]{id, "R" + (id.hashCode() & 1023), Date.valueOf(start), Date.valueOf(start.plusDays(2)),
+                paymentMode, status, created, created};
+    }
+
+    private int countByStatus(String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservations WHERE status = ?", Integer.class, status);
+    }
+
+    private String statusOf(String id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM reservations WHERE id = ?", String.class, id);
+    }
+}
@@ -0,0 +1,119 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.marvel.hospitality.reservationservice.scheduler.OverdueReservationCanceller.CancelledChunk;
+import com.marvel.hospitality.reservationservice.service.RoomAvailabilityService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueReservationCancellerTest {
+
+    private static final LocalDate THRESHOLD = LocalDate.of(2026, 3, 3);
+
+    @Mock
+    private ReservationRepository repository;
+    @Mock
+    private RoomAvailabilityService roomAvailability;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OverdueReservationCanceller canceller;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        canceller = new OverdueReservationCanceller(
+                repository, roomAvailability, transactionTemplate, meterRegistry, 2);
+    }
+
+    @Test
+    void should_cancelWholeChunkAndRelease_when_everyRowIsStillPending() {
+        when(repository.findOverdueBankTransferIds(THRESHOLD, Limit.of(2))).thenReturn(List.of("RES001", "RES002"));
+        when(repository.cancelPending(eq(List.of("RES001", "RES002")), any(LocalDateTime.class))).thenReturn(2);
+
+        CancelledChunk chunk = canceller.cancelNextChunk(THRESHOLD);
+
+        assertThat(chunk.scanned()).isEqualTo(2);
+        assertThat(chunk.cancelledIds()).containsExactly("RES001", "RES002");
+        verify(roomAvailability).release("RES001");
+        verify(roomAvailability).release("RES002");
+        verify(repository, never()).findCancelledAt(anyList(), any());
+        assertThat(meterRegistry.get("reservation.cancellation.chunk").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("reservation.cancellation.cancelled").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void should_reportOnlyRowsItCancelled_when_aPaymentWasConfirmedConcurrently() {
+        when(repository.findOverdueBankTransferIds(THRESHOLD, Limit.of(2))).thenReturn(List.of("RES001", "RES002"));
+        when(repository.cancelPending(anyList(), any(LocalDateTime.class))).thenReturn(1);
+        when(repository.findCancelledAt(eq(List.of("RES001", "RES002")), any(LocalDateTime.class)))
+                .thenReturn(List.of("RES002"));
+
+        CancelledChunk chunk = canceller.cancelNextChunk(THRESHOLD);
+
+        assertThat(chunk.scanned()).isEqualTo(2);
+        assertThat(chunk.cancelledIds()).containsExactly("RES002");
+        verify(roomAvailability).release("RES002");
+        verify(roomAvailability, never()).release("RES001");
+    }
+
+    @Test
+    void should_returnEmptyChunk_when_nothingIsOverdue() {
+        when(repository.findOverdueBankTransferIds(THRESHOLD, Limit.of(2))).thenReturn(List.of());
+
+        CancelledChunk chunk = canceller.cancelNextChunk(THRESHOLD);
+
+        assertThat(chunk.scanned()).isZero();
+        assertThat(chunk.cancelledIds()).isEmpty();
+        verify(repository, never()).cancelPending(anyList(), any());
+        verifyNoInteractions(roomAvailability);
+    }
+
+    @Test
+    void should_cancelGivenIds_when_calledWithExplicitBatch() {
+        when(repository.cancelPending(eq(List.of("RES001", "RES002")), any(LocalDateTime.class))).thenReturn(1);
+        when(repository.findCancelledAt(eq(List.of("RES001", "RES002")), any(LocalDateTime.class)))
+                .thenReturn(List.of("RES001"));
+
+        List<String> cancelled = canceller.cancel(List.of("RES001", "RES002"));
+
+        assertThat(cancelled).containsExactly("RES001");
+        verify(roomAvailability).release("RES001");
+        assertThat(meterRegistry.get("reservation.cancellation.cancelled").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_cancelStaleCardHolds_when_holdOutlivedTheTimeout() {
+        LocalDateTime createdBefore = LocalDateTime.of(2026, 3, 1, 12, 0);
+        LocalDateTime deferredBefore = LocalDateTime.of(2026, 3, 1, 10, 0);
+        when(repository.findStaleCardHoldIds(createdBefore, deferredBefore, Limit.of(2))).thenReturn(List.of("CARD001"));
+        when(repository.cancelPending(eq(List.of("CARD001")), any(LocalDateTime.class))).thenReturn(1);
+
+        CancelledChunk chunk = canceller.cancelStaleCardHolds(createdBefore, deferredBefore);
+
+        assertThat(chunk.scanned()).isEqualTo(1);
+        assertThat(chunk.cancelledIds()).containsExactly("CARD001");
+        verify(roomAvailability).release("CARD001");
+    }
+}
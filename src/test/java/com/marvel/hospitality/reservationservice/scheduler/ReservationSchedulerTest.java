@@ -4,28 +4,31 @@ package com.marvel.hospitality.reservationservice.scheduler;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
-import com.marvel.hospitality.reservationservice.entity.Reservation;
-import com.marvel.hospitality.reservationservice.model.ReservationStatus;
-import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.marvel.hospitality.reservationservice.listener.PaymentDeduplicator;
+import com.marvel.hospitality.reservationservice.scheduler.OverdueReservationCanceller.CancelledChunk;
+import com.marvel.hospitality.reservationservice.service.DeferredCardVerifier;
+import com.marvel.hospitality.reservationservice.service.RoomAvailabilityService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 
-import static com.marvel.hospitality.reservationservice.model.PaymentMode.BANK_TRANSFER;
-import static com.marvel.hospitality.reservationservice.model.ReservationStatus.PENDING_PAYMENT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -34,17 +37,23 @@ class ReservationSchedulerTest {
 
 
     @Mock
-    private ReservationRepository repository;
+    private OverdueReservationCanceller canceller;
+    @Mock
+    private ChunkedOverdueCancellation chunkedCancellation;
+    @Mock
+    private DeferredCardVerifier deferredVerification;
+    @Mock
+    private SchedulerLeases leases;
+    @Mock
+    private PaymentDeduplicator paymentDeduplicator;
+    @Mock
+    private RoomAvailabilityService roomAvailability;
 
 
     @InjectMocks
     private ReservationScheduler scheduler;
 
 
-    @Captor
-    private ArgumentCaptor<Reservation> reservationCaptor;
-
-
     private ListAppender<ILoggingEvent> logAppender;
     private Logger logger;
 
@@ -55,6 +64,12 @@ class ReservationSchedulerTest {
         logAppender.start();
         logger = (Logger) LoggerFactory.getLogger(ReservationScheduler.class);
         logger.addAppender(logAppender);
+        lenient().when(leases.runExclusively(eq(ReservationScheduler.OVERDUE_CANCELLATION), any(), any()))
+                .thenAnswer(i -> {
+                    i.<BooleanSupplier>getArgument(2).getAsBoolean();
+                    return true;
+                });
+        lenient().when(leases.holds(ReservationScheduler.OVERDUE_CANCELLATION)).thenReturn(true);
     }
 
 
@@ -67,43 +82,51 @@ class ReservationSchedulerTest {
 
     @Test
     void should_cancelAndLog_when_overdueReservationsExist() {
-        Reservation overdue = Reservation.builder().id("RES001").status(PENDING_PAYMENT)
-                .paymentMode(BANK_TRANSFER).startDate(LocalDate.now().plusDays(1)).build();
-        when(repository.findByStatusAndPaymentModeAndStartDateLessThanEqual(any(), any(), any()))
-                .thenReturn(List.of(overdue));
+        when(canceller.cancelNextChunk(LocalDate.now().plusDays(2)))
+                .thenReturn(new CancelledChunk(1, List.of("RES001")), new CancelledChunk(0, List.of()));
 
         scheduler.cancelOverdueBankTransferReservations();
 
-        verify(repository).save(reservationCaptor.capture());
-        assertThat(reservationCaptor.getValue().getStatus()).isEqualTo(ReservationStatus.CANCELLED);
-
-
+        verify(canceller, times(2)).cancelNextChunk(any());
         List<ILoggingEvent> logs = logAppender.list;
         assertThat(logs).anyMatch(e -> e.getFormattedMessage().contains("Starting overdue cancellation check"));
-        assertThat(logs).anyMatch(e -> e.getFormattedMessage().contains("Cancelled reservation RES001"));
+        assertThat(logs).anyMatch(e -> e.getFormattedMessage().contains("Cancelled reservations [RES001]"));
+        assertThat(logs).anyMatch(e -> e.getFormattedMessage().contains("processed 1 reservations"));
     }
 
 
     @Test
-    void should_logAndNotSave_when_noOverdueReservationsFound() {
-        when(repository.findByStatusAndPaymentModeAndStartDateLessThanEqual(any(), any(), any()))
-                .thenReturn(List.of());
+    void should_logAndStop_when_noOverdueReservationsFound() {
+        when(canceller.cancelNextChunk(any())).thenReturn(new CancelledChunk(0, List.of()));
 
 
         scheduler.cancelOverdueBankTransferReservations();
 
 
-        verify(repository, never()).save(any());
-
-
+        verify(canceller).cancelNextChunk(any());
         List<ILoggingEvent> logs = logAppender.list;
         assertThat(logs).anyMatch(e -> e.getFormattedMessage().contains("processed 0 reservations"));
     }
 
 
     @Test
-    void should_logFailure_when_queryExceptionOccurs() {
-        when(repository.findByStatusAndPaymentModeAndStartDateLessThanEqual(any(), any(), any()))
+    void should_keepGoing_when_aChunkCancelsNothingBecauseOfConcurrentConfirmations() {
+        when(canceller.cancelNextChunk(any())).thenReturn(
+                new CancelledChunk(2, List.of()),
+                new CancelledChunk(2, List.of("RES002", "RES003")),
+                new CancelledChunk(0, List.of()));
+
+        scheduler.cancelOverdueBankTransferReservations();
+
+        verify(canceller, times(3)).cancelNextChunk(any());
+        assertThat(logAppender.list).anyMatch(e -> e.getFormattedMessage().contains("processed 2 reservations"));
+    }
+
+
+    @Test
+    void should_logFailure_when_chunkFails() {
+        when(canceller.cancelNextChunk(any()))
+                .thenReturn(new CancelledChunk(1, List.of("RES001")))
                 .thenThrow(new RuntimeException("DB error"));
 
 
@@ -112,26 +135,233 @@ class ReservationSchedulerTest {
 
         List<ILoggingEvent> logs = logAppender.list;
         assertThat(logs).anyMatch(e ->
-                e.getFormattedMessage().contains("Overdue cancellation task failed"));
+                e.getFormattedMessage().contains("Overdue cancellation task failed after 1 reservations"));
+    }
+
+    @Test
+    void should_delegateToChunkedRun_when_chunkedModeIsConfigured() {
+        ReflectionTestUtils.setField(scheduler, "mode", CancellationMode.CHUNKED);
+        when(chunkedCancellation.run(eq(LocalDate.now().plusDays(2)), any())).thenReturn(42);
+
+        scheduler.cancelOverdueBankTransferReservations();
+
+        verifyNoInteractions(canceller);
+        assertThat(logAppender.list).anyMatch(e -> e.getFormattedMessage().contains("processed 42 reservations"));
     }
 
     @Test
-    void should_logFailure_and_continue_processing_when_ExceptionOccurs_forOneReservation() {
-        Reservation badReservation = Reservation.builder().id("RES-BAD").status(PENDING_PAYMENT)
-                .paymentMode(BANK_TRANSFER).startDate(LocalDate.now().plusDays(1)).build();
-        Reservation goodReservation = Reservation.builder().id("RES-GOOD").status(PENDING_PAYMENT)
-                .paymentMode(BANK_TRANSFER).startDate(LocalDate.now().plusDays(1)).build();
+    void should_keepOverdueLeaseForMinHold_when_runEnds() {
+        ReflectionTestUtils.setField(scheduler, "overdueMinHold", Duration.ofMinutes(10));
+        when(canceller.cancelNextChunk(any())).thenReturn(new CancelledChunk(0, List.of()));
+
+        scheduler.cancelOverdueBankTransferReservations();
 
-        when(repository.findByStatusAndPaymentModeAndStartDateLessThanEqual(any(), any(), any()))
-                .thenReturn(List.of(badReservation, goodReservation));
+        verify(leases).runExclusively(eq(ReservationScheduler.OVERDUE_CANCELLATION), eq(Duration.ofMinutes(10)), any());
+    }
+
+    @Test
+    void should_skipRun_when_anotherNodeHoldsTheLease() {
+        when(leases.runExclusively(eq(ReservationScheduler.OVERDUE_CANCELLATION), any(), any())).thenReturn(false);
 
-        when(repository.save(argThat(res -> "RES-BAD".equals(res.getId()))))
-                .thenThrow(new RuntimeException("DB glitch"));
         scheduler.cancelOverdueBankTransferReservations();
 
+        verifyNoInteractions(canceller, chunkedCancellation);
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Overdue cancellation skipped - another node holds the lease"));
+    }
+
+    @Test
+    void should_logFailure_when_leaseCannotBeAcquired() {
+        when(leases.runExclusively(eq(ReservationScheduler.OVERDUE_CANCELLATION), any(), any()))
+                .thenThrow(new RuntimeException("DB down"));
+
+        scheduler.cancelOverdueBankTransferReservations();
+
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Overdue cancellation could not start"));
+    }
+
+    @Test
+    void should_stopSequentialRun_when_leaseIsLost() {
+        when(canceller.cancelNextChunk(any())).thenReturn(new CancelledChunk(1, List.of("RES001")));
+        when(leases.holds(ReservationScheduler.OVERDUE_CANCELLATION)).thenReturn(false);
+
+        scheduler.cancelOverdueBankTransferReservations();
+
+        verify(canceller).cancelNextChunk(any());
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("stopped after 1 reservations - lease lost to another node"));
+    }
+
+    @Test
+    void should_takeOverRun_when_previousLeaseWasAbandoned() {
+        when(leases.isAbandoned(ReservationScheduler.OVERDUE_CANCELLATION)).thenReturn(true);
+        when(canceller.cancelNextChunk(any())).thenReturn(new CancelledChunk(0, List.of()));
+
+        scheduler.resumeInterruptedCancellation();
+
+        verify(canceller).cancelNextChunk(any());
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Resuming interrupted overdue cancellation"));
+    }
+
+    @Test
+    void should_resumeChunkedRun_when_checkpointIsLeftBehind() {
+        ReflectionTestUtils.setField(scheduler, "mode", CancellationMode.CHUNKED);
+        when(chunkedCancellation.wasInterrupted()).thenReturn(true);
+        when(chunkedCancellation.run(any(), any())).thenReturn(7);
+
+        scheduler.resumeInterruptedCancellation();
+
+        assertThat(logAppender.list).anyMatch(e -> e.getFormattedMessage().contains("processed 7 reservations"));
+    }
+
+    @Test
+    void should_notResume_when_checkpointBelongsToLiveRunOnAnotherNode() {
+        ReflectionTestUtils.setField(scheduler, "mode", CancellationMode.CHUNKED);
+        when(chunkedCancellation.wasInterrupted()).thenReturn(true);
+        when(leases.isTaken(ReservationScheduler.OVERDUE_CANCELLATION)).thenReturn(true);
+
+        scheduler.resumeInterruptedCancellation();
+
+        verify(chunkedCancellation, never()).run(any(), any());
+        verify(leases, never()).runExclusively(any(), any(), any());
+        assertThat(logAppender.list).noneMatch(e ->
+                e.getFormattedMessage().contains("Resuming interrupted overdue cancellation"));
+    }
+
+    @Test
+    void should_logFailure_when_resumeCheckFails() {
+        when(leases.isAbandoned(ReservationScheduler.OVERDUE_CANCELLATION)).thenThrow(new IllegalStateException("DB down"));
+
+        scheduler.resumeInterruptedCancellation();
+
+        assertThat(logAppender.list).anyMatch(e -> e.getFormattedMessage().contains("Resuming overdue cancellation failed"));
+    }
+
+    @Test
+    void should_notResume_when_nothingWasInterrupted() {
+        scheduler.resumeInterruptedCancellation();
+
+        verifyNoInteractions(canceller);
+        verify(chunkedCancellation, never()).run(any(), any());
+    }
+
+    @Test
+    void should_releaseStaleCardHolds_when_holdTimeoutPassed() {
+        ReflectionTestUtils.setField(scheduler, "cardHoldTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(scheduler, "maxDeferral", Duration.ofHours(2));
+        when(leases.runExclusively(eq(ReservationScheduler.STALE_CARD_HOLDS), any()))
+                .thenAnswer(i -> i.<BooleanSupplier>getArgument(1).getAsBoolean());
+        when(leases.holds(ReservationScheduler.STALE_CARD_HOLDS)).thenReturn(true);
+        when(canceller.cancelStaleCardHolds(any(), any())).thenReturn(
+                new CancelledChunk(1, List.of("CARD001")), new CancelledChunk(0, List.of()));
+
+        scheduler.releaseStaleCardHolds();
+
+        verify(canceller, times(2)).cancelStaleCardHolds(
+                argThat(cutOff -> cutOff.isBefore(LocalDateTime.now().minusMinutes(4))),
+                argThat(cutOff -> cutOff.isBefore(LocalDateTime.now().minusMinutes(119))));
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Released stale card-payment holds [CARD001]"));
+    }
+
+    @Test
+    void should_skipStaleCardHolds_when_anotherNodeHoldsTheLease() {
+        when(leases.runExclusively(eq(ReservationScheduler.STALE_CARD_HOLDS), any())).thenReturn(false);
+
+        scheduler.releaseStaleCardHolds();
+
+        verify(canceller, never()).cancelStaleCardHolds(any(), any());
+    }
+
+    @Test
+    void should_stopReleasingStaleCardHolds_when_leaseIsLost() {
+        ReflectionTestUtils.setField(scheduler, "cardHoldTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(scheduler, "maxDeferral", Duration.ofHours(2));
+        when(leases.runExclusively(eq(ReservationScheduler.STALE_CARD_HOLDS), any()))
+                .thenAnswer(i -> i.<BooleanSupplier>getArgument(1).getAsBoolean());
+        when(leases.holds(ReservationScheduler.STALE_CARD_HOLDS)).thenReturn(false);
+        when(canceller.cancelStaleCardHolds(any(), any())).thenReturn(new CancelledChunk(1, List.of("CARD001")));
+
+        scheduler.releaseStaleCardHolds();
+
+        verify(canceller).cancelStaleCardHolds(any(), any());
+    }
+
+    @Test
+    void should_drainDeferredCardPaymentsUnderLease_when_degradedModeIsEnabled() {
+        when(deferredVerification.isEnabled()).thenReturn(true);
+        when(leases.runExclusively(eq(ReservationScheduler.DEFERRED_CARD_VERIFICATION), any()))
+                .thenAnswer(i -> i.<BooleanSupplier>getArgument(1).getAsBoolean());
+        when(deferredVerification.drain()).thenReturn(2);
+
+        scheduler.verifyDeferredCardPayments();
+
+        verify(deferredVerification).drain();
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Settled 2 deferred card payments"));
+    }
+
+    @Test
+    void should_skipDeferredCardVerification_when_degradedModeIsDisabled() {
+        scheduler.verifyDeferredCardPayments();
+
+        verify(leases, never()).runExclusively(eq(ReservationScheduler.DEFERRED_CARD_VERIFICATION), any());
+        verify(deferredVerification, never()).drain();
+    }
+
+    @Test
+    void should_logPurgedCount_when_processedPaymentsExpired() {
+        when(paymentDeduplicator.purgeExpired()).thenReturn(3);
+
+        scheduler.purgeProcessedPayments();
+
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Purged 3 processed payment records past their TTL"));
+    }
+
+    @Test
+    void should_logFailure_when_purgingProcessedPaymentsFails() {
+        when(paymentDeduplicator.purgeExpired()).thenThrow(new RuntimeException("DB error"));
+
+        scheduler.purgeProcessedPayments();
+
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Purging processed payment records failed - will retry"));
+    }
+
+    @Test
+    void should_refreshRoomAvailability_when_scheduled() {
+        scheduler.refreshRoomAvailability();
+
+        verify(roomAvailability).refresh();
+    }
+
+    @Test
+    void should_logFailure_when_refreshingRoomAvailabilityFails() {
+        doThrow(new RuntimeException("DB error")).when(roomAvailability).refresh();
+
+        scheduler.refreshRoomAvailability();
+
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Refreshing the room availability index failed - will retry"));
+    }
+
+    @Test
+    void should_reloadRoomAvailability_when_scheduled() {
+        scheduler.reloadRoomAvailability();
+
+        verify(roomAvailability).reload();
+    }
+
+    @Test
+    void should_logFailure_when_reloadingRoomAvailabilityFails() {
+        doThrow(new RuntimeException("DB error")).when(roomAvailability).reload();
+
+        scheduler.reloadRoomAvailability();
 
-        List<String> logMessages = logAppender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
-        assertThat(logMessages).anyMatch(s -> s.contains("Cancelled reservation RES-GOOD"));
-        assertThat(logMessages).anyMatch(s -> s.contains("Failed to cancel reservation RES-BAD - continuing"));
+        assertThat(logAppender.list).anyMatch(e ->
+                e.getFormattedMessage().contains("Reloading the room availability index failed - will retry"));
     }
 }
@@ -0,0 +1,186 @@
+package com.marvel.hospitality.reservationservice.scheduler;
+
+import com.marvel.hospitality.reservationservice.entity.SchedulerLease;
+import com.marvel.hospitality.reservationservice.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.kafka.enabled=false",
+        "cancel.resume-check-interval=1h"
+})
+@ActiveProfiles("test")
+class SchedulerLeasesIntegrationTest {
+
+    private static final String JOB = "lease-test-job";
+
+    @Autowired
+    private SchedulerLeaseRepository repository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SchedulerLeases nodeA;
+    private SchedulerLeases nodeB;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteById(JOB);
+        nodeA = new SchedulerLeases(repository, transactionTemplate, meterRegistry, Duration.ofMillis(300), "node-a");
+        nodeB = new SchedulerLeases(repository, transactionTemplate, meterRegistry, Duration.ofMillis(300), "node-b");
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+        repository.deleteById(JOB);
+    }
+
+    @Test
+    void should_runOnOneNodeOnly_when_bothNodesTriggerTheJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Boolean> onA = CompletableFuture.supplyAsync(() -> nodeA.runExclusively(JOB, () -> {
+            started.countDown();
+            await(finish);
+            return true;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicBoolean ranOnB = new AtomicBoolean();
+        boolean acquiredByB = nodeB.runExclusively(JOB, () -> ranOnB.getAndSet(true));
+
+        finish.countDown();
+        assertThat(onA.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(acquiredByB).isFalse();
+        assertThat(ranOnB).isFalse();
+    }
+
+    @Test
+    void should_runOnceOnThisNode_when_jobIsTriggeredAgainMidRun() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> nodeA.runExclusively(JOB, () -> {
+            started.countDown();
+            await(finish);
+            return true;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicBoolean ranAgain = new AtomicBoolean();
+        boolean acquiredAgain = nodeA.runExclusively(JOB, () -> ranAgain.getAndSet(true));
+
+        finish.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(acquiredAgain).isFalse();
+        assertThat(ranAgain).isFalse();
+    }
+
+    @Test
+    void should_letAnotherNodeRun_when_leaseWasReleased() {
+        assertThat(nodeA.runExclusively(JOB, () -> true)).isTrue();
+
+        assertThat(nodeB.runExclusively(JOB, () -> true)).isTrue();
+        assertThat(repository.findById(JOB)).get().satisfies(lease -> assertThat(lease.getOwner()).isNull());
+        assertThat(nodeB.isAbandoned(JOB)).isFalse();
+    }
+
+    @Test
+    void should_keepOtherNodesOut_when_runEndsBeforeItsMinimumHold() {
+        assertThat(nodeA.runExclusively(JOB, Duration.ofMinutes(10), () -> true)).isTrue();
+
+        AtomicBoolean ranOnB = new AtomicBoolean();
+        assertThat(nodeB.runExclusively(JOB, () -> ranOnB.getAndSet(true))).isFalse();
+        assertThat(ranOnB).isFalse();
+        assertThat(nodeB.isAbandoned(JOB)).isFalse();
+        assertThat(nodeB.isTaken(JOB)).isTrue();
+        assertThat(repository.findById(JOB)).get().satisfies(lease -> {
+            assertThat(lease.getOwner()).isNull();
+            assertThat(lease.getExpiresAt()).isAfter(repository.currentTimestamp().plusMinutes(9));
+        });
+    }
+
+    @Test
+    void should_letAnotherNodeRun_when_minimumHoldHasPassed() throws Exception {
+        assertThat(nodeA.runExclusively(JOB, Duration.ofMillis(200), () -> true)).isTrue();
+        assertThat(nodeB.runExclusively(JOB, () -> true)).isFalse();
+
+        Thread.sleep(300);
+
+        assertThat(nodeB.runExclusively(JOB, () -> true)).isTrue();
+    }
+
+    @Test
+    void should_keepLease_when_jobOutlivesTheTtl() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicBoolean heldThroughout = new AtomicBoolean(true);
+        CompletableFuture<Boolean> onA = CompletableFuture.supplyAsync(() -> nodeA.runExclusively(JOB, () -> {
+            started.countDown();
+            await(finish);
+            heldThroughout.set(nodeA.holds(JOB));
+            return true;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread.sleep(1000);
+        assertThat(nodeB.isAbandoned(JOB)).isFalse();
+        assertThat(nodeB.isTaken(JOB)).isTrue();
+        assertThat(nodeB.runExclusively(JOB, () -> true)).isFalse();
+
+        finish.countDown();
+        assertThat(onA.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(heldThroughout).isTrue();
+    }
+
+    @Test
+    void should_reportAndTakeOverLease_when_holderDiedMidRun() {
+        LocalDateTime past = LocalDateTime.now().minusMinutes(5);
+        repository.saveAndFlush(SchedulerLease.builder()
+                .leaseName(JOB).owner("dead-node").acquiredAt(past).expiresAt(past.plusSeconds(30)).build());
+
+        assertThat(nodeB.isAbandoned(JOB)).isTrue();
+        assertThat(nodeB.isTaken(JOB)).isFalse();
+        assertThat(nodeB.runExclusively(JOB, () -> true)).isTrue();
+        assertThat(nodeB.isAbandoned(JOB)).isFalse();
+    }
+
+    @Test
+    void should_recordDurationAndLastRun_when_jobFinishes() {
+        nodeA.runExclusively(JOB, () -> false);
+
+        assertThat(meterRegistry.get("scheduler.job.duration").tag("job", JOB).tag("outcome", "failure")
+                .timer().count()).isPositive();
+        assertThat(nodeA.leases()).filteredOn(lease -> lease.job().equals(JOB)).singleElement()
+                .satisfies(lease -> {
+                    assertThat(lease.heldByThisNode()).isFalse();
+                    assertThat(lease.lastRunOnThisNode().outcome()).isEqualTo("failure");
+                });
+        assertThat(new SchedulerLeaseEndpoint(nodeA).leases().node()).isEqualTo("node-a");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
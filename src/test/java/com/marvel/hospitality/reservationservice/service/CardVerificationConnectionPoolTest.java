@@ -0,0 +1,111 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.marvel.hospitality.reservationservice.dto.ReservationRequest;
+import com.marvel.hospitality.reservationservice.dto.ReservationResponse;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.wiremock.spring.ConfigureWireMock;
+import org.wiremock.spring.EnableWireMock;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@SpringBootTest(properties = {
+        "app.kafka.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+@EnableWireMock(@ConfigureWireMock(name = "credit-card-payment-server", port = 9090, registerSpringBean = true))
+@ActiveProfiles("test")
+class CardVerificationConnectionPoolTest {
+
+    private static final int SLOW_CARD_BOOKINGS = 6;
+
+    @Autowired
+    private ReservationService service;
+    @Autowired
+    private ReservationRepository repository;
+    @Autowired
+    private RoomAvailabilityService roomAvailability;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    @Autowired
+    private DataSource dataSource;
+
+    @Qualifier("credit-card-payment-server")
+    @Autowired
+    private WireMockServer wireMockServer;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer.resetAll();
+        circuitBreakerRegistry.circuitBreaker("creditCard").reset();
+        repository.deleteAll();
+        roomAvailability.reload();
+    }
+
+    @Test
+    void should_keepServingOtherBookings_when_paymentProviderIsSlow() throws Exception {
+        wireMockServer.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .willReturn(aResponse().withStatus(200)
+                        .withFixedDelay(2000)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"status\": \"CONFIRMED\"}")));
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+
+        List<CompletableFuture<ReservationResponse>> cardBookings = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(SLOW_CARD_BOOKINGS)) {
+            for (int i = 0; i < SLOW_CARD_BOOKINGS; i++) {
+                ReservationRequest request = request("C" + i, PaymentMode.CREDIT_CARD, "PAYREF-" + i);
+                cardBookings.add(CompletableFuture.supplyAsync(() -> service.createReservation(request), executor));
+            }
+            await().atMost(5, SECONDS).until(() ->
+                    wireMockServer.findAll(postRequestedFor(urlPathMatching("/credit-card-payment-api/.*"))).size()
+                            == SLOW_CARD_BOOKINGS);
+
+            assertThat(pool.getActiveConnections()).isZero();
+            assertThat(pool.getThreadsAwaitingConnection()).isZero();
+            ReservationResponse cash = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                    () -> service.createReservation(request("CASH1", PaymentMode.CASH, null)));
+            assertThat(cash.status()).isEqualTo(ReservationStatus.CONFIRMED);
+        }
+
+        for (CompletableFuture<ReservationResponse> booking : cardBookings) {
+            assertThat(booking.get(10, SECONDS).status()).isEqualTo(ReservationStatus.CONFIRMED);
+        }
+        assertThat(repository.findAll()).hasSize(SLOW_CARD_BOOKINGS + 1)
+                .allMatch(r -> r.getStatus() == ReservationStatus.CONFIRMED);
+    }
+
+    private static ReservationRequest request(String room, PaymentMode paymentMode, String paymentReference) {
+        return new ReservationRequest("Guest " + room, room, LocalDate.of(2100, 5, 1), LocalDate.of(2100, 5, 3),
+                MEDIUM, paymentMode, paymentReference);
+    }
+}
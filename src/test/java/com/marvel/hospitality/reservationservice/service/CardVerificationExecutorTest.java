@@ -0,0 +1,119 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardVerificationExecutorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CardVerificationExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void should_verifyOnCallingThread_when_modeIsBlocking() {
+        executor = executor(CardVerificationMode.BLOCKING);
+
+        CompletableFuture<Thread> verifiedOn = executor.submit(Thread::currentThread);
+
+        assertThat(verifiedOn).isDone();
+        assertThat(executor.withinBudget(verifiedOn).join()).isSameAs(Thread.currentThread());
+        assertThat(meterRegistry.get("credit-card.verification").tag("mode", "BLOCKING").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_failWithVerificationError_when_verificationFails() {
+        executor = executor(CardVerificationMode.VIRTUAL_THREADS);
+
+        CompletableFuture<String> verification = executor.submit(() -> {
+            throw new IllegalArgumentException("bad reference");
+        });
+
+        assertThatThrownBy(() -> executor.withinBudget(verification).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad reference");
+    }
+
+    @Test
+    void should_verifyOnVirtualThread_when_modeIsVirtualThreads() {
+        executor = executor(CardVerificationMode.VIRTUAL_THREADS);
+
+        Thread verifiedOn = executor.withinBudget(executor.submit(Thread::currentThread)).join();
+
+        assertThat(verifiedOn.isVirtual()).isTrue();
+        assertThat(verifiedOn.getName()).startsWith("card-verification-");
+    }
+
+    @Test
+    void should_timeOutWithoutStoppingCall_until_verificationIsCancelled() throws Exception {
+        executor = executor(CardVerificationMode.VIRTUAL_THREADS);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicReference<Thread> verifiedOn = new AtomicReference<>();
+
+        CompletableFuture<String> verification = executor.submit(() -> {
+            verifiedOn.set(Thread.currentThread());
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+
+        CompletableFuture<String> bounded = executor.withinBudget(verification);
+
+        assertThatThrownBy(bounded::join).cause().isInstanceOf(TimeoutException.class);
+        assertThat(meterRegistry.get("credit-card.verification.budget-exceeded").counter().count()).isEqualTo(1);
+        assertThat(verification).isNotDone();
+
+        verification.cancel(true);
+        assertThat(interrupted.await(5, SECONDS)).isTrue();
+        assertThat(verifiedOn.get().isVirtual()).isTrue();
+    }
+
+    @Test
+    void should_notEnforceBudget_when_modeIsBlocking() {
+        executor = executor(CardVerificationMode.BLOCKING);
+        AtomicBoolean finished = new AtomicBoolean();
+
+        CompletableFuture<Boolean> verification = executor.submit(() -> {
+            sleep(200);
+            finished.set(true);
+            return true;
+        });
+
+        assertThat(executor.withinBudget(verification).join()).isTrue();
+        assertThat(finished).isTrue();
+    }
+
+    private CardVerificationExecutor executor(CardVerificationMode mode) {
+        return new CardVerificationExecutor(mode, Duration.ofMillis(100), BudgetExceededAction.REJECT, meterRegistry);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
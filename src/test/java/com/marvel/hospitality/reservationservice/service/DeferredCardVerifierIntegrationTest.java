@@ -0,0 +1,116 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.marvel.hospitality.reservationservice.client.PaymentStatusCache;
+import com.marvel.hospitality.reservationservice.dto.ReservationRequest;
+import com.marvel.hospitality.reservationservice.dto.ReservationResponse;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.wiremock.spring.ConfigureWireMock;
+import org.wiremock.spring.EnableWireMock;
+
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.kafka.enabled=false",
+        "credit-card-service.degraded-mode.enabled=true"
+})
+@EnableWireMock(@ConfigureWireMock(name = "credit-card-payment-server", port = 9090, registerSpringBean = true))
+@ActiveProfiles("test")
+class DeferredCardVerifierIntegrationTest {
+
+    @Autowired
+    private ReservationService service;
+    @Autowired
+    private DeferredCardVerifier deferredVerification;
+    @Autowired
+    private ReservationRepository repository;
+    @Autowired
+    private RoomAvailabilityService roomAvailability;
+    @Autowired
+    private PaymentStatusCache paymentStatusCache;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Qualifier("credit-card-payment-server")
+    @Autowired
+    private WireMockServer wireMockServer;
+
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer.resetAll();
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("creditCard");
+        circuitBreaker.reset();
+        paymentStatusCache.invalidateAll();
+        repository.deleteAll();
+        roomAvailability.reload();
+    }
+
+    @Test
+    void should_holdRoomPendingPayment_when_circuitIsOpen() {
+        circuitBreaker.transitionToOpenState();
+
+        ReservationResponse response = service.createReservation(booking("301", "PAYREF-OPEN"));
+
+        assertThat(response.status()).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+        assertThat(repository.findById(response.reservationId())).get()
+                .extracting(Reservation::getVerificationDeferredAt).isNotNull();
+        assertThat(roomAvailability.hasOverlap("301", LocalDate.of(2100, 5, 1), LocalDate.of(2100, 5, 3))).isTrue();
+        assertThat(meterRegistry.get("credit-card.deferred.backlog").gauge().value()).isEqualTo(1);
+        assertThat(deferredVerification.drain()).isZero();
+    }
+
+    @Test
+    void should_confirmOrCancelDeferredBookings_when_circuitCloses() {
+        circuitBreaker.transitionToOpenState();
+        String paid = service.createReservation(booking("302", "PAYREF-PAID")).reservationId();
+        String declined = service.createReservation(booking("303", "PAYREF-DECLINED")).reservationId();
+        stubStatus("PAYREF-PAID", "CONFIRMED");
+        stubStatus("PAYREF-DECLINED", "REJECTED");
+        circuitBreaker.transitionToClosedState();
+
+        assertThat(deferredVerification.drain()).isEqualTo(2);
+
+        assertThat(repository.findById(paid)).get().extracting(Reservation::getStatus).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(repository.findById(declined)).get().extracting(Reservation::getStatus).isEqualTo(ReservationStatus.CANCELLED);
+        assertThat(roomAvailability.hasOverlap("303", LocalDate.of(2100, 5, 1), LocalDate.of(2100, 5, 3))).isFalse();
+        assertThat(meterRegistry.get("credit-card.deferred.backlog").gauge().value()).isZero();
+        assertThat(meterRegistry.get("credit-card.deferred.settled").tag("outcome", "confirmed").counter().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    private void stubStatus(String reference, String status) {
+        wireMockServer.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .withRequestBody(equalToJson("{\"paymentReference\": \"" + reference + "\"}", true, true))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"status\": \"" + status + "\"}")));
+    }
+
+    private static ReservationRequest booking(String room, String reference) {
+        return new ReservationRequest("Deferred Guest", room, LocalDate.of(2100, 5, 1), LocalDate.of(2100, 5, 3),
+                MEDIUM, PaymentMode.CREDIT_CARD, reference);
+    }
+}
@@ -0,0 +1,96 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.LARGE;
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccupancyCalendarTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2100, 1, 1);
+
+    private OccupancyCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        calendar = new OccupancyCalendar(TODAY);
+        calendar.register("101", MEDIUM);
+        calendar.register("102", MEDIUM);
+        calendar.register("201", LARGE);
+    }
+
+    @Test
+    void should_listAllRoomsOfSegment_when_nothingIsBooked() {
+        assertThat(calendar.freeRooms(MEDIUM, TODAY, TODAY.plusDays(3))).containsExactly("101", "102");
+        assertThat(calendar.freeRooms(LARGE, TODAY, TODAY.plusDays(3))).containsExactly("201");
+    }
+
+    @Test
+    void should_excludeRoom_when_anyNightOfThePeriodIsBooked() {
+        calendar.occupy(stay("RES00001", "101", TODAY.plusDays(10), TODAY.plusDays(12)));
+
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(11), TODAY.plusDays(20))).containsExactly("102");
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(5), TODAY.plusDays(11))).containsExactly("102");
+    }
+
+    @Test
+    void should_keepRoomFree_when_periodStartsOnCheckOutDay() {
+        calendar.occupy(stay("RES00001", "101", TODAY.plusDays(10), TODAY.plusDays(12)));
+
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(12), TODAY.plusDays(14))).containsExactly("101", "102");
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(8), TODAY.plusDays(10))).containsExactly("101", "102");
+    }
+
+    @Test
+    void should_handleStaysSpanningSeveralWords() {
+        calendar.occupy(stay("RES00001", "101", TODAY.plusDays(60), TODAY.plusDays(200)));
+
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(150), TODAY.plusDays(151))).containsExactly("102");
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(200), TODAY.plusDays(230))).containsExactly("101", "102");
+    }
+
+    @Test
+    void should_registerRoom_when_itIsFirstOccupied() {
+        calendar.occupy(stay("RES00001", "103", TODAY.plusDays(1), TODAY.plusDays(2)));
+
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(1), TODAY.plusDays(2))).containsExactly("101", "102");
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(2), TODAY.plusDays(3))).containsExactly("101", "102", "103");
+    }
+
+    @Test
+    void should_recomputeRoomNights_when_reset() {
+        ReservationStay kept = stay("RES00001", "101", TODAY.plusDays(1), TODAY.plusDays(3));
+        calendar.occupy(kept);
+        calendar.occupy(stay("RES00002", "101", TODAY.plusDays(5), TODAY.plusDays(7)));
+
+        calendar.reset("101", List.of(kept));
+
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(5), TODAY.plusDays(7))).containsExactly("101", "102");
+        assertThat(calendar.freeRooms(MEDIUM, TODAY.plusDays(1), TODAY.plusDays(3))).containsExactly("102");
+    }
+
+    @Test
+    void should_moveRoom_when_itsSegmentChanges() {
+        calendar.register("101", LARGE);
+
+        assertThat(calendar.freeRooms(MEDIUM, TODAY, TODAY.plusDays(1))).containsExactly("102");
+        assertThat(calendar.freeRooms(LARGE, TODAY, TODAY.plusDays(1))).containsExactly("101", "201");
+    }
+
+    @Test
+    void should_ignoreNightsBeforeTheOrigin() {
+        calendar.occupy(stay("RES00001", "101", TODAY.minusDays(100), TODAY.minusDays(90)));
+
+        assertThat(calendar.freeRooms(MEDIUM, TODAY, TODAY.plusDays(1))).containsExactly("101", "102");
+    }
+
+    private static ReservationStay stay(String id, String room, LocalDate start, LocalDate end) {
+        return new ReservationStay(id, room, MEDIUM, start, end);
+    }
+}
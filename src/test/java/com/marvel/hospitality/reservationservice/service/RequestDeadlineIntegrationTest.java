@@ -0,0 +1,87 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.marvel.hospitality.reservationservice.client.PaymentStatusCache;
+import com.marvel.hospitality.reservationservice.dto.ReservationRequest;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
+import com.marvel.hospitality.reservationservice.model.PaymentMode;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.wiremock.spring.ConfigureWireMock;
+import org.wiremock.spring.EnableWireMock;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "app.kafka.enabled=false")
+@EnableWireMock(@ConfigureWireMock(name = "credit-card-payment-server", port = 9090, registerSpringBean = true))
+@ActiveProfiles("test")
+class RequestDeadlineIntegrationTest {
+
+    @Autowired
+    private ReservationService service;
+    @Autowired
+    private ReservationRepository repository;
+    @Autowired
+    private RoomAvailabilityService roomAvailability;
+    @Autowired
+    private PaymentStatusCache paymentStatusCache;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Qualifier("credit-card-payment-server")
+    @Autowired
+    private WireMockServer wireMockServer;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer.resetAll();
+        circuitBreakerRegistry.circuitBreaker("creditCard").reset();
+        paymentStatusCache.invalidateAll();
+        repository.deleteAll();
+        roomAvailability.reload();
+    }
+
+    @Test
+    void should_abandonSlowCardCallWithoutRetrying_when_requestDeadlinePasses() {
+        wireMockServer.stubFor(post(urlPathMatching("/credit-card-payment-api/.*"))
+                .willReturn(aResponse().withStatus(200)
+                        .withFixedDelay(3_000)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"status\": \"CONFIRMED\"}")));
+        ReservationRequest request = new ReservationRequest("Hurried Guest", "401", LocalDate.of(2100, 6, 1),
+                LocalDate.of(2100, 6, 3), MEDIUM, PaymentMode.CREDIT_CARD, "PAYREF-SLOW");
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> RequestDeadline.callWithin(RequestDeadline.after(Duration.ofMillis(500)),
+                () -> service.createReservation(request)))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        wireMockServer.verify(1, postRequestedFor(urlPathMatching("/credit-card-payment-api/.*")));
+        assertThat(repository.findAll()).extracting(Reservation::getStatus).containsExactly(ReservationStatus.CANCELLED);
+        assertThat(roomAvailability.hasOverlap("401", LocalDate.of(2100, 6, 1), LocalDate.of(2100, 6, 3))).isFalse();
+        assertThat(meterRegistry.get("request.deadline.exceeded").tag("stage", "credit card call").counter().count())
+                .isGreaterThanOrEqualTo(1);
+        assertThat(circuitBreakerRegistry.circuitBreaker("creditCard").getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+}
@@ -0,0 +1,68 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDeadlinesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestDeadlines deadlines =
+            new RequestDeadlines(Duration.ofSeconds(10), Duration.ofSeconds(30), meterRegistry);
+
+    @Test
+    void should_useDefaultTimeout_when_callerSendsNone() {
+        Duration remaining = deadlines.start(null).remaining();
+
+        assertThat(remaining).isBetween(Duration.ofSeconds(9), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void should_capRequestedTimeout_when_itExceedsTheMax() {
+        Duration remaining = deadlines.start(Duration.ofMinutes(5)).remaining();
+
+        assertThat(remaining).isBetween(Duration.ofSeconds(29), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void should_capTimeoutsToTheTimeLeft_when_deadlineIsCloser() {
+        Duration capped = RequestDeadline.callWithin(RequestDeadline.after(Duration.ofMillis(200)),
+                () -> RequestDeadline.cap(Duration.ofSeconds(5)));
+
+        assertThat(capped).isLessThanOrEqualTo(Duration.ofMillis(200));
+        assertThat(RequestDeadline.cap(Duration.ofSeconds(5))).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void should_throwAndCountAbandonedStage_when_deadlineHasPassed() {
+        RequestDeadline expired = RequestDeadline.after(Duration.ZERO);
+
+        assertThatThrownBy(() -> RequestDeadline.callWithin(expired, () -> {
+            deadlines.check("booking");
+            return null;
+        })).isInstanceOf(DeadlineExceededException.class);
+        boolean retried = RequestDeadline.callWithin(expired, deadlines::allowsRetry);
+
+        assertThat(retried).isFalse();
+        assertThat(meterRegistry.get("request.deadline.exceeded").tag("stage", "booking").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("request.deadline.exceeded").tag("stage", "retry").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_keepDeadline_when_workIsPropagatedToAnotherThread() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofSeconds(1));
+
+        RequestDeadline seen = RequestDeadline.callWithin(deadline, () -> CompletableFuture
+                .supplyAsync(RequestDeadline.propagate(() -> RequestDeadline.current().orElse(null)))
+                .join());
+
+        assertThat(seen).isEqualTo(deadline);
+        assertThat(RequestDeadline.current()).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationRequest;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.exception.ReservationConflictException;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.marvel.hospitality.reservationservice.model.PaymentMode.CASH;
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.kafka.enabled=false")
+@ActiveProfiles("test")
+class ReservationServiceConcurrencyTest {
+
+    private static final int CONCURRENT_BOOKINGS = 300;
+
+    @Autowired
+    private ReservationService service;
+    @Autowired
+    private ReservationRepository repository;
+    @Autowired
+    private RoomAvailabilityService roomAvailability;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        roomAvailability.reload();
+    }
+
+    @Test
+    void should_acceptExactlyOneBooking_when_hundredsOfOverlappingRequestsRaceForTheSameRoom() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> results = race(CONCURRENT_BOOKINGS, i -> {
+            LocalDate start = LocalDate.of(2100, 6, 1).plusDays(i % 3);
+            try {
+                service.createReservation(request("Guest " + i, "777", start, start.plusDays(4)));
+            } catch (ReservationConflictException e) {
+                conflicts.incrementAndGet();
+            }
+        });
+
+        for (Future<?> result : results) {
+            result.get(60, SECONDS);
+        }
+        List<Reservation> booked = repository.findAll();
+        assertThat(booked).hasSize(1);
+        assertThat(booked.getFirst().getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(conflicts).hasValue(CONCURRENT_BOOKINGS - 1);
+        assertThat(meterRegistry.counter("reservation.room.lock.contended").count()).isPositive();
+    }
+
+    @Test
+    void should_acceptEveryBooking_when_requestsTargetDifferentRooms() throws Exception {
+        List<Future<?>> results = race(50, i -> service.createReservation(
+                request("Guest " + i, "R" + i, LocalDate.of(2100, 7, 1), LocalDate.of(2100, 7, 3))));
+
+        for (Future<?> result : results) {
+            result.get(60, SECONDS);
+        }
+        assertThat(repository.findAll()).hasSize(50);
+    }
+
+    private static List<Future<?>> race(int requests, IntConsumerTask task) {
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(64)) {
+            for (int i = 0; i < requests; i++) {
+                int request = i;
+                results.add(executor.submit(() -> {
+                    startGate.await();
+                    task.run(request);
+                    return null;
+                }));
+            }
+            startGate.countDown();
+        }
+        return results;
+    }
+
+    private static ReservationRequest request(String name, String room, LocalDate start, LocalDate end) {
+        return new ReservationRequest(name, room, start, end, MEDIUM, CASH, null);
+    }
+
+    @FunctionalInterface
+    private interface IntConsumerTask {
+        void run(int request);
+    }
+}
@@ -1,22 +1,38 @@
 package com.marvel.hospitality.reservationservice.service;
 
 
-import com.marvel.hospitality.reservationservice.client.CreditCardClient;
+import com.marvel.hospitality.reservationservice.client.PaymentStatusCache;
 import com.marvel.hospitality.reservationservice.dto.*;
 import com.marvel.hospitality.reservationservice.entity.Reservation;
 import com.marvel.hospitality.reservationservice.model.*;
 import com.marvel.hospitality.reservationservice.exception.*;
 import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 
 import static org.assertj.core.api.Assertions.*;
@@ -30,11 +46,37 @@ class ReservationServiceTest {
     @Mock
     private ReservationRepository repository;
     @Mock
-    private CreditCardClient creditCardClient;
+    private PaymentStatusCache paymentStatusCache;
+    @Mock
+    private RoomAvailabilityService roomAvailability;
+    @Spy
+    private RoomLockStripes roomLocks = new RoomLockStripes(16, Duration.ofSeconds(1), new SimpleMeterRegistry());
+    @Spy
+    private CardVerificationExecutor cardVerification = new CardVerificationExecutor(
+            CardVerificationMode.BLOCKING, Duration.ofSeconds(10), BudgetExceededAction.REJECT, new SimpleMeterRegistry());
+    @Mock
+    private DeferredCardVerifier deferredVerification;
+    @Mock
+    private CardPaymentRefunds refunds;
+    @Spy
+    private RequestDeadlines deadlines = new RequestDeadlines(
+            Duration.ofSeconds(10), Duration.ofSeconds(30), new SimpleMeterRegistry());
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private ReservationService service;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(i -> {
+            i.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
 
     @Test
     void should_createConfirmedReservation_when_paymentModeIsCash() {
@@ -47,7 +89,7 @@ class ReservationServiceTest {
 
         assertThat(resp.status()).isEqualTo(ReservationStatus.CONFIRMED);
         verify(repository).save(any());
-        verifyNoInteractions(creditCardClient);
+        verifyNoInteractions(paymentStatusCache);
     }
 
     @Test
@@ -55,14 +97,243 @@ class ReservationServiceTest {
         ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
                 RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
 
-        when(creditCardClient.verifyPayment("REF-123"))
+        when(paymentStatusCache.verifyPayment("REF-123"))
                 .thenReturn(new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED));
-        when(repository.save(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
+        holdOnSave("HOLD1");
 
         ReservationResponse resp = service.createReservation(req);
 
+        assertThat(resp.reservationId()).isEqualTo("HOLD1");
         assertThat(resp.status()).isEqualTo(ReservationStatus.CONFIRMED);
-        verify(creditCardClient).verifyPayment("REF-123");
+        verify(repository, times(2)).save(argThat(r -> r.getId().equals("HOLD1")));
+        verify(paymentStatusCache).verifyPayment("REF-123");
+    }
+
+    @Test
+    void should_verifyCardBetweenTransactions_when_creditCardBookingIsPlaced() {
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        when(paymentStatusCache.verifyPayment("REF-123"))
+                .thenReturn(new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED));
+        holdOnSave("HOLD1");
+
+        service.createReservation(req);
+
+        InOrder inOrder = inOrder(transactionTemplate, repository, paymentStatusCache);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(repository).save(any(Reservation.class));
+        inOrder.verify(paymentStatusCache).verifyPayment("REF-123");
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(repository).findById("HOLD1");
+    }
+
+    @Test
+    void should_releaseRoomHold_when_creditCardServiceIsUnavailable() {
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        when(paymentStatusCache.verifyPayment("REF-123")).thenThrow(new RuntimeException("timeout"));
+        holdOnSave("HOLD1");
+
+        assertThatThrownBy(() -> service.createReservation(req))
+                .isInstanceOf(CreditCardServiceUnavailableException.class);
+
+        verify(repository).cancelPending(eq(List.of("HOLD1")), any(LocalDateTime.class));
+        verify(roomAvailability).release("HOLD1");
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void should_bookNothing_when_requestDeadlineHasPassed() {
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+
+        assertThatThrownBy(() -> RequestDeadline.callWithin(RequestDeadline.after(Duration.ZERO),
+                () -> service.createReservation(req)))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        verifyNoInteractions(repository, paymentStatusCache, transactionTemplate);
+    }
+
+    @Test
+    void should_releaseRoomHoldAndRethrow_when_deadlinePassesDuringCardVerification() {
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        when(paymentStatusCache.verifyPayment("REF-123"))
+                .thenThrow(new DeadlineExceededException("Request deadline passed before credit card call"));
+        holdOnSave("HOLD1");
+
+        assertThatThrownBy(() -> service.createReservation(req))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        verify(repository).cancelPending(eq(List.of("HOLD1")), any(LocalDateTime.class));
+        verify(roomAvailability).release("HOLD1");
+    }
+
+    @Test
+    void should_keepRoomHoldPending_when_degradedModeDefersVerification() {
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        RuntimeException circuitOpen = new RuntimeException("CircuitBreaker 'creditCard' is OPEN");
+        when(paymentStatusCache.verifyPayment("REF-123")).thenThrow(circuitOpen);
+        when(deferredVerification.defers(argThat(e -> e.getCause() == circuitOpen))).thenReturn(true);
+        when(deferredVerification.defer("HOLD1"))
+                .thenReturn(new ReservationResponse("HOLD1", ReservationStatus.PENDING_PAYMENT));
+        holdOnSave("HOLD1");
+
+        ReservationResponse response = service.createReservation(req);
+
+        assertThat(response.status()).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+        verify(repository, never()).cancelPending(any(), any());
+    }
+
+    @Test
+    void should_flagRefund_when_roomHoldExpiredDuringCardVerification() {
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        when(paymentStatusCache.verifyPayment("REF-123"))
+                .thenReturn(new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED));
+        holdOnSave("HOLD1");
+        when(repository.findById("HOLD1")).thenReturn(Optional.of(
+                Reservation.builder().id("HOLD1").status(ReservationStatus.CANCELLED).build()));
+
+        assertThatThrownBy(() -> service.createReservation(req))
+                .isInstanceOf(PaymentRefundRequiredException.class)
+                .hasMessageContaining("expired before the card payment was verified");
+        verify(refunds).flag("HOLD1", "REF-123");
+    }
+
+    @Test
+    void should_rejectAndReleaseHold_when_verificationExceedsLatencyBudget() {
+        useVirtualThreads(BudgetExceededAction.REJECT);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-SLOW");
+        when(paymentStatusCache.verifyPayment("REF-SLOW")).thenAnswer(i -> {
+            Thread.sleep(5_000);
+            return new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED);
+        });
+        holdOnSave("HOLD1");
+
+        assertThatThrownBy(() -> service.createReservation(req))
+                .isInstanceOf(CreditCardServiceUnavailableException.class)
+                .hasMessage("Credit card service did not answer within the latency budget");
+
+        verify(repository).cancelPending(eq(List.of("HOLD1")), any(LocalDateTime.class));
+        verify(roomAvailability).release("HOLD1");
+    }
+
+    @Test
+    void should_answerConfirmed_when_providerAnswersButSettlementOutlivesLatencyBudget() {
+        useVirtualThreads(BudgetExceededAction.REJECT);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        when(paymentStatusCache.verifyPayment("REF-123"))
+                .thenReturn(new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED));
+        when(transactionTemplate.execute(any())).thenAnswer(i -> {
+            Thread.sleep(300);
+            return i.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        });
+        holdOnSave("HOLD1");
+
+        ReservationResponse resp = service.createReservation(req);
+
+        assertThat(resp).isEqualTo(new ReservationResponse("HOLD1", ReservationStatus.CONFIRMED));
+        verify(repository, never()).cancelPending(any(), any());
+    }
+
+    @Test
+    void should_answerPendingAndConfirmLater_when_verificationExceedsLatencyBudget() {
+        useVirtualThreads(BudgetExceededAction.KEEP_PENDING);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-SLOW");
+        when(paymentStatusCache.verifyPayment("REF-SLOW")).thenAnswer(i -> {
+            Thread.sleep(300);
+            return new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED);
+        });
+        holdOnSave("HOLD1");
+
+        ReservationResponse resp = service.createReservation(req);
+
+        assertThat(resp.status()).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+        verify(repository, timeout(2_000).times(2)).save(any(Reservation.class));
+        verify(repository).findById("HOLD1");
+        verify(repository, never()).cancelPending(any(), any());
+    }
+
+    @Test
+    void should_confirmHoldAnsweredPending_when_providerAnswersAfterRequestDeadline() {
+        useVirtualThreads(BudgetExceededAction.KEEP_PENDING);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-SLOW");
+        when(paymentStatusCache.verifyPayment("REF-SLOW")).thenAnswer(i -> {
+            Thread.sleep(300);
+            deadlines.check("credit card call");
+            return new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED);
+        });
+        holdOnSave("HOLD1");
+
+        ReservationResponse resp = RequestDeadline.callWithin(RequestDeadline.after(Duration.ofMillis(150)),
+                () -> service.createReservation(req));
+
+        assertThat(resp.status()).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+        verify(repository, timeout(2_000).times(2)).save(any(Reservation.class));
+        assertThat(repository.findById("HOLD1")).get().extracting(Reservation::getStatus)
+                .isEqualTo(ReservationStatus.CONFIRMED);
+        verify(repository, never()).cancelPending(any(), any());
+    }
+
+    @Test
+    void should_returnBeforeProviderAnswers_when_virtualThreadModeIsConfigured() {
+        useVirtualThreads(BudgetExceededAction.REJECT);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        CountDownLatch providerAnswers = new CountDownLatch(1);
+        when(paymentStatusCache.verifyPayment("REF-123")).thenAnswer(i -> {
+            providerAnswers.await();
+            return new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED);
+        });
+        holdOnSave("HOLD1");
+
+        CompletableFuture<ReservationResponse> response = service.submitReservation(req);
+
+        assertThat(response).isNotDone();
+        providerAnswers.countDown();
+        assertThat(response.join().status()).isEqualTo(ReservationStatus.CONFIRMED);
+    }
+
+    @Test
+    void should_throwDeadlineExceeded_when_deadlinePassesBeforeBudgetOnVirtualThreads() {
+        useVirtualThreads(BudgetExceededAction.REJECT);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-SLOW");
+        when(paymentStatusCache.verifyPayment("REF-SLOW")).thenAnswer(i -> {
+            Thread.sleep(5_000);
+            return new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED);
+        });
+        holdOnSave("HOLD1");
+
+        CompletableFuture<ReservationResponse> response = RequestDeadline.callWithin(
+                RequestDeadline.after(Duration.ofMillis(50)), () -> service.submitReservation(req));
+
+        assertThatThrownBy(response::join).cause().isInstanceOf(DeadlineExceededException.class);
+        verify(repository, timeout(2_000)).cancelPending(eq(List.of("HOLD1")), any(LocalDateTime.class));
+    }
+
+    @Test
+    void should_verifyOnVirtualThread_when_virtualThreadModeIsConfigured() {
+        useVirtualThreads(BudgetExceededAction.REJECT);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-123");
+        AtomicReference<Thread> verifiedOn = new AtomicReference<>();
+        when(paymentStatusCache.verifyPayment("REF-123")).thenAnswer(i -> {
+            verifiedOn.set(Thread.currentThread());
+            return new PaymentStatusResponse("", PaymentConfirmationStatus.CONFIRMED);
+        });
+        holdOnSave("HOLD1");
+
+        ReservationResponse resp = service.createReservation(req);
+
+        assertThat(resp.status()).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(verifiedOn.get().isVirtual()).isTrue();
     }
 
     @Test
@@ -73,6 +344,7 @@ class ReservationServiceTest {
         assertThatThrownBy(() -> service.createReservation(req))
                 .isInstanceOf(ReservationValidationException.class)
                 .hasMessage("paymentReference is required for CreditCard payments");
+        verifyNoInteractions(repository, paymentStatusCache);
     }
 
     @Test
@@ -90,11 +362,34 @@ class ReservationServiceTest {
         ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
                 RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-FAIL");
 
-        when(creditCardClient.verifyPayment("REF-FAIL"))
+        when(paymentStatusCache.verifyPayment("REF-FAIL"))
                 .thenReturn(new PaymentStatusResponse("", PaymentConfirmationStatus.REJECTED));
+        holdOnSave("HOLD1");
 
         assertThatThrownBy(() -> service.createReservation(req))
                 .isInstanceOf(PaymentRejectedException.class);
+        verify(repository).cancelPending(eq(List.of("HOLD1")), any(LocalDateTime.class));
+        verify(repository, never()).deleteById(any());
+        verify(roomAvailability).release("HOLD1");
+    }
+
+    @Test
+    void should_cancelHoldAnsweredPending_when_providerRejectsAfterLatencyBudget() {
+        useVirtualThreads(BudgetExceededAction.KEEP_PENDING);
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now(), LocalDate.now().plusDays(2),
+                RoomSegment.MEDIUM, PaymentMode.CREDIT_CARD, "REF-SLOW");
+        when(paymentStatusCache.verifyPayment("REF-SLOW")).thenAnswer(i -> {
+            Thread.sleep(300);
+            return new PaymentStatusResponse("", PaymentConfirmationStatus.REJECTED);
+        });
+        holdOnSave("HOLD1");
+
+        ReservationResponse resp = service.createReservation(req);
+
+        assertThat(resp).isEqualTo(new ReservationResponse("HOLD1", ReservationStatus.PENDING_PAYMENT));
+        verify(roomAvailability, timeout(2_000)).release("HOLD1");
+        verify(repository).cancelPending(eq(List.of("HOLD1")), any(LocalDateTime.class));
+        verify(repository, never()).deleteById(any());
     }
 
     @Test
@@ -148,20 +443,42 @@ class ReservationServiceTest {
 
         assertThat(res.getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
         verify(repository).save(res);
+        verify(roomAvailability).hold(res);
     }
 
     @Test
-    void shouldThrowReservationConflictException_whenRoomIsAlreadyBookedForOverlappingPeriod() {
-        Reservation existing = Reservation.builder()
-                .id("EXISTING")
-                .roomNumber("101")
-                .startDate(LocalDate.of(2026, 3, 1))
-                .endDate(LocalDate.of(2026, 3, 10))
+    void should_confirmPendingBankTransfersWithOneLoad_when_batchIsConfirmed() {
+        Reservation pending = Reservation.builder().id("ID1")
+                .status(ReservationStatus.PENDING_PAYMENT)
+                .paymentMode(PaymentMode.BANK_TRANSFER).build();
+        Reservation confirmed = Reservation.builder().id("ID2")
                 .status(ReservationStatus.CONFIRMED)
-                .build();
+                .paymentMode(PaymentMode.BANK_TRANSFER).build();
+        when(repository.findAllById(any())).thenReturn(List.of(pending, confirmed));
+
+        int count = service.confirmBankTransferPayments(List.of("ID1", "ID2", "NONE"));
+
+        assertThat(count).isEqualTo(1);
+        assertThat(pending.getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        verify(repository).saveAll(List.of(pending));
+        verify(repository, never()).findById(any());
+        verify(roomAvailability).hold(pending);
+    }
+
+    @Test
+    void should_createPendingReservation_when_bankTransferReservationIsCreated() {
+        ReservationRequest req = new ReservationRequest("John", "101", LocalDate.now().plusDays(10),
+                LocalDate.now().plusDays(12), RoomSegment.MEDIUM, PaymentMode.BANK_TRANSFER, null);
+
+        ReservationResponse resp = service.createReservation(req);
+
+        assertThat(resp.status()).isEqualTo(ReservationStatus.PENDING_PAYMENT);
+    }
 
-        when(repository.findOverlappingReservations("101", LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 15)))
-                .thenReturn(List.of(existing));
+    @Test
+    void shouldThrowReservationConflictException_whenRoomIsAlreadyBookedForOverlappingPeriod() {
+        when(roomAvailability.isBooked("101", LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 15)))
+                .thenReturn(true);
 
         ReservationRequest request = new ReservationRequest(
                 "New Guest", "101", LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 15),
@@ -171,14 +488,42 @@ class ReservationServiceTest {
                 .isInstanceOf(ReservationConflictException.class)
                 .hasMessageContaining("Room 101 is already booked");
 
-        verify(repository).findOverlappingReservations(anyString(), any(LocalDate.class), any(LocalDate.class));
-        verifyNoMoreInteractions(repository);
+        verifyNoInteractions(repository);
+        verify(roomAvailability, never()).hold(any());
+    }
+
+    @Test
+    void should_throwConflict_when_databaseRejectsOverlappingStay() {
+        doThrow(new DataIntegrityViolationException("commit failed",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")))
+                .when(transactionTemplate).execute(any());
+
+        ReservationRequest request = new ReservationRequest(
+                "New Guest", "101", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3),
+                RoomSegment.MEDIUM, PaymentMode.CASH, null);
+
+        assertThatThrownBy(() -> service.createReservation(request))
+                .isInstanceOf(ReservationConflictException.class)
+                .hasMessageContaining("Room 101 is already booked");
+    }
+
+    @Test
+    void should_propagateIntegrityViolation_when_notAnOverlap() {
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("commit failed",
+                new SQLException("duplicate key value violates unique constraint", "23505"));
+        doThrow(violation).when(transactionTemplate).execute(any());
+
+        ReservationRequest request = new ReservationRequest(
+                "New Guest", "101", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3),
+                RoomSegment.MEDIUM, PaymentMode.CASH, null);
+
+        assertThatThrownBy(() -> service.createReservation(request)).isSameAs(violation);
     }
 
     @Test
     void shouldCreateReservation_whenNoOverlappingReservationsExist() {
-        when(repository.findOverlappingReservations(anyString(), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(List.of());
+        when(roomAvailability.isBooked(anyString(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(false);
 
         ReservationRequest request = new ReservationRequest(
                 "New Guest", "202", LocalDate.of(2026, 4, 1), LocalDate.of(2026, 4, 5),
@@ -188,5 +533,58 @@ class ReservationServiceTest {
 
         assertThat(response.status()).isEqualTo(ReservationStatus.CONFIRMED);
         verify(repository).save(any(Reservation.class));
+        verify(roomAvailability).hold(any(Reservation.class));
+    }
+
+    @Test
+    void should_returnFreeRooms_when_availabilityPeriodIsValid() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = from.plusDays(3);
+        when(roomAvailability.findFreeRooms(RoomSegment.MEDIUM, from, to)).thenReturn(List.of("101", "102"));
+
+        RoomAvailabilityResponse response = service.findAvailableRooms(RoomSegment.MEDIUM, from, to);
+
+        assertThat(response.availableRooms()).containsExactly("101", "102");
+        assertThat(response.segment()).isEqualTo(RoomSegment.MEDIUM);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void should_throwValidationException_when_availabilityPeriodStartsInThePast() {
+        LocalDate from = LocalDate.now().minusDays(1);
+
+        assertThatThrownBy(() -> service.findAvailableRooms(RoomSegment.MEDIUM, from, from.plusDays(2)))
+                .isInstanceOf(ReservationValidationException.class)
+                .hasMessage("Availability search must start today or in the future");
+    }
+
+    @Test
+    void should_throwValidationException_when_availabilityPeriodIsEmpty() {
+        LocalDate from = LocalDate.now().plusDays(1);
+
+        assertThatThrownBy(() -> service.findAvailableRooms(RoomSegment.MEDIUM, from, from))
+                .isInstanceOf(ReservationValidationException.class)
+                .hasMessage("Reservation End date must be after Start date");
+        verifyNoInteractions(roomAvailability);
+    }
+
+    private void useVirtualThreads(BudgetExceededAction onBudgetExceeded) {
+        ReflectionTestUtils.setField(service, "cardVerification", new CardVerificationExecutor(
+                CardVerificationMode.VIRTUAL_THREADS, Duration.ofMillis(100), onBudgetExceeded, new SimpleMeterRegistry()));
+    }
+
+    /** Saved reservations get {@code id} and are found again and cancelled by it, as the hold the card payment settles. */
+    private void holdOnSave(String id) {
+        AtomicReference<Reservation> saved = new AtomicReference<>();
+        when(repository.save(any(Reservation.class))).thenAnswer(i -> {
+            Reservation reservation = i.getArgument(0);
+            if (reservation.getId() == null) {
+                reservation.setId(id);
+            }
+            saved.compareAndSet(null, reservation);
+            return reservation;
+        });
+        lenient().when(repository.findById(id)).thenAnswer(i -> Optional.ofNullable(saved.get()));
+        lenient().when(repository.cancelPending(eq(List.of(id)), any(LocalDateTime.class))).thenReturn(1);
     }
-}
\ No newline at end of file
+}
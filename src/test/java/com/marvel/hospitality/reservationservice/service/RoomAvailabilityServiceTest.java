@@ -0,0 +1,270 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
+import com.marvel.hospitality.reservationservice.dto.ReservationStayChange;
+import com.marvel.hospitality.reservationservice.dto.RoomRef;
+import com.marvel.hospitality.reservationservice.entity.Reservation;
+import com.marvel.hospitality.reservationservice.model.ReservationStatus;
+import com.marvel.hospitality.reservationservice.repository.ReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.LARGE;
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RoomAvailabilityServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2100, 1, 1);
+    private static final LocalDate END = LocalDate.of(2100, 1, 5);
+
+    @Mock
+    private ReservationRepository repository;
+
+    @InjectMocks
+    private RoomAvailabilityService roomAvailability;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void should_loadActiveStays_when_contextIsInitialized() {
+        when(repository.findActiveStays())
+                .thenReturn(List.of(new ReservationStay("RES00001", "101", MEDIUM, START, END)));
+
+        roomAvailability.afterSingletonsInstantiated();
+
+        assertThat(roomAvailability.size()).isEqualTo(1);
+        assertThat(roomAvailability.hasOverlap("101", START.plusDays(1), END.plusDays(1))).isTrue();
+    }
+
+    @Test
+    void should_dropStaleStays_when_reloaded() {
+        roomAvailability.hold(reservation());
+        when(repository.findActiveStays()).thenReturn(List.of());
+
+        roomAvailability.reload();
+
+        assertThat(roomAvailability.hasOverlap("101", START, END)).isFalse();
+    }
+
+    @Test
+    void should_holdAndReleaseImmediately_when_noTransactionIsActive() {
+        roomAvailability.hold(reservation());
+        assertThat(roomAvailability.hasOverlap("101", START, END)).isTrue();
+
+        roomAvailability.release("RES00001");
+        assertThat(roomAvailability.hasOverlap("101", START, END)).isFalse();
+    }
+
+    @Test
+    void should_listFreeRoomsOfSegment_when_stayIsHeldAndReleased() {
+        when(repository.findRooms()).thenReturn(List.of(new RoomRef("101", MEDIUM), new RoomRef("102", MEDIUM)));
+        roomAvailability.reload();
+
+        roomAvailability.hold(reservation());
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, START, END)).containsExactly("102");
+
+        roomAvailability.release("RES00001");
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, START, END)).containsExactly("101", "102");
+    }
+
+    @Test
+    void should_listNeverBookedRoomsOfCatalogue_when_roomsAreConfigured() {
+        ReflectionTestUtils.setField(roomAvailability, "roomCatalogue", List.of("101:MEDIUM", "103:MEDIUM", "201:LARGE"));
+        when(repository.findRooms()).thenReturn(List.of(new RoomRef("101", MEDIUM), new RoomRef("102", MEDIUM)));
+        roomAvailability.reload();
+
+        roomAvailability.hold(reservation());
+
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, START, END)).containsExactlyInAnyOrder("102", "103");
+        assertThat(roomAvailability.findFreeRooms(LARGE, START, END)).containsExactly("201");
+    }
+
+    @Test
+    void should_listOnlyRoomsWithBookings_when_noCatalogueIsConfigured() {
+        when(repository.findRooms()).thenReturn(List.of(new RoomRef("101", MEDIUM)));
+        roomAvailability.reload();
+
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, START, END)).containsExactly("101");
+        assertThat(roomAvailability.findFreeRooms(LARGE, START, END)).isEmpty();
+    }
+
+    @Test
+    void should_freePreviousNights_when_stayIsHeldAgainWithOtherDates() {
+        Reservation reservation = reservation();
+        roomAvailability.hold(reservation);
+
+        reservation.setStartDate(END);
+        reservation.setEndDate(END.plusDays(2));
+        roomAvailability.hold(reservation);
+
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, START, END)).containsExactly("101");
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, END, END.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    void should_holdOnlyAfterCommit_when_transactionIsActive() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        roomAvailability.hold(reservation());
+        assertThat(roomAvailability.hasOverlap("101", START, END)).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(roomAvailability.hasOverlap("101", START, END)).isTrue();
+    }
+
+    @Test
+    void should_answerBookedWithoutQuery_when_indexHoldsOverlappingStay() {
+        roomAvailability.hold(reservation());
+
+        assertThat(roomAvailability.isBooked("101", START.plusDays(1), END.plusDays(1))).isTrue();
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void should_askDatabase_when_indexHoldsNoOverlappingStay() {
+        when(repository.existsOverlappingStay("101", START, END)).thenReturn(true, false);
+
+        assertThat(roomAvailability.isBooked("101", START, END)).isTrue();
+        assertThat(roomAvailability.isBooked("101", START, END)).isFalse();
+    }
+
+    @Test
+    void should_applyChangesSinceLastLoad_when_refreshed() {
+        ReflectionTestUtils.setField(roomAvailability, "refreshLookback", Duration.ofMinutes(1));
+        roomAvailability.reload();
+        ReservationStayChange bookedElsewhere =
+                new ReservationStayChange("RES00002", "102", MEDIUM, START, END, ReservationStatus.PENDING_PAYMENT);
+        ReservationStayChange cancelledElsewhere =
+                new ReservationStayChange("RES00001", "101", MEDIUM, START, END, ReservationStatus.CANCELLED);
+        when(repository.findStaysChangedSince(any())).thenReturn(List.of(bookedElsewhere, cancelledElsewhere));
+        roomAvailability.hold(reservation());
+
+        roomAvailability.refresh();
+
+        assertThat(roomAvailability.hasOverlap("101", START, END)).isFalse();
+        assertThat(roomAvailability.hasOverlap("102", START, END)).isTrue();
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, START, END)).containsExactly("101");
+        verify(repository, times(1)).findActiveStays();
+    }
+
+    @Test
+    void should_readChangesFromLookbackBeforeLastLoad_when_refreshed() {
+        ReflectionTestUtils.setField(roomAvailability, "refreshLookback", Duration.ofMinutes(1));
+        LocalDateTime beforeLoad = LocalDateTime.now();
+        roomAvailability.reload();
+
+        roomAvailability.refresh();
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).findStaysChangedSince(since.capture());
+        assertThat(since.getValue()).isBetween(beforeLoad.minusMinutes(1), LocalDateTime.now().minusMinutes(1));
+    }
+
+    @Test
+    void should_loadEverything_when_refreshedBeforeFirstLoad() {
+        roomAvailability.refresh();
+
+        verify(repository).findActiveStays();
+        verify(repository, never()).findStaysChangedSince(any());
+    }
+
+    @Test
+    void should_keepEveryHeldNight_when_staysOfOneRoomAreHeldAndReleasedConcurrently() throws Exception {
+        int stays = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < stays; i++) {
+            Reservation stay = night(i);
+            boolean kept = i % 2 == 0;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                roomAvailability.hold(stay);
+                if (!kept) {
+                    roomAvailability.release(stay.getId());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (int i = 0; i < stays; i++) {
+            Reservation stay = night(i);
+            List<String> free = roomAvailability.findFreeRooms(MEDIUM, stay.getStartDate(), stay.getEndDate());
+            if (i % 2 == 0) {
+                assertThat(free).as("night of kept stay %d", i).isEmpty();
+            } else {
+                assertThat(free).as("night of released stay %d", i).containsExactly("101");
+            }
+        }
+        assertThat(roomAvailability.size()).isEqualTo(stays / 2);
+    }
+
+    @Test
+    void should_keepStayHeldWhileReloadReadsTheDatabase_when_reloadIsSwappedIn() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch held = new CountDownLatch(1);
+        when(repository.findActiveStays()).thenAnswer(i -> {
+            reading.countDown();
+            held.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        CompletableFuture<Void> reload = CompletableFuture.runAsync(roomAvailability::reload);
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        roomAvailability.hold(reservation());
+        held.countDown();
+        reload.get(5, TimeUnit.SECONDS);
+
+        assertThat(roomAvailability.hasOverlap("101", START, END)).isTrue();
+        assertThat(roomAvailability.findFreeRooms(MEDIUM, START, END)).isEmpty();
+    }
+
+    private static Reservation night(int i) {
+        return Reservation.builder().id("RES%05d".formatted(i)).roomNumber("101").segment(MEDIUM)
+                .startDate(START.plusDays(2L * i)).endDate(START.plusDays(2L * i + 1)).build();
+    }
+
+    private static Reservation reservation() {
+        return Reservation.builder().id("RES00001").roomNumber("101").segment(MEDIUM)
+                .startDate(START).endDate(END).build();
+    }
+}
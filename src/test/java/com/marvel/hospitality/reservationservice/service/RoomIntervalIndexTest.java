@@ -0,0 +1,71 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.dto.ReservationStay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDate;
+
+import static com.marvel.hospitality.reservationservice.model.RoomSegment.MEDIUM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomIntervalIndexTest {
+
+    private RoomIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RoomIntervalIndex();
+        index.add(stay("RES00001", "101", "2100-03-01", "2100-03-10"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "2100-03-03, 2100-03-07, true",
+            "2100-02-25, 2100-03-02, true",
+            "2100-03-09, 2100-03-15, true",
+            "2100-02-20, 2100-03-20, true",
+            "2100-02-20, 2100-03-01, false",
+            "2100-03-10, 2100-03-15, false"
+    })
+    void should_detectOverlap_withHalfOpenIntervals(LocalDate start, LocalDate end, boolean expected) {
+        assertThat(index.overlaps("101", start, end)).isEqualTo(expected);
+    }
+
+    @Test
+    void should_notReportOverlap_when_roomIsDifferent() {
+        assertThat(index.overlaps("102", LocalDate.parse("2100-03-03"), LocalDate.parse("2100-03-07"))).isFalse();
+    }
+
+    @Test
+    void should_freeTheRoom_when_stayIsRemoved() {
+        assertThat(index.remove("RES00001")).isNotNull();
+
+        assertThat(index.overlaps("101", LocalDate.parse("2100-03-03"), LocalDate.parse("2100-03-07"))).isFalse();
+        assertThat(index.size()).isZero();
+        assertThat(index.remove("RES00001")).isNull();
+    }
+
+    @Test
+    void should_findLongStay_when_itStartsLongBeforeTheRequestedPeriod() {
+        index.add(stay("RES00002", "101", "2100-04-01", "2100-04-30"));
+        index.add(stay("RES00003", "101", "2100-04-10", "2100-04-12"));
+
+        assertThat(index.overlaps("101", LocalDate.parse("2100-04-28"), LocalDate.parse("2100-05-02"))).isTrue();
+    }
+
+    @Test
+    void should_replacePreviousInterval_when_sameReservationIsAddedAgain() {
+        index.add(stay("RES00001", "101", "2100-05-01", "2100-05-03"));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.overlaps("101", LocalDate.parse("2100-03-03"), LocalDate.parse("2100-03-07"))).isFalse();
+        assertThat(index.overlaps("101", LocalDate.parse("2100-05-02"), LocalDate.parse("2100-05-04"))).isTrue();
+    }
+
+    private static ReservationStay stay(String id, String room, String start, String end) {
+        return new ReservationStay(id, room, MEDIUM, LocalDate.parse(start), LocalDate.parse(end));
+    }
+}
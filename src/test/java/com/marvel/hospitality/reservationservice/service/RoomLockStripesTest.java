@@ -0,0 +1,95 @@
+package com.marvel.hospitality.reservationservice.service;
+
+import com.marvel.hospitality.reservationservice.exception.ReservationConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomLockStripesTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoomLockStripes roomLocks;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        roomLocks = new RoomLockStripes(1000, Duration.ofMillis(200), meterRegistry);
+    }
+
+    @Test
+    void should_roundStripeCountUpToPowerOfTwo() {
+        assertThat(roomLocks.stripeCount()).isEqualTo(1024);
+    }
+
+    @Test
+    void should_returnActionResult_and_notCountContention_when_lockIsFree() {
+        assertThat(roomLocks.withLock("101", () -> "booked")).isEqualTo("booked");
+
+        assertThat(meterRegistry.counter("reservation.room.lock.contended").count()).isZero();
+    }
+
+    @Test
+    void should_timeOutWithConflict_when_sameRoomIsHeldByAnotherThread() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> roomLocks.withLock("101", () -> {
+            held.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(held.await(5, SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> roomLocks.withLock("101", () -> "late"))
+                .isInstanceOf(ReservationConflictException.class)
+                .hasMessageContaining("Room 101 is being booked by another request");
+
+        release.countDown();
+        holder.get(5, SECONDS);
+        assertThat(meterRegistry.counter("reservation.room.lock.contended").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("reservation.room.lock.timeouts").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("reservation.room.lock.wait").count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_notBlock_when_otherRoomIsHeld() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> roomLocks.withLock("101", () -> {
+            held.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(held.await(5, SECONDS)).isTrue();
+
+        assertThat(roomLocks.withLock("102", () -> "booked")).isEqualTo("booked");
+
+        release.countDown();
+        holder.get(5, SECONDS);
+        assertThat(meterRegistry.counter("reservation.room.lock.timeouts").count()).isZero();
+    }
+
+    @Test
+    void should_releaseLock_when_actionThrows() {
+        assertThatThrownBy(() -> roomLocks.withLock("101", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(roomLocks.withLock("101", () -> "booked")).isEqualTo("booked");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}